@@ -0,0 +1,160 @@
+package com.JUnit;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.database.AsyncDbAccess;
+import com.database.DbAccess;
+import com.database.ExternalDbOpenHelper;
+import com.database.FilterResult;
+
+import junit.framework.Assert;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * AsyncDbAccessTest
+ * Contains JUnit test cases to test the AsyncDbAccess class
+ */
+public class AsyncDbAccessTest extends AndroidTestCase {
+
+	SQLiteDatabase database;
+
+	/**
+	 * setUp
+	 * Sets up necessary resources for test
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		database = helper.openDataBase();
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testFilter
+	 * The background filter should deliver the same result as DbAccess
+	 */
+	public void testFilter() throws Exception {
+		ArrayList<String> majors = new ArrayList<String>();
+		majors.add("SCS");
+		ArrayList<String> none = new ArrayList<String>();
+		ArrayList<String> industries = DbAccess.getAllIndustries(database);
+		industries.add("Not an industry");
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<FilterResult> result = new AtomicReference<FilterResult>();
+
+		AsyncDbAccess.filter("", majors, none, none, industries, database,
+				new AsyncDbAccess.Callback<FilterResult>() {
+					@Override
+					public void onResult(FilterResult filterResult) {
+						result.set(filterResult);
+						done.countDown();
+					}
+				});
+
+		Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(DbAccess.getCompaniesWith("", majors, none, none,
+				industries, database).getNames(), result.get().getNames());
+		Assert.assertFalse(AsyncDbAccess.isPending(AsyncDbAccess.FILTER));
+	}
+
+	/**
+	 * testSuperseded
+	 * A request replaced while it is running should never deliver its result
+	 */
+	public void testSuperseded() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final ArrayList<String> delivered = new ArrayList<String>();
+
+		AsyncDbAccess.submit("test", new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				started.countDown();
+				release.await();
+				return "first";
+			}
+		}, new AsyncDbAccess.Callback<String>() {
+			@Override
+			public void onResult(String result) {
+				delivered.add(result);
+			}
+		});
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		AsyncDbAccess.submit("test", new Callable<String>() {
+			@Override
+			public String call() {
+				return "second";
+			}
+		}, new AsyncDbAccess.Callback<String>() {
+			@Override
+			public void onResult(String result) {
+				delivered.add(result);
+				done.countDown();
+			}
+		});
+		release.countDown();
+
+		Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1, delivered.size());
+		Assert.assertEquals("second", delivered.get(0));
+	}
+
+	/**
+	 * testCancel
+	 * A cancelled request should not deliver its result
+	 */
+	public void testCancel() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final ArrayList<String> delivered = new ArrayList<String>();
+
+		AsyncDbAccess.submit("cancel", new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				release.await();
+				return "cancelled";
+			}
+		}, new AsyncDbAccess.Callback<String>() {
+			@Override
+			public void onResult(String result) {
+				delivered.add(result);
+			}
+		});
+		AsyncDbAccess.cancel("cancel");
+		release.countDown();
+
+		// Anything queued behind it runs after it on the same thread
+		final CountDownLatch done = new CountDownLatch(1);
+		AsyncDbAccess.submit("after", new Callable<String>() {
+			@Override
+			public String call() {
+				return "after";
+			}
+		}, new AsyncDbAccess.Callback<String>() {
+			@Override
+			public void onResult(String result) {
+				done.countDown();
+			}
+		});
+		Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+		Assert.assertTrue(delivered.isEmpty());
+		Assert.assertFalse(AsyncDbAccess.isPending("cancel"));
+	}
+}
@@ -0,0 +1,157 @@
+package com.JUnit;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.database.CatalogSnapshot;
+import com.database.Company;
+import com.database.CompanyLoader;
+import com.database.ExternalDbOpenHelper;
+import com.database.RelationIndex;
+
+import junit.framework.Assert;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * CatalogSnapshotTest
+ * Contains JUnit test cases to test the CatalogSnapshot class
+ */
+public class CatalogSnapshotTest extends AndroidTestCase {
+
+	private static final long STAMP = 42;
+
+	SQLiteDatabase database;
+	private File mFile;
+
+	/**
+	 * setUp
+	 * Opens the database and saves a snapshot of it
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		database = helper.openDataBase();
+		mFile = File.createTempFile("catalog", ".snapshot");
+		CatalogSnapshot.write(CompanyLoader.load(database), mFile, STAMP);
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Deletes the snapshot
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		mFile.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * testRoundTrip
+	 * A snapshot should read back the same companies and relations as the
+	 * database
+	 */
+	public void testRoundTrip() {
+		CompanyLoader loaded = CompanyLoader.load(database);
+		CompanyLoader read = CatalogSnapshot.read(mFile, STAMP);
+		Assert.assertNotNull(read);
+
+		Assert.assertEquals(loaded.getCompanies().size(), read.getCompanies()
+				.size());
+		for (int id = 0; id < loaded.getCompanies().size(); id++) {
+			Company expected = loaded.getCompanies().get(id);
+			Company actual = read.getCompanies().get(id);
+			Assert.assertEquals(expected.getId(), actual.getId());
+			Assert.assertEquals(expected.getName(), actual.getName());
+			Assert.assertEquals(expected.getWebsite(), actual.getWebsite());
+			Assert.assertEquals(expected.getTableNum(), actual.getTableNum());
+			Assert.assertEquals(expected.getRoom(), actual.getRoom());
+			Assert.assertEquals(loaded.getFilterEngine().getMissing(id), read
+					.getFilterEngine().getMissing(id));
+			assertSameValues(loaded.getMajorIndex(), read.getMajorIndex(), id);
+			assertSameValues(loaded.getPositionIndex(),
+					read.getPositionIndex(), id);
+			assertSameValues(loaded.getWorkAuthIndex(),
+					read.getWorkAuthIndex(), id);
+			assertSameValues(loaded.getIndustryIndex(),
+					read.getIndustryIndex(), id);
+		}
+
+		Assert.assertEquals(loaded.getCompanyNames(), read.getCompanyNames());
+		Assert.assertEquals(loaded.getAllMajors(), read.getAllMajors());
+		Assert.assertEquals(loaded.getAllWorkAuths(), read.getAllWorkAuths());
+		Assert.assertEquals(loaded.getAllPositions(), read.getAllPositions());
+		Assert.assertEquals(loaded.getAllIndustries(),
+				read.getAllIndustries());
+
+		ArrayList<String> none = new ArrayList<String>();
+		ArrayList<String> majors = new ArrayList<String>();
+		majors.add(loaded.getAllMajors().get(1).getAbbrev());
+		Assert.assertEquals(
+				loaded.getFilterEngine().filter("Wood", majors, none, none),
+				read.getFilterEngine().filter("Wood", majors, none, none));
+	}
+
+	/**
+	 * testStale
+	 * A snapshot of another database should not be read
+	 */
+	public void testStale() {
+		Assert.assertNull(CatalogSnapshot.read(mFile, STAMP + 1));
+		Assert.assertNull(CatalogSnapshot.read(new File(mFile.getPath()
+				+ ".missing"), STAMP));
+	}
+
+	/**
+	 * testDamaged
+	 * A snapshot with a changed or missing byte should not be read
+	 */
+	public void testDamaged() throws Exception {
+		RandomAccessFile raf = new RandomAccessFile(mFile, "rw");
+		try {
+			long middle = raf.length() / 2;
+			raf.seek(middle);
+			int value = raf.read();
+			raf.seek(middle);
+			raf.write(value ^ 1);
+			Assert.assertNull(CatalogSnapshot.read(mFile, STAMP));
+
+			raf.seek(middle);
+			raf.write(value);
+			Assert.assertNotNull(CatalogSnapshot.read(mFile, STAMP));
+
+			raf.setLength(raf.length() - 1);
+			Assert.assertNull(CatalogSnapshot.read(mFile, STAMP));
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void assertSameValues(RelationIndex expected,
+			RelationIndex actual, int id) {
+		Assert.assertTrue(Arrays.equals(expected.getValues(id),
+				actual.getValues(id)));
+	}
+
+	/**
+	 * testDetailsBeforeOpen
+	 * Details of a company read from a snapshot should fail at once, not
+	 * wait, while no database is attached
+	 */
+	public void testDetailsBeforeOpen() {
+		CompanyLoader loaded = CatalogSnapshot.read(mFile, STAMP);
+		Company company = loaded.getCompanies().get(0);
+		Assert.assertFalse(company.hasDetails());
+		try {
+			company.getDetails();
+			Assert.fail("Read details without a database");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+	}
+}
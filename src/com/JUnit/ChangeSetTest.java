@@ -0,0 +1,292 @@
+package com.JUnit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SignatureException;
+
+import com.database.ChangeSet;
+import com.database.Company;
+import com.database.CompanyCatalog;
+import com.database.DbAccess;
+import com.database.ExternalDbOpenHelper;
+
+import junit.framework.Assert;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * ChangeSetTest
+ * Contains JUnit test cases to test the ChangeSet class, with change-sets
+ * saved to and read from local files
+ */
+public class ChangeSetTest extends AndroidTestCase {
+
+	private static final KeyPair PUBLISHER = generateKeys();
+	// Far above the ids of the bundled rows
+	private static final int NEW_ID = 900001;
+
+	SQLiteDatabase database;
+	// The installed database, only copied so the tests never change it
+	private SQLiteDatabase mInstalled;
+	private File mCopy;
+
+	/**
+	 * setUp
+	 * Opens a temporary copy of the database, for the change-sets to change
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		mInstalled = helper.openDataBase();
+		mCopy = File.createTempFile("careerFairDB", ".db");
+		copy(new File(mInstalled.getPath()), mCopy);
+		database = SQLiteDatabase.openDatabase(mCopy.getPath(), null,
+				SQLiteDatabase.OPEN_READWRITE);
+		CompanyCatalog.reload(database);
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Deletes the copy and loads the companies from the installed database
+	 * again
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		database.close();
+		CompanyCatalog.reload(mInstalled);
+		mCopy.delete();
+		new File(mCopy.getPath() + "-journal").delete();
+		super.tearDown();
+	}
+
+	/**
+	 * testApply
+	 * A change-set should move a booth and add a company, and one made from
+	 * the new version should undo it
+	 */
+	public void testApply() throws Exception {
+		Company amazon = DbAccess.getCompanyNamed("Amazon", database);
+		String table = amazon.getTableNum();
+		int location = locationOf(amazon);
+		int version = ChangeSet.getVersion(database);
+
+		ChangeSet changes = readBack(sign("{\"from\": " + version
+				+ ", \"to\": " + (version + 1) + ", \"changes\": ["
+				+ "{\"table\": \"location\", \"op\": \"update\", \"id\": "
+				+ location + ", \"values\": {\"tableNum\": 250}},"
+				+ "{\"table\": \"company\", \"op\": \"insert\", \"id\": "
+				+ NEW_ID + ", \"values\": {\"name\": \"Zyzzyva Robotics\","
+				+ " \"website\": null}},"
+				+ "{\"table\": \"location\", \"op\": \"insert\", \"id\": "
+				+ NEW_ID + ", \"values\": {\"roomID\": 9, \"tableNum\": 251}},"
+				+ "{\"table\": \"companyToLocation\", \"op\": \"insert\", \"id\": "
+				+ NEW_ID + ", \"values\": {\"companyID\": " + NEW_ID
+				+ ", \"locationID\": " + NEW_ID + "}}]}"));
+		Assert.assertEquals(4, changes.size());
+		Assert.assertTrue(DbAccess.applyChangeSet(changes, database));
+		Assert.assertEquals(version + 1, ChangeSet.getVersion(database));
+		Assert.assertEquals("Amazon", DbAccess.getBooths("Wood", database)
+				.getCompany(250).getName());
+		Assert.assertEquals("Zyzzyva Robotics",
+				DbAccess.getBooths("Wood", database).getCompany(251).getName());
+		Assert.assertEquals(1,
+				DbAccess.searchAllCompanies("zyzz", database).size());
+
+		// Already applied
+		Assert.assertFalse(DbAccess.applyChangeSet(changes, database));
+
+		ChangeSet undo = readBack(sign("{\"from\": " + (version + 1)
+				+ ", \"to\": " + (version + 2) + ", \"changes\": ["
+				+ "{\"table\": \"location\", \"op\": \"update\", \"id\": "
+				+ location + ", \"values\": {\"tableNum\": " + table + "}},"
+				+ "{\"table\": \"companyToLocation\", \"op\": \"delete\", \"id\": "
+				+ NEW_ID + "},"
+				+ "{\"table\": \"location\", \"op\": \"delete\", \"id\": "
+				+ NEW_ID + "},"
+				+ "{\"table\": \"company\", \"op\": \"delete\", \"id\": "
+				+ NEW_ID + "}]}"));
+		Assert.assertTrue(DbAccess.applyChangeSet(undo, database));
+		Assert.assertEquals("Amazon", DbAccess.getBooths("Wood", database)
+				.getCompany(table).getName());
+		Assert.assertNull(DbAccess.getBooths("Wood", database).getCompany(251));
+		Assert.assertNull(DbAccess.getCompanyNamed("Zyzzyva Robotics",
+				database));
+	}
+
+	/**
+	 * testRollback
+	 * A change that fails should leave the earlier changes and the version
+	 * as they were
+	 */
+	public void testRollback() throws Exception {
+		Company amazon = DbAccess.getCompanyNamed("Amazon", database);
+		int location = locationOf(amazon);
+		int version = ChangeSet.getVersion(database);
+
+		ChangeSet changes = readBack(sign("{\"from\": " + version
+				+ ", \"to\": " + (version + 1) + ", \"changes\": ["
+				+ "{\"table\": \"location\", \"op\": \"update\", \"id\": "
+				+ location + ", \"values\": {\"tableNum\": 250}},"
+				+ "{\"table\": \"location\", \"op\": \"update\", \"id\": "
+				+ location + ", \"values\": {\"noSuchColumn\": 1}}]}"));
+		try {
+			changes.apply(database);
+			Assert.fail("Applied a change to an unknown column");
+		} catch (SQLException e) {
+			// Expected
+		}
+		Assert.assertEquals(version, ChangeSet.getVersion(database));
+		Assert.assertEquals(amazon.getTableNum(), tableNumOf(location));
+	}
+
+	/**
+	 * testSignature
+	 * Change-sets signed with another key, or changed after signing, should
+	 * not be read
+	 */
+	public void testSignature() throws Exception {
+		String payload = "{\"from\": 0, \"to\": 1, \"changes\": []}";
+		File file = sign(payload);
+		Assert.assertEquals(0, readBack(file).size());
+
+		// One byte of the payload flipped
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.seek(raf.length() - 3);
+		int b = raf.read();
+		raf.seek(raf.length() - 3);
+		raf.write(b ^ 1);
+		raf.close();
+		try {
+			readBack(file);
+			Assert.fail("Read a tampered change-set");
+		} catch (SignatureException e) {
+			// Expected
+		}
+
+		File other = File.createTempFile("changes", ".changeset");
+		FileOutputStream out = new FileOutputStream(other);
+		ChangeSet.write(out, payload.getBytes("UTF-8"), generateKeys()
+				.getPrivate());
+		out.close();
+		try {
+			readBack(other);
+			Assert.fail("Read a change-set signed with another key");
+		} catch (SignatureException e) {
+			// Expected
+		}
+		other.delete();
+	}
+
+	/**
+	 * testMalformed
+	 * Signed change-sets that change a derived table or a column name that
+	 * is not a plain identifier should be rejected before they are applied
+	 */
+	public void testMalformed() throws Exception {
+		String[] payloads = {
+				"{\"from\": 0, \"to\": 1, \"changes\": [{\"table\": \"companyDirectory\", \"op\": \"delete\", \"id\": 1}]}",
+				"{\"from\": 0, \"to\": 1, \"changes\": [{\"table\": \"company\", \"op\": \"update\", \"id\": 1, \"values\": {\"name\\\" = 'x' --\": 1}}]}",
+				"{\"from\": 0, \"to\": 1, \"changes\": [{\"table\": \"company\", \"op\": \"replace\", \"id\": 1, \"values\": {\"name\": \"x\"}}]}",
+				"{\"from\": 1, \"to\": 1, \"changes\": []}",
+				"{\"from\": 0, \"to\": 1, \"changes\": [" };
+		for (String payload : payloads) {
+			try {
+				readBack(sign(payload));
+				Assert.fail("Read " + payload);
+			} catch (IOException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * Signs a payload with the publisher's key into a new file
+	 */
+	private static File sign(String payload) throws IOException,
+			GeneralSecurityException {
+		File file = File.createTempFile("changes", ".changeset");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			ChangeSet.write(out, payload.getBytes("UTF-8"),
+					PUBLISHER.getPrivate());
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Reads a change-set file with the publisher's public key, as the app
+	 * would decode it
+	 */
+	private static ChangeSet readBack(File file) throws IOException,
+			GeneralSecurityException {
+		FileInputStream in = new FileInputStream(file);
+		try {
+			return ChangeSet.read(in, ChangeSet.publicKey(PUBLISHER
+					.getPublic().getEncoded()));
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void copy(File from, File to) throws IOException {
+		FileInputStream in = new FileInputStream(from);
+		try {
+			FileOutputStream out = new FileOutputStream(to);
+			try {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					out.write(buffer, 0, read);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private int locationOf(Company company) {
+		Cursor cursor = database.rawQuery(
+				"SELECT locationID FROM companyToLocation WHERE companyID = ?;",
+				new String[] { String.valueOf(company.getId()) });
+		cursor.moveToFirst();
+		int location = cursor.getInt(0);
+		cursor.close();
+		return location;
+	}
+
+	private String tableNumOf(int location) {
+		Cursor cursor = database.rawQuery(
+				"SELECT tableNum FROM location WHERE _id = ?;",
+				new String[] { String.valueOf(location) });
+		cursor.moveToFirst();
+		String table = cursor.getString(0);
+		cursor.close();
+		return table;
+	}
+
+	private static KeyPair generateKeys() {
+		try {
+			KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+			generator.initialize(2048);
+			return generator.generateKeyPair();
+		} catch (GeneralSecurityException e) {
+			throw new AssertionError(e);
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.JUnit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.database.Company;
+import com.database.CompanyCatalog;
+import com.database.CompanyDetails;
+import com.database.CompanyDetailsCache;
+import com.database.ExternalDbOpenHelper;
+import com.database.Major;
+
+import junit.framework.Assert;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * CompanyDetailsCacheTest
+ * Contains JUnit test cases to test the CompanyDetailsCache class
+ */
+public class CompanyDetailsCacheTest extends AndroidTestCase {
+
+	SQLiteDatabase database;
+
+	/**
+	 * setUp
+	 * Opens the database
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		database = helper.openDataBase();
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testLoadOnDemand
+	 * A company's details should be read the first time they are asked for,
+	 * and be the same for every row of the company
+	 */
+	public void testLoadOnDemand() {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		List<Company> companies = catalog.getCompanies();
+		Company company = companies.get(companies.size() - 1);
+		CompanyDetails details = company.getDetails();
+
+		Assert.assertTrue(catalog.getDetailsCache().isCached(company.getId()));
+		Assert.assertSame(details, company.getDetails());
+		Assert.assertEquals(details.getMajorNames(), company.getMajorNames());
+		for (int id : catalog.getIdsForCompany(company.getId())) {
+			Assert.assertSame(details, catalog.getCompany(id).getDetails());
+		}
+	}
+
+	/**
+	 * testPrefetch
+	 * Prefetched companies should be kept, and the details should agree with
+	 * the ones loaded one at a time
+	 */
+	public void testPrefetch() {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		CompanyDetailsCache cache = catalog.getDetailsCache();
+		List<Company> neighbours = catalog.getCompanies().subList(10, 21);
+		cache.prefetch(neighbours);
+
+		for (Company company : neighbours) {
+			Assert.assertTrue(cache.isCached(company.getId()));
+		}
+		Company company = neighbours.get(5);
+		CompanyDetails batched = company.getDetails();
+		cache.prefetch(catalog.getCompanies().subList(100,
+				100 + CompanyDetailsCache.CAPACITY + 2));
+		Assert.assertFalse(cache.isCached(company.getId()));
+		CompanyDetails single = company.getDetails();
+		Assert.assertNotSame(batched, single);
+		Assert.assertEquals(batched.getMajorAbbrevs(), single.getMajorAbbrevs());
+		Assert.assertEquals(batched.getPositions(), single.getPositions());
+		Assert.assertEquals(batched.getWorkAuths(), single.getWorkAuths());
+	}
+
+	/**
+	 * testInterned
+	 * Loaded details should share the catalog's Major and type instances
+	 */
+	public void testInterned() {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		List<Major> allMajors = catalog.getMajors(false);
+		List<String> allPositions = catalog.getPositions();
+		for (Company company : catalog.getCompanies().subList(0, 20)) {
+			for (Major major : company.getMajors()) {
+				Assert.assertSame(major,
+						allMajors.get(allMajors.indexOf(major)));
+			}
+			for (String position : company.getPositions()) {
+				Assert.assertSame(position,
+						allPositions.get(allPositions.indexOf(position)));
+			}
+		}
+	}
+
+	/**
+	 * testLargeBatch
+	 * More companies than fit in one query should all be loaded
+	 */
+	public void testLargeBatch() {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		CompanyDetailsCache cache = catalog.getDetailsCache();
+		List<Company> companies = new ArrayList<Company>(catalog
+				.getCompanies().subList(0, CompanyDetailsCache.MAX_BATCH + 1));
+		cache.prefetch(companies);
+		Company last = companies.get(companies.size() - 1);
+		Assert.assertTrue(cache.isCached(last.getId()));
+	}
+
+	/**
+	 * testBatchSize
+	 * Batches should be padded to a few sizes so each relation has few plans
+	 */
+	public void testBatchSize() {
+		Assert.assertEquals(1, CompanyDetailsCache.batchSize(1));
+		Assert.assertEquals(8, CompanyDetailsCache.batchSize(2));
+		Assert.assertEquals(8, CompanyDetailsCache.batchSize(8));
+		Assert.assertEquals(32, CompanyDetailsCache.batchSize(9));
+		Assert.assertEquals(CompanyDetailsCache.MAX_BATCH,
+				CompanyDetailsCache.batchSize(33));
+		Assert.assertEquals(CompanyDetailsCache.MAX_BATCH,
+				CompanyDetailsCache.batchSize(CompanyDetailsCache.MAX_BATCH));
+	}
+}
@@ -0,0 +1,147 @@
+package com.JUnit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import com.database.Company;
+import com.database.CompanyPager;
+import com.database.FilterEngine;
+import com.database.Major;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * CompanyPagerTest
+ * Contains JUnit test cases to test the CompanyPager class
+ */
+public class CompanyPagerTest extends TestCase {
+
+	private static final int COMPANIES = 3 * CompanyPager.PAGE_SIZE
+			* CompanyPager.MAX_PAGES;
+
+	private FilterEngine mEngine;
+	private BitSet mIds;
+	private ArrayList<String> mExpected;
+
+	/**
+	 * setUp
+	 * Builds an engine with many more companies than fit in the kept pages,
+	 * and a set of every third one
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ArrayList<Company> companies = new ArrayList<Company>();
+		mIds = new BitSet();
+		mExpected = new ArrayList<String>();
+		for (int i = 0; i < COMPANIES; i++) {
+			String name = (char) ('A' + i * 26 / COMPANIES) + " Company " + i;
+			companies.add(new Company(name, "", "1", "Wood",
+					new ArrayList<Major>(), new ArrayList<String>(),
+					new ArrayList<String>()));
+			if (i % 3 == 0) {
+				mIds.set(i);
+				mExpected.add(name);
+			}
+		}
+		mEngine = new FilterEngine(companies);
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testSequentialAccess
+	 * Reading every position in order should list the set in id order
+	 */
+	public void testSequentialAccess() {
+		CompanyPager pager = new CompanyPager(mEngine, mIds);
+		Assert.assertEquals(mExpected.size(), pager.size());
+		for (int i = 0; i < pager.size(); i++) {
+			Assert.assertEquals(mExpected.get(i), pager.getName(i));
+		}
+		Assert.assertTrue(pager.getCachedPages() <= CompanyPager.MAX_PAGES);
+	}
+
+	/**
+	 * testRandomAccess
+	 * Jumping around, including back to evicted pages, should give the same
+	 * companies as reading in order
+	 */
+	public void testRandomAccess() {
+		CompanyPager pager = new CompanyPager(mEngine, mIds);
+		int last = pager.size() - 1;
+		Assert.assertEquals(mExpected.get(last), pager.getName(last));
+		Assert.assertEquals(mExpected.get(0), pager.getName(0));
+		for (int i = last; i >= 0; i -= 7) {
+			Assert.assertEquals(mExpected.get(i), pager.getName(i));
+		}
+		Assert.assertEquals(3 * (last / 2), pager.getId(last / 2));
+		Assert.assertTrue(pager.getCachedPages() <= CompanyPager.MAX_PAGES);
+	}
+
+	/**
+	 * testOutOfRange
+	 * Positions outside the set should be rejected
+	 */
+	public void testOutOfRange() {
+		CompanyPager pager = new CompanyPager(mEngine, mIds);
+		try {
+			pager.getCompany(pager.size());
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		Assert.assertEquals(0, new CompanyPager(mEngine, new BitSet()).size());
+	}
+
+	/**
+	 * testInitials
+	 * The alphabet index should list each first letter once and point at
+	 * the first company with it
+	 */
+	public void testInitials() {
+		CompanyPager pager = new CompanyPager(mEngine, mIds);
+		ArrayList<String> initials = pager.getInitials();
+		Assert.assertEquals("A", initials.get(0));
+		for (String initial : initials) {
+			int position = pager.getPositionForInitial(initial);
+			Assert.assertTrue(mExpected.get(position).startsWith(initial));
+			if (position > 0) {
+				Assert.assertFalse(mExpected.get(position - 1).startsWith(
+						initial));
+			}
+		}
+		Assert.assertEquals(-1, pager.getPositionForInitial("#"));
+	}
+
+	/**
+	 * testOrderedIds
+	 * A pager over an array should list the ids in the array's order
+	 */
+	public void testOrderedIds() {
+		int[] order = { 7, 2, COMPANIES - 1, 0 };
+		CompanyPager pager = new CompanyPager(mEngine, order);
+		Assert.assertEquals(order.length, pager.size());
+		for (int i = 0; i < order.length; i++) {
+			Assert.assertEquals(order[i], pager.getId(i));
+			Assert.assertSame(mEngine.getCompany(order[i]), pager.getCompany(i));
+		}
+		Assert.assertEquals(0, pager.getPositionForInitial("A"));
+		Assert.assertEquals(2, pager.getPositionForInitial("Z"));
+		try {
+			pager.getId(order.length);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
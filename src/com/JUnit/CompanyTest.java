@@ -1,6 +1,7 @@
 package com.JUnit;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import com.database.Company;
 import com.database.Major;
@@ -73,14 +74,18 @@ public class CompanyTest extends TestCase {
 	 * Tests the getMajors method
 	 */
 	public void testGetMajors() {
-		ArrayList<Major> majorList = mTest.getMajors();
+		List<Major> majorList = mTest.getMajors();
 		
 		//Make sure something is returned
 		Assert.assertNotNull(majorList);
 
-		// getMajors should return a copy of the ArrayList, not the same
-		// arrayList
-		Assert.assertTrue(majorList.toString() != mMajors.toString());
+		// getMajors should return a read only view
+		try {
+			majorList.add(new Major("Other", "OTH"));
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
 
 		// Check majors returned
 		Assert.assertTrue(majorList.size() == mMajors.size());
@@ -96,18 +101,22 @@ public class CompanyTest extends TestCase {
 	 * Tests the getPositions method
 	 */
 	public void testGetPositions() {
-		ArrayList<String> positions = mTest.getPositions();
+		List<String> positions = mTest.getPositions();
 		
 		//Make sure something is returned
 		Assert.assertNotNull(positions);
 
-		// getPositions should return a copy of the ArrayList, not the same
-		// arrayList
-		Assert.assertTrue(positions.toString() != mPositions.toString());
+		// getPositions should return a read only view
+		try {
+			positions.set(0, "Co-op");
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
 
 		// Check positions returned
 		Assert.assertTrue(positions.size() == mPositions.size());
-		Assert.assertTrue(positions.get(0) == mPositions.get(0));
+		Assert.assertEquals(mPositions.get(0), positions.get(0));
 	}
 
 	/**
@@ -116,18 +125,22 @@ public class CompanyTest extends TestCase {
 	 */
 	public void testGetWorkAuth() {
 
-		ArrayList<String> workAuth = mTest.getWorkAuth();
+		List<String> workAuth = mTest.getWorkAuth();
 		
 		//Make sure something is returned
 		Assert.assertNotNull(workAuth);
 
-		// getWorkAuth should return a copy of the ArrayList, not the same
-		// arrayList
-		Assert.assertTrue(workAuth.toString() != mWorkAuths.toString());
+		// getWorkAuth should return a read only view
+		try {
+			workAuth.clear();
+			Assert.fail();
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
 
 		// Check workAuths
 		Assert.assertTrue(workAuth.size() == mWorkAuths.size());
-		Assert.assertTrue(workAuth.get(0) == mWorkAuths.get(0));
+		Assert.assertEquals(mWorkAuths.get(0), workAuth.get(0));
 	}
 
 	/**
@@ -0,0 +1,202 @@
+package com.JUnit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import com.database.DatabaseInstaller;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * DatabaseInstallerTest
+ * Contains JUnit test cases to test the DatabaseInstaller class
+ */
+public class DatabaseInstallerTest extends TestCase {
+
+	private File mDir;
+	private File mDatabase;
+
+	/**
+	 * Serves fixed bytes and counts how often it is opened
+	 */
+	private static final class TestAsset implements DatabaseInstaller.Asset {
+		final byte[] bytes;
+		int opened = 0;
+
+		TestAsset(int size, int seed) {
+			bytes = new byte[size];
+			for (int i = 0; i < size; i++) {
+				bytes[i] = (byte) (i * 31 + seed);
+			}
+		}
+
+		@Override
+		public InputStream open() {
+			opened++;
+			return new ByteArrayInputStream(bytes);
+		}
+	}
+
+	/**
+	 * setUp
+	 * Creates an empty databases folder
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		mDir = File.createTempFile("databases", "");
+		mDir.delete();
+		mDatabase = new File(mDir, "careerFairDB.db");
+	}
+
+	/**
+	 * tearDown
+	 * Deletes the databases folder
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = mDir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		mDir.delete();
+	}
+
+	/**
+	 * testInstall
+	 * The first launch should copy the asset, later launches of the same APK
+	 * should not read it again
+	 */
+	public void testInstall() throws IOException {
+		TestAsset asset = new TestAsset(200 * 1024 + 7, 1);
+		Assert.assertFalse(DatabaseInstaller.isCurrent(mDatabase, 1));
+		Assert.assertTrue(DatabaseInstaller.install(asset, mDatabase, 1));
+		Assert.assertTrue(Arrays.equals(asset.bytes, read(mDatabase)));
+		Assert.assertTrue(DatabaseInstaller.isCurrent(mDatabase, 1));
+
+		Assert.assertFalse(DatabaseInstaller.install(asset, mDatabase, 1));
+		Assert.assertEquals(1, asset.opened);
+		Assert.assertFalse(new File(mDatabase.getPath() + ".tmp").exists());
+	}
+
+	/**
+	 * testUpdate
+	 * An update with the same asset should keep the installed database, one
+	 * with a new asset should replace it and its journal
+	 */
+	public void testUpdate() throws IOException {
+		TestAsset asset = new TestAsset(1000, 1);
+		DatabaseInstaller.install(asset, mDatabase, 1);
+		// Stands in for the migrations run on the installed database
+		append(mDatabase, 42);
+
+		Assert.assertFalse(DatabaseInstaller.isCurrent(mDatabase, 2));
+		Assert.assertFalse(DatabaseInstaller.install(asset, mDatabase, 2));
+		Assert.assertEquals(asset.bytes.length + 1, mDatabase.length());
+		Assert.assertTrue(DatabaseInstaller.isCurrent(mDatabase, 2));
+
+		TestAsset changed = new TestAsset(1000, 2);
+		File journal = new File(mDatabase.getPath() + "-journal");
+		journal.createNewFile();
+		Assert.assertTrue(DatabaseInstaller.install(changed, mDatabase, 3));
+		Assert.assertTrue(Arrays.equals(changed.bytes, read(mDatabase)));
+		Assert.assertFalse(journal.exists());
+		Assert.assertTrue(DatabaseInstaller.isCurrent(mDatabase, 3));
+	}
+
+	/**
+	 * testMissing
+	 * A deleted database or a damaged stamp should be installed again
+	 */
+	public void testMissing() throws IOException {
+		TestAsset asset = new TestAsset(1000, 1);
+		DatabaseInstaller.install(asset, mDatabase, 1);
+		mDatabase.delete();
+		Assert.assertFalse(DatabaseInstaller.isCurrent(mDatabase, 1));
+		Assert.assertTrue(DatabaseInstaller.install(asset, mDatabase, 1));
+
+		RandomAccessFile stamp = new RandomAccessFile(mDatabase.getPath()
+				+ ".stamp", "rw");
+		stamp.setLength(6);
+		stamp.close();
+		Assert.assertFalse(DatabaseInstaller.isCurrent(mDatabase, 1));
+		Assert.assertTrue(DatabaseInstaller.install(asset, mDatabase, 1));
+		Assert.assertTrue(DatabaseInstaller.isCurrent(mDatabase, 1));
+	}
+
+	/**
+	 * testGzipped
+	 * A gzipped asset should be installed inflated, and an unchanged
+	 * database should be kept whether it was bundled gzipped or not
+	 */
+	public void testGzipped() throws IOException {
+		TestAsset asset = new TestAsset(300 * 1024, 1);
+		DatabaseInstaller.install(asset, mDatabase, 1);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPOutputStream out = new GZIPOutputStream(bytes);
+		out.write(asset.bytes);
+		out.close();
+		final byte[] compressed = bytes.toByteArray();
+		Assert.assertTrue(compressed.length < asset.bytes.length);
+		DatabaseInstaller.Asset gzipped = DatabaseInstaller
+				.gzipped(new DatabaseInstaller.Asset() {
+					@Override
+					public InputStream open() {
+						return new ByteArrayInputStream(compressed);
+					}
+				});
+		Assert.assertFalse(DatabaseInstaller.install(gzipped, mDatabase, 2));
+
+		mDatabase.delete();
+		Assert.assertTrue(DatabaseInstaller.install(gzipped, mDatabase, 2));
+		Assert.assertTrue(Arrays.equals(asset.bytes, read(mDatabase)));
+
+		// A truncated asset should not replace the database
+		new File(mDatabase.getPath() + ".stamp").delete();
+		final byte[] truncated = Arrays.copyOf(compressed,
+				compressed.length / 2);
+		try {
+			DatabaseInstaller.install(DatabaseInstaller
+					.gzipped(new DatabaseInstaller.Asset() {
+						@Override
+						public InputStream open() {
+							return new ByteArrayInputStream(truncated);
+						}
+					}), mDatabase, 3);
+			Assert.fail("Installed a truncated asset");
+		} catch (IOException e) {
+			Assert.assertTrue(Arrays.equals(asset.bytes, read(mDatabase)));
+			Assert.assertFalse(new File(mDatabase.getPath() + ".tmp").exists());
+		}
+	}
+
+	private static byte[] read(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			byte[] bytes = new byte[(int) in.length()];
+			in.readFully(bytes);
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void append(File file, int b) throws IOException {
+		FileOutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(b);
+		} finally {
+			out.close();
+		}
+	}
+}
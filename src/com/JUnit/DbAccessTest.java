@@ -1,11 +1,32 @@
 package com.JUnit;
 
 import java.util.ArrayList;
-
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.database.BoothIndex;
 import com.database.Company;
+import com.database.CompanyCatalog;
+import com.database.CompanyPager;
+import com.database.CompanyRanker;
 import com.database.DbAccess;
+import com.database.FacetCounts;
 import com.database.ExternalDbOpenHelper;
+import com.database.FilterEngine;
+import com.database.FilterResult;
 import com.database.Major;
+import com.database.MajorRegistry;
+import com.database.RankedResult;
+import com.database.RelationIndex;
+import com.database.SearchResult;
+import com.database.StringTable;
 import com.fragments.MainActivity;
 
 import junit.framework.Assert;
@@ -61,16 +82,22 @@ public class DbAccessTest extends AndroidTestCase {
 	}
 
 	/**
-	 * getFilteredNames
-	 * Tests getFilteredNames method
+	 * testGetFilteredNames
+	 * Tests the names and blank split of a FilterResult
 	 */
 	public void testGetFilteredNames() {
-		testGetCompaniesWith();
-		ArrayList<String> filteredNames = DbAccess.getFilteredNames(database);
+		ArrayList<String> majors = new ArrayList<String>();
+		majors.add("SCS");
+		FilterResult result = DbAccess.getCompaniesWith("", majors,
+				new ArrayList<String>(), new ArrayList<String>(), database);
 
 		//Make sure something was returned
-		Assert.assertNotNull(filteredNames);
-
+		Assert.assertNotNull(result.getNames());
+		Assert.assertEquals(result.size(), result.getNames().size());
+		Assert.assertEquals(result.size(), result.getSeparatedNames(false)
+				.size() + result.getSeparatedNames(true).size());
+		Assert.assertTrue(result.containsName(result.getNames().get(0)));
+		Assert.assertFalse(result.containsName("No Such Company"));
 	}
 
 	/**
@@ -97,17 +124,153 @@ public class DbAccessTest extends AndroidTestCase {
 		Assert.assertNotNull(companies);
 	}
 
+	/**
+	 * testGetCompanyNamed
+	 * Tests getCompanyNamed returns the same object the catalog lists
+	 */
+	public void testGetCompanyNamed() {
+		ArrayList<Company> companies = DbAccess.getAllCompanies(database);
+		Company first = companies.get(0);
+
+		Assert.assertSame(first,
+				DbAccess.getCompanyNamed(first.getName(), database));
+		Assert.assertNull(DbAccess.getCompanyNamed("No Such Company", database));
+	}
+
+	/**
+	 * testSearchAllCompanies
+	 * Tests searchAllCompanies ignores case
+	 */
+	public void testSearchAllCompanies() {
+		SearchResult lower = DbAccess.searchAllCompanies("tech", database);
+		SearchResult upper = DbAccess.searchAllCompanies("TECH", database);
+
+		Assert.assertNotNull(lower);
+		Assert.assertEquals(lower.getCompanies(), upper.getCompanies());
+		Assert.assertEquals(lower.size(), lower.getNames().size());
+	}
+
 	/**
 	 * testGetCompaniesWith
 	 * Tests getCompaniesWith
 	 */
 	public void testGetCompaniesWith() {
-		ArrayList<Company> companies = DbAccess.getCompaniesWith("",
+		FilterResult companies = DbAccess.getCompaniesWith("",
 				new ArrayList<String>(), new ArrayList<String>(),
 				new ArrayList<String>(), database);
 
 		//Make sure something was returned
 		Assert.assertNotNull(companies);
+		Assert.assertEquals(DbAccess.getAllCompanies(database),
+				companies.getCompanies());
+	}
+
+	/**
+	 * testFilterResultPagers
+	 * The pagers of a filter result should list the same companies as its
+	 * lists
+	 */
+	public void testFilterResultPagers() {
+		ArrayList<String> positions = new ArrayList<String>();
+		positions.add(DbAccess.getAllPositions(database).get(0));
+		FilterResult result = DbAccess.getCompaniesWith("",
+				new ArrayList<String>(), new ArrayList<String>(), positions,
+				database);
+
+		assertPagerEquals(result.getCompanies(), result.getPager());
+		assertPagerEquals(result.getSeparated(false),
+				result.getSeparatedPager(false));
+		assertPagerEquals(result.getSeparated(true),
+				result.getSeparatedPager(true));
+		Assert.assertEquals(result.size(), result.separatedSize(false)
+				+ result.separatedSize(true));
+
+		// The separated lists are the two ranges of the partitioned one
+		List<Company> partitioned = result.getPartitioned();
+		int matchCount = result.getMatchCount();
+		Assert.assertEquals(result.separatedSize(false), matchCount);
+		Assert.assertEquals(result.getSeparated(false),
+				partitioned.subList(0, matchCount));
+		Assert.assertEquals(result.getSeparated(true),
+				partitioned.subList(matchCount, partitioned.size()));
+	}
+
+	private static void assertPagerEquals(List<Company> expected,
+			CompanyPager pager) {
+		Assert.assertEquals(expected.size(), pager.size());
+		for (int i = 0; i < pager.size(); i++) {
+			Assert.assertSame(expected.get(i), pager.getCompany(i));
+		}
+	}
+
+	/**
+	 * testSearchAllCompaniesRanked
+	 * Tests word prefix matching and that names starting with the search
+	 * come first
+	 */
+	public void testSearchAllCompaniesRanked() {
+		List<Company> companies = DbAccess.searchAllCompanies("mich tech",
+				database).getCompanies();
+		Assert.assertFalse(companies.isEmpty());
+		for (Company company : companies) {
+			String name = company.getName().toLowerCase();
+			Assert.assertTrue(name.contains("mich") && name.contains("tech"));
+		}
+
+		companies = DbAccess.searchAllCompanies("ge", database).getCompanies();
+		Assert.assertTrue(companies.get(0).getName().toLowerCase()
+				.startsWith("ge"));
+		Assert.assertEquals(DbAccess.getAllCompanies(database).size(), DbAccess
+				.searchAllCompanies("", database).size());
+		Assert.assertEquals(0, DbAccess.searchAllCompanies("%", database).size());
+	}
+
+	/**
+	 * testConcurrentQueries
+	 * Filters and searches run at the same time from a thread pool should
+	 * each get the same result as when run alone
+	 */
+	public void testConcurrentQueries() throws Exception {
+		final ArrayList<ArrayList<String>> majors = new ArrayList<ArrayList<String>>();
+		for (String major : new String[] { "SCS", "EEE", "ME", "MSE" }) {
+			ArrayList<String> list = new ArrayList<String>();
+			list.add(major);
+			majors.add(list);
+		}
+		final ArrayList<String> none = new ArrayList<String>();
+		final String[] searches = { "tech", "inc", "ge", "mich tech" };
+
+		final ArrayList<List<String>> expected = new ArrayList<List<String>>();
+		for (int i = 0; i < majors.size(); i++) {
+			expected.add(DbAccess.getCompaniesWith("", majors.get(i), none,
+					none, database).getSeparatedNames(false));
+			expected.add(DbAccess.searchAllCompanies(searches[i], database)
+					.getNames());
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		ArrayList<Future<Boolean>> checks = new ArrayList<Future<Boolean>>();
+		for (int task = 0; task < 400; task++) {
+			final int i = task % expected.size();
+			checks.add(pool.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					if (i % 2 == 0) {
+						return expected.get(i).equals(
+								DbAccess.getCompaniesWith("", majors.get(i / 2),
+										none, none, database)
+										.getSeparatedNames(false));
+					}
+					return expected.get(i).equals(
+							DbAccess.searchAllCompanies(searches[i / 2],
+									database).getNames());
+				}
+			}));
+		}
+		pool.shutdown();
+		for (Future<Boolean> check : checks) {
+			Assert.assertTrue(check.get());
+		}
 	}
 
 	/**
@@ -134,6 +297,243 @@ public class DbAccessTest extends AndroidTestCase {
 
 	}
 
+	/**
+	 * testGetRelationsForCompanies
+	 * The batch lookups should agree with each company's details, across
+	 * more companies than fit in one query
+	 */
+	public void testGetRelationsForCompanies() {
+		ArrayList<Company> companies = DbAccess.getAllCompanies(database);
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		for (Company company : companies) {
+			ids.add(company.getId());
+		}
+		ids.add(-1);
+
+		Map<Integer, ArrayList<Major>> majors = DbAccess.getMajorsForCompanies(
+				ids, database);
+		Map<Integer, ArrayList<String>> positions = DbAccess
+				.getPositionsForCompanies(ids, database);
+		Map<Integer, ArrayList<String>> workAuths = DbAccess
+				.getWorkAuthsForCompanies(ids, database);
+		for (Company company : companies) {
+			Assert.assertEquals(company.getMajors(), majors.get(company.getId()));
+			Assert.assertEquals(company.getPositions(),
+					positions.get(company.getId()));
+			Assert.assertEquals(company.getWorkAuth(),
+					workAuths.get(company.getId()));
+		}
+		Assert.assertTrue(majors.get(-1).isEmpty());
+
+		Company middle = companies.get(companies.size() / 2);
+		Assert.assertEquals(middle.getMajors(),
+				DbAccess.getMajorsForCompany(middle.getName(), database));
+	}
+
+	/**
+	 * testGetCompaniesLookingFor
+	 * The major index should give the same companies as their details
+	 */
+	public void testGetCompaniesLookingFor() {
+		ArrayList<Company> companies = DbAccess.getAllCompanies(database);
+		for (Major major : DbAccess.getAllMajors(database, false)) {
+			ArrayList<Company> expected = new ArrayList<Company>();
+			for (Company company : companies) {
+				if (company.getMajors().contains(major)) {
+					expected.add(company);
+				}
+			}
+			Assert.assertEquals(expected,
+					DbAccess.getCompaniesLookingFor(major, database));
+		}
+
+		// An unknown major finds no companies and is not registered
+		Major unknown = new Major("Never Offered", "NVOF");
+		int registered = MajorRegistry.size();
+		Assert.assertTrue(DbAccess.getCompaniesLookingFor(unknown, database)
+				.isEmpty());
+		Assert.assertEquals(registered, MajorRegistry.size());
+		Assert.assertEquals(-1, MajorRegistry.findId(unknown));
+	}
+
+	/**
+	 * testGetFacetCounts
+	 * Each count should be the size of the filter with that value as the only
+	 * one selected in its category, for a few selections
+	 */
+	public void testGetFacetCounts() {
+		ArrayList<String> majors = DbAccess.getAllMajorAbbrevs(database);
+		ArrayList<String> workAuths = DbAccess.getAllWorkAuths(database);
+		ArrayList<String> positions = DbAccess.getAllPositions(database);
+		ArrayList<String> none = new ArrayList<String>();
+
+		assertFacetCounts("", none, none, none);
+		assertFacetCounts("", majors.subList(0, 2), none, none);
+		assertFacetCounts("", none, workAuths.subList(1, 2),
+				positions.subList(1, 3));
+		assertFacetCounts("Wood", majors.subList(3, 4), none,
+				positions.subList(1, 2));
+	}
+
+	private void assertFacetCounts(String room, List<String> majors,
+			List<String> workAuths, List<String> positions) {
+		ArrayList<String> selectedMajors = new ArrayList<String>(majors);
+		ArrayList<String> selectedWorkAuths = new ArrayList<String>(workAuths);
+		ArrayList<String> selectedPositions = new ArrayList<String>(positions);
+		FacetCounts counts = DbAccess.getFacetCounts(room, selectedMajors,
+				selectedWorkAuths, selectedPositions, new ArrayList<String>(),
+				database);
+
+		Assert.assertEquals(
+				DbAccess.getCompaniesWith(room, selectedMajors,
+						selectedWorkAuths, selectedPositions, database)
+						.getCompanies().size(), counts.getTotal());
+		for (String major : DbAccess.getAllMajorAbbrevs(database)) {
+			Assert.assertEquals(major, DbAccess.getCompaniesWith(room,
+					new ArrayList<String>(Arrays.asList(major)),
+					selectedWorkAuths, selectedPositions, database)
+					.getCompanies().size(), counts.getMajorCount(major));
+		}
+		for (String workAuth : DbAccess.getAllWorkAuths(database)) {
+			Assert.assertEquals(workAuth, DbAccess.getCompaniesWith(room,
+					selectedMajors, new ArrayList<String>(Arrays
+							.asList(workAuth)), selectedPositions, database)
+					.getCompanies().size(), counts.getWorkAuthCount(workAuth));
+		}
+		for (String position : DbAccess.getAllPositions(database)) {
+			Assert.assertEquals(position, DbAccess.getCompaniesWith(room,
+					selectedMajors, selectedWorkAuths, new ArrayList<String>(
+							Arrays.asList(position)), database).getCompanies()
+					.size(), counts.getPositionCount(position));
+		}
+	}
+
+	/**
+	 * testRankCompanies
+	 * The ranking should agree with scoring every company from its details,
+	 * sorted by score and then by name
+	 */
+	public void testRankCompanies() {
+		// Skips the "ALL" major, whose companies already score as wildcards
+		ArrayList<String> majors = new ArrayList<String>(DbAccess
+				.getAllMajorAbbrevs(database).subList(1, 4));
+		ArrayList<String> workAuths = new ArrayList<String>(DbAccess
+				.getAllWorkAuths(database).subList(1, 2));
+		ArrayList<String> positions = new ArrayList<String>(DbAccess
+				.getAllPositions(database).subList(1, 3));
+		ArrayList<String> industries = DbAccess.getAllIndustries(database);
+		industries.remove(FilterEngine.BLANK);
+		industries = new ArrayList<String>(industries.subList(0,
+				Math.min(2, industries.size())));
+		ArrayList<String> unknown = new ArrayList<String>(
+				Arrays.asList("Not a value"));
+
+		// Companies with a wildcard match any value, even an unknown one
+		List<Company> anyMajor = DbAccess.getCompaniesWith("", unknown,
+				new ArrayList<String>(), new ArrayList<String>(), database)
+				.getCompanies();
+		List<Company> anyWorkAuth = DbAccess.getCompaniesWith("",
+				new ArrayList<String>(), unknown, new ArrayList<String>(),
+				database).getCompanies();
+		List<Company> anyPosition = DbAccess.getCompaniesWith("",
+				new ArrayList<String>(), new ArrayList<String>(), unknown,
+				database).getCompanies();
+		ArrayList<String> none = new ArrayList<String>();
+		List<Company> anyIndustry = DbAccess.getCompaniesWith("", none, none,
+				none, unknown, database).getCompanies();
+		RelationIndex industryIndex = CompanyCatalog.get(database)
+				.getIndustryIndex();
+
+		final ArrayList<Company> companies = DbAccess.getAllCompanies(database);
+		final int[] scores = new int[companies.size()];
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		for (int id = 0; id < companies.size(); id++) {
+			Company company = companies.get(id);
+			scores[id] = score(company.getMajorAbbrevs(), majors,
+					anyMajor.contains(company), CompanyRanker.MAJOR_WEIGHT)
+					+ score(company.getWorkAuth(), workAuths,
+							anyWorkAuth.contains(company),
+							CompanyRanker.WORK_AUTH_WEIGHT)
+					+ score(company.getPositions(), positions,
+							anyPosition.contains(company),
+							CompanyRanker.POSITION_WEIGHT)
+					+ score(industriesOf(industryIndex, id), industries,
+							anyIndustry.contains(company),
+							CompanyRanker.INDUSTRY_WEIGHT);
+			ids.add(id);
+		}
+		Collections.sort(ids, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer lhs, Integer rhs) {
+				if (scores[lhs] != scores[rhs]) {
+					return scores[rhs] - scores[lhs];
+				}
+				return lhs - rhs;
+			}
+		});
+
+		RankedResult ranked = DbAccess.rankCompanies("", majors, workAuths,
+				positions, industries, 25, database);
+		Assert.assertEquals(25, ranked.size());
+		Assert.assertTrue(ranked.getScore(0) > ranked.getScore(24));
+		for (int i = 0; i < ranked.size(); i++) {
+			Assert.assertSame(companies.get(ids.get(i)), ranked.getCompany(i));
+			Assert.assertEquals(scores[ids.get(i)], ranked.getScore(i));
+			Assert.assertSame(ranked.getCompany(i), ranked.getPager()
+					.getCompany(i));
+		}
+
+		Assert.assertEquals(companies.size(), DbAccess.rankCompanies("",
+				majors, workAuths, positions, industries, Integer.MAX_VALUE,
+				database).size());
+	}
+
+	private static List<String> industriesOf(RelationIndex industryIndex,
+			int id) {
+		ArrayList<String> tags = new ArrayList<String>();
+		for (int tag : industryIndex.getValues(id)) {
+			tags.add(StringTable.INDUSTRIES.get(tag));
+		}
+		return tags;
+	}
+
+	private static int score(List<String> values, List<String> selected,
+			boolean wildcard, int weight) {
+		if (selected.isEmpty()) {
+			return 0;
+		}
+		int score = wildcard ? weight : 0;
+		for (String value : selected) {
+			if (values.contains(value)) {
+				score += weight;
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * testGetBooths
+	 * Every company should be found at its table in its room, including the
+	 * Hall, whose table numbers start below zero
+	 */
+	public void testGetBooths() {
+		for (Company company : DbAccess.getAllCompanies(database)) {
+			BoothIndex.Room booths = DbAccess.getBooths(company.getRoom(),
+					database);
+			Company booth = booths.getCompany(company.getTableNum());
+			Assert.assertNotNull(booth);
+			Assert.assertEquals(company.getRoom(), booth.getRoom());
+			Assert.assertEquals(company.getTableNum(), booth.getTableNum());
+		}
+
+		Assert.assertTrue(DbAccess.getBooths("Hall", database).size() > 0);
+		Assert.assertEquals(DbAccess.getTableCompanyMap(true, database).size(),
+				DbAccess.getBooths("Wood", database).size());
+		Assert.assertNull(DbAccess.getBooths("Wood", database).getCompany(
+				"booth"));
+		Assert.assertEquals(0, DbAccess.getBooths("Attic", database).size());
+	}
+
 	/**
 	 * testGetAllMajors
 	 * Tests getAllMajors
@@ -209,4 +609,57 @@ public class DbAccessTest extends AndroidTestCase {
 		Assert.assertTrue(positions.size() == 4);
 	}
 
+	/**
+	 * testUntaggedIndustry
+	 * A company without an industry tag should match an industry filter as
+	 * an "Other Possible Match" and score the industry weight once
+	 */
+	public void testUntaggedIndustry() {
+		RelationIndex industryIndex = CompanyCatalog.get(database)
+				.getIndustryIndex();
+		ArrayList<Company> companies = DbAccess.getAllCompanies(database);
+		Company untagged = null;
+		for (int id = 0; id < companies.size() && untagged == null; id++) {
+			if (industryIndex.countValues(id) == 0) {
+				untagged = companies.get(id);
+			}
+		}
+		Assert.assertNotNull(untagged);
+
+		ArrayList<String> none = new ArrayList<String>();
+		ArrayList<String> industries = new ArrayList<String>(
+				Arrays.asList("Not an industry"));
+		FilterResult result = DbAccess.getCompaniesWith("", none, none, none,
+				industries, database);
+		Assert.assertTrue(result.getCompanies().contains(untagged));
+		Assert.assertTrue(result.getSeparated(true).contains(untagged));
+		Assert.assertFalse(result.getSeparated(false).contains(untagged));
+
+		RankedResult ranked = DbAccess.rankCompanies("", none, none, none,
+				industries, Integer.MAX_VALUE, database);
+		for (int i = 0; i < ranked.size(); i++) {
+			if (ranked.getCompany(i) == untagged) {
+				Assert.assertEquals(CompanyRanker.INDUSTRY_WEIGHT,
+						ranked.getScore(i));
+			}
+		}
+	}
+
+	/**
+	 * testGetAllIndustries
+	 * Every listed industry should be a tag some company has
+	 */
+	public void testGetAllIndustries() {
+		ArrayList<String> industries = DbAccess.getAllIndustries(database);
+		Assert.assertNotNull(industries);
+
+		for (String industry : industries) {
+			ArrayList<String> selected = new ArrayList<String>();
+			selected.add(industry);
+			ArrayList<String> none = new ArrayList<String>();
+			Assert.assertFalse(DbAccess.getCompaniesWith("", none, none, none,
+					selected, database).getCompanies().isEmpty());
+		}
+	}
+
 }
@@ -0,0 +1,183 @@
+package com.JUnit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import com.database.Company;
+import com.database.FilterEngine;
+import com.database.Major;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * FilterEngineTest
+ * Contains JUnit test cases to test the FilterEngine class
+ */
+public class FilterEngineTest extends TestCase {
+
+	private FilterEngine mEngine;
+	private ArrayList<String> mNone = new ArrayList<String>();
+
+	/**
+	 * setUp
+	 * Builds a small engine: 0 wants CS interns, 1 wants any major as
+	 * full-time, 2 is in the other room with no work authorization or
+	 * industry
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ArrayList<Company> companies = new ArrayList<Company>();
+		companies.add(newCompany("Alpha", "Wood"));
+		companies.add(newCompany("Beta", "Wood"));
+		companies.add(newCompany("Gamma", "Multipurpose"));
+
+		mEngine = new FilterEngine(companies);
+		mEngine.addMajor(0, "CS");
+		mEngine.addMajor(1, FilterEngine.ALL_MAJORS);
+		mEngine.addMajor(2, "ME");
+		mEngine.addPosition(0, "Intern");
+		mEngine.addPosition(1, "Full-time");
+		mEngine.addPosition(2, "Intern");
+		mEngine.addWorkAuth(0, "US Citizenship");
+		mEngine.addWorkAuth(1, "US Citizenship");
+		mEngine.addWorkAuth(2, FilterEngine.BLANK);
+		mEngine.addIndustry(0, "Software");
+		mEngine.addIndustry(1, "Energy");
+		mEngine.addIndustry(1, "Software");
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testNoFilter
+	 * Every company should match when nothing is filtered
+	 */
+	public void testNoFilter() {
+		BitSet matches = mEngine.filter("", mNone, mNone, mNone);
+		Assert.assertEquals(3, matches.cardinality());
+	}
+
+	/**
+	 * testFilterRoom
+	 * Tests filtering by room, including an unknown room
+	 */
+	public void testFilterRoom() {
+		Assert.assertEquals(bits(2),
+				mEngine.filter("Multipurpose", mNone, mNone, mNone));
+		Assert.assertTrue(mEngine.filter("Hall", mNone, mNone, mNone)
+				.isEmpty());
+	}
+
+	/**
+	 * testFilterMajor
+	 * Companies looking for "ALL" majors match any major filter
+	 */
+	public void testFilterMajor() {
+		Assert.assertEquals(bits(0, 1),
+				mEngine.filter("", list("CS"), mNone, mNone));
+		Assert.assertEquals(bits(0, 1, 2),
+				mEngine.filter("", list("CS", "ME"), mNone, mNone));
+		Assert.assertEquals(bits(1),
+				mEngine.filter("", list("EE"), mNone, mNone));
+	}
+
+	/**
+	 * testFilterAcrossCategories
+	 * Values in different categories must all be satisfied, blank work
+	 * authorizations match any work authorization filter
+	 */
+	public void testFilterAcrossCategories() {
+		Assert.assertEquals(bits(0, 2), mEngine.filter("", list("CS", "ME"),
+				list("US Citizenship"), list("Intern")));
+		Assert.assertEquals(bits(2),
+				mEngine.filter("", mNone, list("H1 Visa"), mNone));
+	}
+
+	/**
+	 * testBlanks
+	 * Tests the companies missing information for a filtered category
+	 */
+	public void testBlanks() {
+		Assert.assertTrue(mEngine.blanks(false, false, false).isEmpty());
+		Assert.assertTrue(mEngine.blanks(true, false, true).isEmpty());
+		Assert.assertEquals(bits(2), mEngine.blanks(false, true, false));
+		Assert.assertEquals(0, mEngine.getMissing(0));
+		Assert.assertEquals(FilterEngine.MISSING_WORK_AUTH
+				| FilterEngine.MISSING_INDUSTRY, mEngine.getMissing(2));
+	}
+
+	/**
+	 * testFilterIndustry
+	 * Industries filter like the other categories, and untagged companies
+	 * match as missing an industry
+	 */
+	public void testFilterIndustry() {
+		Assert.assertEquals(bits(0, 1, 2),
+				mEngine.filter("", mNone, mNone, mNone, mNone));
+		Assert.assertEquals(bits(0, 1, 2),
+				mEngine.filter("", mNone, mNone, mNone, list("Software")));
+		Assert.assertEquals(bits(1, 2),
+				mEngine.filter("", mNone, mNone, mNone, list("Energy")));
+		Assert.assertEquals(bits(1), mEngine.filter("", mNone, mNone,
+				list("Full-time"), list("Software", "Retail")));
+		Assert.assertEquals(bits(2), mEngine.blanks(false, false, false, true));
+	}
+
+	/**
+	 * testLargeFair
+	 * Filters a synthetic fair of 10000 companies
+	 */
+	public void testLargeFair() {
+		int size = 10000;
+		ArrayList<Company> companies = new ArrayList<Company>();
+		for (int i = 0; i < size; i++) {
+			companies.add(newCompany("Company " + i, "Wood"));
+		}
+		FilterEngine engine = new FilterEngine(companies);
+		for (int i = 0; i < size; i++) {
+			engine.addMajor(i, "M" + (i % 80));
+			engine.addPosition(i, (i % 2 == 0) ? "Intern" : "Co-op");
+		}
+
+		BitSet matches = engine.filter("Wood", list("M1", "M2"), mNone,
+				list("Intern"));
+		Assert.assertEquals(size / 80, matches.cardinality());
+		Assert.assertEquals(getCompanyIndex(matches, 0), 2);
+	}
+
+	private static int getCompanyIndex(BitSet set, int n) {
+		int id = set.nextSetBit(0);
+		for (int i = 0; i < n; i++) {
+			id = set.nextSetBit(id + 1);
+		}
+		return id;
+	}
+
+	private static Company newCompany(String name, String room) {
+		return new Company(name, "", "1", room, new ArrayList<Major>(),
+				new ArrayList<String>(), new ArrayList<String>());
+	}
+
+	private static ArrayList<String> list(String... values) {
+		return new ArrayList<String>(Arrays.asList(values));
+	}
+
+	private static BitSet bits(int... ids) {
+		BitSet set = new BitSet();
+		for (int id : ids) {
+			set.set(id);
+		}
+		return set;
+	}
+}
@@ -0,0 +1,136 @@
+package com.JUnit;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import com.database.DbAccess;
+import com.database.ExternalDbOpenHelper;
+import com.database.FilterResult;
+import com.database.IncrementalFilter;
+
+import junit.framework.Assert;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * IncrementalFilterTest
+ * Contains JUnit test cases to test the IncrementalFilter class
+ */
+public class IncrementalFilterTest extends AndroidTestCase {
+
+	SQLiteDatabase database;
+
+	/**
+	 * setUp
+	 * Opens the database
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		database = helper.openDataBase();
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testToggles
+	 * After every toggle the filter should give the same result as filtering
+	 * the selection from scratch
+	 */
+	public void testToggles() {
+		ArrayList<String> allMajors = DbAccess.getAllMajorAbbrevs(database);
+		ArrayList<String> allWorkAuths = DbAccess.getAllWorkAuths(database);
+		ArrayList<String> allPositions = DbAccess.getAllPositions(database);
+		ArrayList<String> majors = new ArrayList<String>();
+		ArrayList<String> workAuths = new ArrayList<String>();
+		ArrayList<String> positions = new ArrayList<String>();
+
+		IncrementalFilter filter = DbAccess.getIncrementalFilter("", majors,
+				workAuths, positions, new ArrayList<String>(), database);
+		assertSameResult(DbAccess.getCompaniesWith("", majors, workAuths,
+				positions, database), filter.getResult());
+
+		Random random = new Random(17);
+		for (int i = 0; i < 200; i++) {
+			String category;
+			ArrayList<String> all;
+			ArrayList<String> selected;
+			switch (random.nextInt(3)) {
+			case 0:
+				category = IncrementalFilter.MAJORS;
+				all = allMajors;
+				selected = majors;
+				break;
+			case 1:
+				category = IncrementalFilter.WORK_AUTHS;
+				all = allWorkAuths;
+				selected = workAuths;
+				break;
+			default:
+				category = IncrementalFilter.POSITIONS;
+				all = allPositions;
+				selected = positions;
+				break;
+			}
+			// Keep the selections small so they do not match everything
+			String value = (selected.size() > 2 || random.nextBoolean())
+					&& !selected.isEmpty() ? selected.get(random
+					.nextInt(selected.size())) : all.get(random.nextInt(all
+					.size()));
+			boolean checked = !selected.contains(value);
+			if (checked) {
+				selected.add(value);
+			} else {
+				selected.remove(value);
+			}
+
+			filter.toggle(category, value, checked);
+			assertSameResult(DbAccess.getCompaniesWith("", majors, workAuths,
+					positions, database), filter.getResult());
+		}
+	}
+
+	/**
+	 * testRepeatedToggle
+	 * Checking a value twice, or unchecking one that is not checked, should
+	 * not change the result
+	 */
+	public void testRepeatedToggle() {
+		ArrayList<String> majors = new ArrayList<String>();
+		majors.add(DbAccess.getAllMajorAbbrevs(database).get(1));
+		ArrayList<String> none = new ArrayList<String>();
+		IncrementalFilter filter = DbAccess.getIncrementalFilter("Wood",
+				majors, none, none, none, database);
+
+		filter.toggle(IncrementalFilter.MAJORS, majors.get(0), true);
+		filter.toggle(IncrementalFilter.MAJORS, "Not a major", false);
+		assertSameResult(DbAccess.getCompaniesWith("Wood", majors, none,
+				none, database), filter.getResult());
+
+		try {
+			filter.toggle("rooms", "Wood", true);
+			Assert.fail("Unknown category should throw");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static void assertSameResult(FilterResult expected,
+			FilterResult actual) {
+		Assert.assertEquals(expected.getNames(), actual.getNames());
+		Assert.assertEquals(expected.getSeparatedNames(true),
+				actual.getSeparatedNames(true));
+		Assert.assertEquals(expected.getSeparatedNames(false),
+				actual.getSeparatedNames(false));
+	}
+}
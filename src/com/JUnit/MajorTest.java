@@ -1,6 +1,8 @@
 package com.JUnit;
 
 import com.database.Major;
+import com.database.MajorRegistry;
+import com.database.StringTable;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -74,4 +76,37 @@ public class MajorTest extends TestCase {
 		Assert.assertTrue(abbrev.equals("SPMJ"));
 	}
 
+	/**
+	 * testRegistry
+	 * Majors with the same name and abbreviation should share an id, and
+	 * StringTable values should too
+	 */
+	public void testRegistry() {
+		short id = MajorRegistry.getId(mTest);
+		Assert.assertEquals(id, MajorRegistry.getId(new Major("aSampleMajor",
+				"SPMJ")));
+		Assert.assertFalse(id == MajorRegistry.getId(new Major("aSampleMajor",
+				"OTHR")));
+		Assert.assertEquals("SPMJ", MajorRegistry.getMajor(id).getAbbrev());
+		Assert.assertEquals(id, MajorRegistry.findId(mTest));
+
+		int intern = StringTable.POSITIONS.getId("Intern");
+		Assert.assertEquals(intern,
+				StringTable.POSITIONS.getId(new String("Intern")));
+		Assert.assertEquals("Intern", StringTable.POSITIONS.get(intern));
+	}
+
+	/**
+	 * testIntern
+	 * Interning equal values should give the same instance
+	 */
+	public void testIntern() {
+		Major major = MajorRegistry.intern("aSampleMajor", "SPMJ");
+		Assert.assertSame(major, MajorRegistry.intern(new String(
+				"aSampleMajor"), new String("SPMJ")));
+		Assert.assertSame(StringTable.WORK_AUTHS.intern("US Citizen"),
+				StringTable.WORK_AUTHS.intern(new String("US Citizen")));
+		Assert.assertNull(StringTable.WORK_AUTHS.find("Never Interned"));
+	}
+
 }
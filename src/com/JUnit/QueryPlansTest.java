@@ -0,0 +1,54 @@
+package com.JUnit;
+
+import com.database.QueryPlans;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * QueryPlansTest
+ * Contains JUnit test cases to test the QueryPlans class
+ */
+public class QueryPlansTest extends TestCase {
+
+	/**
+	 * testSameShapeSamePlan
+	 * Requests of the same shape should share one SQL string
+	 */
+	public void testSameShapeSamePlan() {
+		String plan = QueryPlans.relationPlan(QueryPlans.POSITIONS, 2);
+
+		Assert.assertSame(plan, QueryPlans.relationPlan(QueryPlans.POSITIONS, 2));
+		Assert.assertNotSame(plan,
+				QueryPlans.relationPlan(QueryPlans.WORK_AUTHS, 2));
+		Assert.assertSame(QueryPlans.matchPlan(), QueryPlans.matchPlan());
+	}
+
+	/**
+	 * testRelationPlan
+	 * A relation plan has one parameter per company id and rejects unknown
+	 * relations
+	 */
+	public void testRelationPlan() {
+		String plan = QueryPlans.relationPlan(QueryPlans.MAJORS, 3);
+		Assert.assertEquals(3, plan.split("\\?", -1).length - 1);
+		Assert.assertSame(plan, QueryPlans.relationPlan(QueryPlans.MAJORS, 3));
+		try {
+			QueryPlans.relationPlan("industries", 1);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * testEviction
+	 * Only the most recently used plans are kept
+	 */
+	public void testEviction() {
+		for (int i = 0; i < QueryPlans.MAX_PLANS * 2; i++) {
+			QueryPlans.relationPlan(QueryPlans.MAJORS, i + 1);
+		}
+		Assert.assertEquals(QueryPlans.MAX_PLANS, QueryPlans.size());
+	}
+}
@@ -0,0 +1,77 @@
+package com.JUnit;
+
+import java.util.Arrays;
+
+import com.database.RelationIndex;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+/**
+ * RelationIndexTest
+ * Contains JUnit test cases to test the RelationIndex class
+ */
+public class RelationIndexTest extends TestCase {
+
+	private RelationIndex mIndex;
+
+	/**
+	 * setUp
+	 * Builds an index of 4 companies and 3 values, added out of order and
+	 * with a duplicate pair
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		RelationIndex.Builder builder = new RelationIndex.Builder();
+		builder.add(2, 1);
+		builder.add(0, 2);
+		builder.add(0, 0);
+		builder.add(2, 0);
+		builder.add(0, 2);
+		builder.add(3, 2);
+		mIndex = builder.build(4, 3);
+	}
+
+	/**
+	 * testValues
+	 * Tests that each company gets its values sorted and without duplicates
+	 */
+	public void testValues() {
+		Assert.assertTrue(Arrays.equals(new int[] { 0, 2 },
+				mIndex.getValues(0)));
+		Assert.assertEquals(0, mIndex.getValues(1).length);
+		Assert.assertTrue(Arrays.equals(new int[] { 0, 1 },
+				mIndex.getValues(2)));
+		Assert.assertTrue(Arrays.equals(new int[] { 2 }, mIndex.getValues(3)));
+		Assert.assertEquals(2, mIndex.countValues(0));
+		Assert.assertEquals(0, mIndex.countValues(1));
+	}
+
+	/**
+	 * testCompanies
+	 * Tests that each value gets its companies sorted and without duplicates
+	 */
+	public void testCompanies() {
+		Assert.assertTrue(Arrays.equals(new int[] { 0, 2 },
+				mIndex.getCompanies(0)));
+		Assert.assertTrue(Arrays.equals(new int[] { 2 },
+				mIndex.getCompanies(1)));
+		Assert.assertTrue(Arrays.equals(new int[] { 0, 3 },
+				mIndex.getCompanies(2)));
+		Assert.assertTrue(Arrays.equals(new int[] { 2, 1, 2 },
+				mIndex.getCompanyCounts()));
+		Assert.assertEquals(2, mIndex.countCompanies(2));
+	}
+
+	/**
+	 * testOutOfRange
+	 * Tests that unknown companies and values have nothing
+	 */
+	public void testOutOfRange() {
+		Assert.assertEquals(0, mIndex.getValues(-1).length);
+		Assert.assertEquals(0, mIndex.getValues(4).length);
+		Assert.assertEquals(0, mIndex.countValues(4));
+		Assert.assertEquals(0, mIndex.getCompanies(3).length);
+		Assert.assertEquals(0, mIndex.countCompanies(-1));
+	}
+}
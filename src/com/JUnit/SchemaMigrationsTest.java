@@ -0,0 +1,119 @@
+package com.JUnit;
+
+import com.database.ChangeSet;
+import com.database.DbAccess;
+import com.database.ExternalDbOpenHelper;
+import com.database.SchemaMigrations;
+
+import junit.framework.Assert;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.test.AndroidTestCase;
+
+/**
+ * SchemaMigrationsTest
+ * Contains JUnit test cases to test the SchemaMigrations class
+ */
+public class SchemaMigrationsTest extends AndroidTestCase {
+
+	SQLiteDatabase database;
+
+	/**
+	 * setUp
+	 * Opens the database, which upgrades it to the current version
+	 */
+	@Override
+	protected void setUp() throws Exception {
+		ExternalDbOpenHelper helper = new ExternalDbOpenHelper(getContext(),
+				"careerFairDB.db");
+		database = helper.openDataBase();
+
+		super.setUp();
+	}
+
+	/**
+	 * tearDown
+	 * Destroy objects when test is finished
+	 */
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+	}
+
+	/**
+	 * testVersion
+	 * The opened database should be at the current schema version
+	 */
+	public void testVersion() {
+		Assert.assertEquals(SchemaMigrations.VERSION, database.getVersion());
+	}
+
+	/**
+	 * testJoinIndexes
+	 * Joins from a major to its companies should use the new index
+	 */
+	public void testJoinIndexes() {
+		Assert.assertTrue(plan(
+				"SELECT companyID FROM companyToMajor WHERE majorID=169;")
+				.contains("companyToMajor_majorID"));
+		Assert.assertTrue(plan(
+				"SELECT locationID FROM companyToLocation WHERE companyID=1;")
+				.contains("companyToLocation_company"));
+		Assert.assertTrue(plan(
+				"SELECT companyID FROM industryTag WHERE tag=1;")
+				.contains("industryTag_tag"));
+	}
+
+	/**
+	 * testCompanyDirectory
+	 * The directory should have one row per company location and be read in
+	 * display order without sorting
+	 */
+	public void testCompanyDirectory() {
+		Cursor cursor = database.rawQuery(
+				"SELECT count(*) FROM companyDirectory;", new String[0]);
+		cursor.moveToFirst();
+		int rows = cursor.getInt(0);
+		cursor.close();
+		Assert.assertEquals(DbAccess.getAllCompanies(database).size(), rows);
+
+		Assert.assertFalse(plan(
+				"SELECT name FROM companyDirectory ORDER BY sortKey;")
+				.contains("TEMP B-TREE"));
+		Assert.assertFalse(plan(
+				"SELECT name FROM companyDirectory WHERE room = 'Wood' ORDER BY sortKey;")
+				.contains("TEMP B-TREE"));
+	}
+
+	/**
+	 * testUpgradeAgain
+	 * Running every step again should not fail or change the version
+	 */
+	public void testUpgradeAgain() {
+		SchemaMigrations.upgrade(database, 0, SchemaMigrations.VERSION);
+		Assert.assertEquals(SchemaMigrations.VERSION, database.getVersion());
+	}
+
+	/**
+	 * testDataVersion
+	 * A freshly installed database should start at the data version of the
+	 * bundled asset, not at 0
+	 */
+	public void testDataVersion() {
+		database.execSQL("DROP TABLE " + ChangeSet.VERSION_TABLE + ";");
+		SchemaMigrations.upgrade(database, 4, SchemaMigrations.VERSION);
+		Assert.assertEquals(ChangeSet.BUNDLED_VERSION,
+				ChangeSet.getVersion(database));
+	}
+
+	private String plan(String sql) {
+		StringBuilder plan = new StringBuilder();
+		Cursor cursor = database.rawQuery("EXPLAIN QUERY PLAN " + sql,
+				new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			plan.append(cursor.getString(3)).append('\n');
+		}
+		cursor.close();
+		return plan.toString();
+	}
+}
@@ -0,0 +1,360 @@
+/**
+ * This class runs DbAccess work off the UI thread. Requests run one at a time
+ * on a dedicated background thread and their results are delivered to a
+ * Callback on the main thread.
+ *
+ * Each request belongs to a channel (FILTER, SEARCH, OPEN, ...). A new
+ * request on a channel supersedes the previous one: if the previous request
+ * has not started it is skipped, and if it is running its result is dropped
+ * instead of being delivered.
+ *
+ * Work that fails, with an exception or an Error such as the one
+ * ExternalDbOpenHelper.createDataBase throws, still finishes its request;
+ * the failure is logged and delivered to the request's ErrorCallback, if it
+ * has one.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+public final class AsyncDbAccess {
+
+	public static final String SNAPSHOT = "snapshot";
+	public static final String OPEN = "open";
+	public static final String FILTER = "filter";
+	public static final String SEARCH = "search";
+	public static final String PREFETCH = "prefetch";
+	public static final String DETAILS = "details";
+	public static final String FACETS = "facets";
+
+	/**
+	 * Receives the result of a request on the main thread
+	 */
+	public static interface Callback<T> {
+		/**
+		 * onResult
+		 *
+		 * @param result
+		 *            - the value computed in the background
+		 */
+		void onResult(T result);
+	}
+
+	/**
+	 * Receives the failure of a request on the main thread
+	 */
+	public static interface ErrorCallback {
+		/**
+		 * onError
+		 *
+		 * @param error
+		 *            - what the work threw in the background
+		 */
+		void onError(Throwable error);
+	}
+
+	private static final ExecutorService executor = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "DbAccess");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private static final Handler mainHandler = new Handler(
+			Looper.getMainLooper());
+
+	// channel -> generation of the latest request
+	private static final HashMap<String, Integer> generations = new HashMap<String, Integer>();
+	// channel -> the latest request, until it finishes
+	private static final HashMap<String, Future<?>> pending = new HashMap<String, Future<?>>();
+
+	private AsyncDbAccess() {
+	}
+
+	/**
+	 * submit - runs work in the background and delivers its result on the
+	 * main thread, superseding the previous request on the channel
+	 *
+	 * @param channel
+	 *            - the channel of the request
+	 * @param work
+	 *            - the work to run in the background
+	 * @param callback
+	 *            - receives the result, unless a newer request was submitted
+	 *            on the channel first (may be null)
+	 */
+	public static <T> void submit(String channel, Callable<T> work,
+			Callback<T> callback) {
+		submit(channel, work, callback, null);
+	}
+
+	/**
+	 * submit - runs work in the background and delivers its result or its
+	 * failure on the main thread, superseding the previous request on the
+	 * channel
+	 *
+	 * @param channel
+	 *            - the channel of the request
+	 * @param work
+	 *            - the work to run in the background
+	 * @param callback
+	 *            - receives the result, unless a newer request was submitted
+	 *            on the channel first (may be null)
+	 * @param onError
+	 *            - receives what the work threw, unless a newer request was
+	 *            submitted on the channel first (may be null)
+	 */
+	public static synchronized <T> void submit(final String channel,
+			final Callable<T> work, final Callback<T> callback,
+			final ErrorCallback onError) {
+		final int generation = nextGeneration(channel);
+		Future<?> previous = pending.put(channel,
+				executor.submit(new Runnable() {
+					@Override
+					public void run() {
+						if (!isCurrent(channel, generation)) {
+							return;
+						}
+						final T result;
+						try {
+							result = work.call();
+						} catch (final Throwable e) {
+							Log.e(AsyncDbAccess.class.toString(), "Request on "
+									+ channel + " failed", e);
+							mainHandler.post(new Runnable() {
+								@Override
+								public void run() {
+									if (finish(channel, generation)
+											&& onError != null) {
+										onError.onError(e);
+									}
+								}
+							});
+							return;
+						}
+						mainHandler.post(new Runnable() {
+							@Override
+							public void run() {
+								if (finish(channel, generation)
+										&& callback != null) {
+									callback.onResult(result);
+								}
+							}
+						});
+					}
+				}));
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	/**
+	 * cancel - drops the latest request on a channel
+	 *
+	 * @param channel
+	 *            - the channel to cancel
+	 */
+	public static synchronized void cancel(String channel) {
+		nextGeneration(channel);
+		Future<?> previous = pending.remove(channel);
+		if (previous != null) {
+			previous.cancel(false);
+		}
+	}
+
+	/**
+	 * isPending
+	 *
+	 * @param channel
+	 *            - a channel
+	 * @return true if a request on the channel has not delivered its result
+	 */
+	public static synchronized boolean isPending(String channel) {
+		return pending.containsKey(channel);
+	}
+
+	/**
+	 * filter - runs DbAccess.getCompaniesWith in the background
+	 *
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 * @param filterMajor
+	 *            - majors to filter by
+	 * @param filterWorkAuth
+	 *            - work authorizations to filter by
+	 * @param filterPosition
+	 *            - position types to filter by
+	 * @param filterIndustry
+	 *            - industry tags to filter by
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @param callback
+	 *            - receives the result on the main thread
+	 */
+	public static void filter(final String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
+			final SQLiteDatabase database, Callback<FilterResult> callback) {
+		// Copied so later changes by the caller do not race with the filter
+		final ArrayList<String> majors = new ArrayList<String>(filterMajor);
+		final ArrayList<String> workAuths = new ArrayList<String>(
+				filterWorkAuth);
+		final ArrayList<String> positions = new ArrayList<String>(
+				filterPosition);
+		final ArrayList<String> industries = new ArrayList<String>(
+				filterIndustry);
+		submit(FILTER, new Callable<FilterResult>() {
+			@Override
+			public FilterResult call() {
+				return DbAccess.getCompaniesWith(filterRoom, majors, workAuths,
+						positions, industries, database);
+			}
+		}, callback);
+	}
+
+	/**
+	 * facets - runs DbAccess.getFacetCounts in the background
+	 *
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 * @param filterMajor
+	 *            - the selected majors
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected position types
+	 * @param filterIndustry
+	 *            - the selected industry tags
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @param callback
+	 *            - receives the counts on the main thread
+	 */
+	public static void facets(final String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
+			final SQLiteDatabase database, Callback<FacetCounts> callback) {
+		// Copied so later changes by the caller do not race with the count
+		final ArrayList<String> majors = new ArrayList<String>(filterMajor);
+		final ArrayList<String> workAuths = new ArrayList<String>(
+				filterWorkAuth);
+		final ArrayList<String> positions = new ArrayList<String>(
+				filterPosition);
+		final ArrayList<String> industries = new ArrayList<String>(
+				filterIndustry);
+		submit(FACETS, new Callable<FacetCounts>() {
+			@Override
+			public FacetCounts call() {
+				return DbAccess.getFacetCounts(filterRoom, majors, workAuths,
+						positions, industries, database);
+			}
+		}, callback);
+	}
+
+	/**
+	 * search - runs DbAccess.searchAllCompanies in the background
+	 *
+	 * @param filterName
+	 *            - the string to search for
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @param callback
+	 *            - receives the result on the main thread
+	 */
+	public static void search(final String filterName,
+			final SQLiteDatabase database, Callback<SearchResult> callback) {
+		submit(SEARCH, new Callable<SearchResult>() {
+			@Override
+			public SearchResult call() {
+				return DbAccess.searchAllCompanies(filterName, database);
+			}
+		}, callback);
+	}
+
+	/**
+	 * prefetch - loads the details of companies in the background, so
+	 * opening them does not wait for the database
+	 *
+	 * @param companies
+	 *            - the companies likely to be opened next
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 */
+	public static void prefetch(List<Company> companies,
+			final SQLiteDatabase database) {
+		final ArrayList<Company> copy = new ArrayList<Company>(companies);
+		submit(PREFETCH, new Callable<Void>() {
+			@Override
+			public Void call() {
+				CompanyCatalog.get(database).getDetailsCache().prefetch(copy);
+				return null;
+			}
+		}, null);
+	}
+
+	/**
+	 * details - loads the details of the company being opened in the
+	 * background
+	 *
+	 * @param company
+	 *            - the company being opened
+	 * @param callback
+	 *            - receives the details on the main thread
+	 */
+	public static void details(final Company company,
+			Callback<CompanyDetails> callback) {
+		submit(DETAILS, new Callable<CompanyDetails>() {
+			@Override
+			public CompanyDetails call() {
+				return company.getDetails();
+			}
+		}, callback);
+	}
+
+	private static synchronized int nextGeneration(String channel) {
+		Integer generation = generations.get(channel);
+		int next = (generation == null) ? 1 : generation + 1;
+		generations.put(channel, next);
+		return next;
+	}
+
+	private static synchronized boolean isCurrent(String channel,
+			int generation) {
+		Integer current = generations.get(channel);
+		return current != null && current == generation;
+	}
+
+	/**
+	 * Marks the request as done if it is still the latest on the channel
+	 *
+	 * @return true if it was the latest
+	 */
+	private static synchronized boolean finish(String channel, int generation) {
+		if (!isCurrent(channel, generation)) {
+			return false;
+		}
+		pending.remove(channel);
+		return true;
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * This class finds the company at a table of a room without scanning the
+ * companies. Each room (Wood, Multipurpose, Hall, ...) keeps an int[] of
+ * dense ids indexed by table number minus the room's lowest table number, so
+ * a booth lookup is one array read. Table numbers are small and close
+ * together in every room, including the Hall's, which start below zero.
+ *
+ * A table shared by two rows keeps the last one in display order, as the
+ * table maps did. An index never changes once built and may be read from any
+ * thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+public final class BoothIndex {
+
+	private static final Room EMPTY = new Room(
+			Collections.<Company> emptyList(), 0, new int[0]);
+
+	// room name -> its tables
+	private final HashMap<String, Room> rooms = new HashMap<String, Room>();
+
+	/**
+	 * The companies of one room by table number
+	 */
+	public static final class Room {
+		private final List<Company> companies;
+		// Table number of ids[0]
+		private final int first;
+		// table number - first -> dense id, -1 if no company has the table
+		private final int[] ids;
+
+		private Room(List<Company> aCompanies, int aFirst, int[] aIds) {
+			companies = aCompanies;
+			first = aFirst;
+			ids = aIds;
+		}
+
+		/**
+		 * getId
+		 *
+		 * @param table
+		 *            - a table number
+		 * @return the dense id of the company at the table, or -1 if there is
+		 *         none
+		 */
+		public int getId(int table) {
+			int i = table - first;
+			return (i < 0 || i >= ids.length) ? -1 : ids[i];
+		}
+
+		/**
+		 * getCompany
+		 *
+		 * @param table
+		 *            - a table number
+		 * @return the company at the table, or null if there is none
+		 */
+		public Company getCompany(int table) {
+			int id = getId(table);
+			return (id < 0) ? null : companies.get(id);
+		}
+
+		/**
+		 * getCompany
+		 *
+		 * @param table
+		 *            - a table number as a string, as the maps name booths
+		 * @return the company at the table, or null if there is none or the
+		 *         string is not a number
+		 */
+		public Company getCompany(String table) {
+			if (table == null) {
+				return null;
+			}
+			try {
+				return getCompany(Integer.parseInt(table.trim()));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * getTableMap
+		 *
+		 * @return a new map of the room's companies keyed by table number
+		 */
+		public HashMap<String, Company> getTableMap() {
+			HashMap<String, Company> tables = new HashMap<String, Company>();
+			for (int id : ids) {
+				if (id >= 0) {
+					Company company = companies.get(id);
+					tables.put(company.getTableNum(), company);
+				}
+			}
+			return tables;
+		}
+
+		/**
+		 * size
+		 *
+		 * @return the number of tables with a company
+		 */
+		public int size() {
+			int size = 0;
+			for (int id : ids) {
+				if (id >= 0) {
+					size++;
+				}
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * BoothIndex constructor
+	 *
+	 * @param companies
+	 *            - the companies in display order
+	 */
+	BoothIndex(List<Company> companies) {
+		// room -> { lowest table, highest table }
+		HashMap<String, int[]> ranges = new HashMap<String, int[]>();
+		for (Company company : companies) {
+			Integer table = parseTable(company);
+			if (table == null) {
+				continue;
+			}
+			int[] range = ranges.get(company.getRoom());
+			if (range == null) {
+				ranges.put(company.getRoom(), new int[] { table, table });
+			} else {
+				range[0] = Math.min(range[0], table);
+				range[1] = Math.max(range[1], table);
+			}
+		}
+
+		HashMap<String, int[]> ids = new HashMap<String, int[]>();
+		for (String room : ranges.keySet()) {
+			int[] range = ranges.get(room);
+			int[] roomIds = new int[range[1] - range[0] + 1];
+			Arrays.fill(roomIds, -1);
+			ids.put(room, roomIds);
+		}
+		for (int id = 0; id < companies.size(); id++) {
+			Integer table = parseTable(companies.get(id));
+			if (table != null) {
+				String room = companies.get(id).getRoom();
+				ids.get(room)[table - ranges.get(room)[0]] = id;
+			}
+		}
+
+		for (String room : ranges.keySet()) {
+			rooms.put(room,
+					new Room(companies, ranges.get(room)[0], ids.get(room)));
+		}
+	}
+
+	/**
+	 * getRoom
+	 *
+	 * @param room
+	 *            - the room name (Hall/Multipurpose/Wood)
+	 * @return the tables of the room, empty for an unknown room
+	 */
+	public Room getRoom(String room) {
+		Room tables = rooms.get(room);
+		return (tables == null) ? EMPTY : tables;
+	}
+
+	/**
+	 * getRooms
+	 *
+	 * @return the names of the rooms with at least one table (read only)
+	 */
+	public Set<String> getRooms() {
+		return Collections.unmodifiableSet(rooms.keySet());
+	}
+
+	/**
+	 * @return the table number of the company, or null if it has none
+	 */
+	private static Integer parseTable(Company company) {
+		if (company.getRoom() == null || company.getTableNum() == null) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(company.getTableNum().trim());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
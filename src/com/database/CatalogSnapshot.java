@@ -0,0 +1,213 @@
+/**
+ * This class saves a loaded catalog to a compact binary file and reads it back
+ * on later launches, so the company list can be shown before
+ * careerFairDB.db is copied, opened or migrated. The file is memory-mapped
+ * and read in one pass. The companies, their relations, the display order
+ * and the booth index are all rebuilt from the saved rows without SQLite.
+ *
+ * A snapshot starts with MAGIC, FORMAT and the stamp of the database it was
+ * written from, and ends with a CRC32 of everything before it. Reading
+ * returns null for a missing, damaged or stale file, and the catalog is then
+ * loaded from the database as before. The stamp covers the database file,
+ * the installed APK and SchemaMigrations.VERSION, so a new bundled database,
+ * an app update or a migration invalidates the snapshot without any
+ * bookkeeping.
+ *
+ * The body is written by CompanyLoader.write and read by the
+ * CompanyLoader(ByteBuffer) constructor. Strings are an int byte length
+ * (-1 for null) followed by UTF-8.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import android.util.Log;
+
+public final class CatalogSnapshot {
+
+	// "CFCS"
+	public static final int MAGIC = 0x43464353;
+	// Changed whenever the layout of the body changes
+	public static final int FORMAT = 1;
+
+	private static final String UTF_8 = "UTF-8";
+
+	private CatalogSnapshot() {
+	}
+
+	/**
+	 * stamp - identifies the database a snapshot is written from, without
+	 * opening it
+	 *
+	 * @param database
+	 *            - the installed careerFairDB.db
+	 * @param apk
+	 *            - the installed APK, which bundles the database
+	 * @return a value that changes when either file or the schema version
+	 *         changes
+	 */
+	public static long stamp(File database, File apk) {
+		long stamp = SchemaMigrations.VERSION;
+		stamp = stamp * 31 + FORMAT;
+		stamp = stamp * 31 + database.length();
+		stamp = stamp * 31 + database.lastModified();
+		stamp = stamp * 31 + apk.length();
+		stamp = stamp * 31 + apk.lastModified();
+		return stamp;
+	}
+
+	/**
+	 * write - saves a loader's companies and relations, replacing the file
+	 * only once it is complete
+	 *
+	 * @param loader
+	 *            - a loader read from the database
+	 * @param file
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - the stamp of the database the loader was read from
+	 * @throws IOException
+	 */
+	public static void write(CompanyLoader loader, File file, long stamp)
+			throws IOException {
+		File temp = new File(file.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		try {
+			CheckedOutputStream checked = new CheckedOutputStream(
+					new BufferedOutputStream(stream, 64 * 1024), new CRC32());
+			DataOutputStream out = new DataOutputStream(checked);
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT);
+			out.writeLong(stamp);
+			loader.write(out);
+			out.flush();
+			// Not part of its own checksum
+			new DataOutputStream(stream).writeLong(checked.getChecksum()
+					.getValue());
+			stream.getFD().sync();
+		} finally {
+			stream.close();
+		}
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Could not replace " + file);
+		}
+	}
+
+	/**
+	 * read - loads the companies and relations from a snapshot
+	 *
+	 * @param file
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - the stamp of the current database
+	 * @return the loader, or null if the file is missing, damaged or was
+	 *         written from another database
+	 */
+	public static CompanyLoader read(File file, long stamp) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			MappedByteBuffer buffer;
+			try {
+				buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						0, raf.length());
+			} finally {
+				// The mapping stays valid once the file is closed
+				raf.close();
+			}
+			if (buffer.capacity() < 24 || buffer.getInt(0) != MAGIC
+					|| buffer.getInt(4) != FORMAT
+					|| buffer.getLong(8) != stamp) {
+				return null;
+			}
+			int end = buffer.capacity() - 8;
+			if (checksum(buffer, end) != buffer.getLong(end)) {
+				Log.w(CatalogSnapshot.class.toString(), "Damaged " + file);
+				return null;
+			}
+			buffer.position(16);
+			buffer.limit(end);
+			return new CompanyLoader(buffer);
+		} catch (IOException e) {
+			Log.w(CatalogSnapshot.class.toString(), "Could not read " + file, e);
+			return null;
+		} catch (BufferUnderflowException e) {
+			Log.w(CatalogSnapshot.class.toString(), "Truncated " + file, e);
+			return null;
+		}
+	}
+
+	/**
+	 * writeString - writes a string for readString
+	 *
+	 * @param out
+	 *            - the snapshot body
+	 * @param string
+	 *            - the string, may be null
+	 * @throws IOException
+	 */
+	static void writeString(DataOutputStream out, String string)
+			throws IOException {
+		if (string == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = string.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * readString - reads a string written by writeString
+	 *
+	 * @param in
+	 *            - the snapshot body
+	 * @return the string, may be null
+	 */
+	static String readString(ByteBuffer in) {
+		int length = in.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.get(bytes);
+		try {
+			return new String(bytes, UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * @return the CRC32 of the first length bytes of the buffer
+	 */
+	private static long checksum(ByteBuffer buffer, int length) {
+		CRC32 crc = new CRC32();
+		byte[] chunk = new byte[8 * 1024];
+		ByteBuffer bytes = buffer.duplicate();
+		bytes.position(0);
+		while (bytes.position() < length) {
+			int size = Math.min(chunk.length, length - bytes.position());
+			bytes.get(chunk, 0, size);
+			crc.update(chunk, 0, size);
+		}
+		return crc.getValue();
+	}
+}
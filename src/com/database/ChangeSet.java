@@ -0,0 +1,398 @@
+/**
+ * This class applies a signed change-set to the installed careerFairDB.db,
+ * so booth assignments and employer data can be updated between releases
+ * without shipping a new APK or copying the whole database again.
+ *
+ * A change-set file is MAGIC, FORMAT, the length and bytes of a
+ * SIGNATURE_ALGORITHM signature and the length and bytes of the signed
+ * payload, a UTF-8 JSON object:
+ *
+ * {"from": 3, "to": 4, "changes": [
+ *   {"table": "location", "op": "update", "id": 12, "values": {"tableNum": 17}},
+ *   {"table": "companyToLocation", "op": "delete", "id": 40}, ...]}
+ *
+ * Every change inserts, updates or deletes one row of a source table by its
+ * _id. The tables built from them (companyDirectory, companySearch) are
+ * rebuilt afterwards. The data version of the database is kept in the
+ * dataVersion table (see SchemaMigrations); a change-set only applies to the
+ * version it was made from, and its changes, the rebuilds and the new
+ * version are written in one transaction, so a failing change leaves the
+ * database as it was.
+ *
+ * The bundled database is at BUNDLED_VERSION, which ships in the APK with
+ * the asset: whenever careerFairDB.db.gz is rebuilt with the changes
+ * published so far, BUNDLED_VERSION is raised to the "to" of the last
+ * change-set it includes. After an app update DatabaseInstaller keeps the
+ * installed database, and the version it has reached, if the asset is
+ * unchanged. If the asset changed it installs it and the dataVersion table
+ * starts again at BUNDLED_VERSION, so change-sets made from older versions
+ * no longer apply and the app asks for the ones made from BUNDLED_VERSION
+ * onwards. Change-sets are published as a chain, each made from the "to" of
+ * the one before.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+public final class ChangeSet {
+
+	// "CFCH"
+	public static final int MAGIC = 0x43464348;
+	// Changed whenever the layout of the file changes
+	public static final int FORMAT = 1;
+	public static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
+
+	public static final String VERSION_TABLE = "dataVersion";
+	// The data version of the bundled careerFairDB.db.gz, raised whenever the
+	// asset is rebuilt with published change-sets
+	public static final int BUNDLED_VERSION = 0;
+
+	public static final String INSERT = "insert";
+	public static final String UPDATE = "update";
+	public static final String DELETE = "delete";
+
+	// Tables a change-set may change, the others are built from these
+	private static final List<String> TABLES = Arrays.asList("company",
+			"major", "employmentType", "workAuth", "room", "location",
+			"companyToMajor", "companyToType", "companyToWorkAuth",
+			"companyToLocation", "industryTag");
+
+	// Bounds the memory a damaged or hostile file can take
+	private static final int MAX_SIGNATURE = 1024;
+	private static final int MAX_PAYLOAD = 1024 * 1024;
+
+	private final Body body;
+
+	/**
+	 * The payload, as read by Gson
+	 */
+	private static final class Body {
+		int from;
+		int to;
+		List<Change> changes;
+	}
+
+	/**
+	 * One row to insert, update or delete
+	 */
+	private static final class Change {
+		String table;
+		String op;
+		long id;
+		JsonObject values;
+	}
+
+	private ChangeSet(Body aBody) {
+		body = aBody;
+	}
+
+	/**
+	 * read - reads a change-set and checks its signature
+	 *
+	 * @param in
+	 *            - the change-set, from a downloaded file or a connection
+	 * @param key
+	 *            - the public key of the publisher
+	 * @return the change-set
+	 * @throws IOException
+	 *             if the change-set is truncated or malformed
+	 * @throws GeneralSecurityException
+	 *             if it was not signed with the publisher's key
+	 */
+	public static ChangeSet read(InputStream in, PublicKey key)
+			throws IOException, GeneralSecurityException {
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC || data.readInt() != FORMAT) {
+			throw new IOException("Not a change-set");
+		}
+		byte[] signature = readBlock(data, MAX_SIGNATURE);
+		byte[] payload = readBlock(data, MAX_PAYLOAD);
+
+		Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+		verifier.initVerify(key);
+		verifier.update(payload);
+		if (!verifier.verify(signature)) {
+			throw new SignatureException("Change-set signature does not match");
+		}
+
+		Body body;
+		try {
+			body = new Gson().fromJson(new String(payload, "UTF-8"),
+					Body.class);
+		} catch (JsonParseException e) {
+			throw new IOException("Malformed change-set: " + e.getMessage());
+		}
+		check(body);
+		return new ChangeSet(body);
+	}
+
+	/**
+	 * write - signs a payload and writes it as a change-set, for the tool
+	 * that publishes them
+	 *
+	 * @param out
+	 *            - where the change-set is written
+	 * @param payload
+	 *            - the UTF-8 JSON payload
+	 * @param key
+	 *            - the private key of the publisher
+	 * @throws IOException
+	 * @throws GeneralSecurityException
+	 */
+	public static void write(OutputStream out, byte[] payload, PrivateKey key)
+			throws IOException, GeneralSecurityException {
+		Signature signer = Signature.getInstance(SIGNATURE_ALGORITHM);
+		signer.initSign(key);
+		signer.update(payload);
+		byte[] signature = signer.sign();
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(FORMAT);
+		data.writeInt(signature.length);
+		data.write(signature);
+		data.writeInt(payload.length);
+		data.write(payload);
+		data.flush();
+	}
+
+	/**
+	 * publicKey - decodes the publisher's key
+	 *
+	 * @param encoded
+	 *            - an X.509 encoded RSA public key
+	 * @return the key change-sets are checked against
+	 * @throws GeneralSecurityException
+	 */
+	public static PublicKey publicKey(byte[] encoded)
+			throws GeneralSecurityException {
+		return KeyFactory.getInstance("RSA").generatePublic(
+				new X509EncodedKeySpec(encoded));
+	}
+
+	/**
+	 * getVersion - reads the data version of a database
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the version of the last change-set applied, BUNDLED_VERSION
+	 *         for the bundled database
+	 */
+	public static int getVersion(SQLiteDatabase database) {
+		Cursor cursor = database.rawQuery("SELECT version FROM "
+				+ VERSION_TABLE + ";", new String[0]);
+		int version = cursor.moveToFirst() ? cursor.getInt(0)
+				: BUNDLED_VERSION;
+		cursor.close();
+		return version;
+	}
+
+	/**
+	 * createVersionTable - adds the dataVersion table at BUNDLED_VERSION,
+	 * does nothing if it already exists
+	 *
+	 * @param database
+	 *            - a writable SQLite database
+	 */
+	static void createVersionTable(SQLiteDatabase database) {
+		database.execSQL("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE
+				+ " (version INTEGER NOT NULL);");
+		database.execSQL("INSERT INTO " + VERSION_TABLE
+				+ " (version) SELECT ? WHERE NOT EXISTS (SELECT 1 FROM "
+				+ VERSION_TABLE + ");", new Object[] { BUNDLED_VERSION });
+	}
+
+	/**
+	 * getFrom
+	 *
+	 * @return the data version the change-set applies to
+	 */
+	public int getFrom() {
+		return body.from;
+	}
+
+	/**
+	 * getTo
+	 *
+	 * @return the data version once the change-set is applied
+	 */
+	public int getTo() {
+		return body.to;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of rows the change-set changes
+	 */
+	public int size() {
+		return body.changes.size();
+	}
+
+	/**
+	 * apply - writes the changes in one transaction if the database is at
+	 * the version the change-set was made from
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return true if the changes were applied, false if the database is at
+	 *         another version
+	 * @throws android.database.SQLException
+	 *             if a change fails, nothing is applied then
+	 */
+	public boolean apply(SQLiteDatabase database) {
+		database.beginTransaction();
+		try {
+			if (getVersion(database) != body.from) {
+				return false;
+			}
+			for (Change change : body.changes) {
+				execute(database, change);
+			}
+			CompanyDirectory.create(database);
+			SearchIndex.rebuild(database);
+			database.execSQL("UPDATE " + VERSION_TABLE + " SET version = ?;",
+					new Object[] { body.to });
+			database.setTransactionSuccessful();
+			return true;
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	private static void execute(SQLiteDatabase database, Change change) {
+		if (DELETE.equals(change.op)) {
+			database.execSQL("DELETE FROM \"" + change.table
+					+ "\" WHERE _id = ?;", new Object[] { change.id });
+			return;
+		}
+
+		StringBuilder sql = new StringBuilder();
+		Object[] args = new Object[change.values.entrySet().size() + 1];
+		int i = 0;
+		if (INSERT.equals(change.op)) {
+			StringBuilder params = new StringBuilder("?");
+			sql.append("INSERT INTO \"").append(change.table)
+					.append("\" (_id");
+			args[i++] = change.id;
+			for (Map.Entry<String, JsonElement> value : change.values
+					.entrySet()) {
+				sql.append(", \"").append(value.getKey()).append('"');
+				params.append(", ?");
+				args[i++] = toArg(value.getValue());
+			}
+			sql.append(") VALUES (").append(params).append(");");
+		} else {
+			sql.append("UPDATE \"").append(change.table).append("\" SET ");
+			for (Map.Entry<String, JsonElement> value : change.values
+					.entrySet()) {
+				if (i > 0) {
+					sql.append(", ");
+				}
+				sql.append('"').append(value.getKey()).append("\" = ?");
+				args[i++] = toArg(value.getValue());
+			}
+			sql.append(" WHERE _id = ?;");
+			args[i] = change.id;
+		}
+		database.execSQL(sql.toString(), args);
+	}
+
+	/**
+	 * @return the JSON value as a Long, Double, String or null
+	 */
+	private static Object toArg(JsonElement value) {
+		if (value.isJsonNull()) {
+			return null;
+		}
+		JsonPrimitive primitive = value.getAsJsonPrimitive();
+		if (primitive.isBoolean()) {
+			return primitive.getAsBoolean() ? 1L : 0L;
+		} else if (primitive.isNumber()) {
+			String number = primitive.getAsString();
+			if (number.indexOf('.') < 0 && number.indexOf('e') < 0
+					&& number.indexOf('E') < 0) {
+				return primitive.getAsLong();
+			}
+			return primitive.getAsDouble();
+		}
+		return primitive.getAsString();
+	}
+
+	/**
+	 * Rejects a change-set the database should never see, before anything
+	 * is applied
+	 */
+	private static void check(Body body) throws IOException {
+		if (body == null || body.changes == null || body.from < 0
+				|| body.to <= body.from) {
+			throw new IOException("Malformed change-set versions");
+		}
+		for (Change change : body.changes) {
+			if (change == null || !TABLES.contains(change.table)) {
+				throw new IOException("Change-set changes an unknown table");
+			}
+			if (change.id <= 0) {
+				throw new IOException("Change-set row without an _id");
+			}
+			if (DELETE.equals(change.op)) {
+				continue;
+			}
+			if (!INSERT.equals(change.op) && !UPDATE.equals(change.op)) {
+				throw new IOException("Unknown change " + change.op);
+			}
+			if (change.values == null || change.values.entrySet().isEmpty()) {
+				throw new IOException("Change-set " + change.op
+						+ " without values");
+			}
+			for (Map.Entry<String, JsonElement> value : change.values
+					.entrySet()) {
+				// Column names are written into the SQL, values are bound
+				if (!value.getKey().matches("[A-Za-z][A-Za-z0-9_]*")
+						|| !(value.getValue().isJsonNull() || value.getValue()
+								.isJsonPrimitive())) {
+					throw new IOException("Bad change-set value "
+							+ value.getKey());
+				}
+			}
+		}
+	}
+
+	private static byte[] readBlock(DataInputStream data, int max)
+			throws IOException {
+		int length = data.readInt();
+		if (length < 0 || length > max) {
+			throw new IOException("Bad change-set block length " + length);
+		}
+		byte[] block = new byte[length];
+		data.readFully(block);
+		return block;
+	}
+}
@@ -1,5 +1,8 @@
 /** 
- * This class stores all the relevant information about a company
+ * This class stores all the relevant information about a company. Companies
+ * read from the database only hold their header (id, name, website, table
+ * and room); the majors, positions and work authorizations are loaded when
+ * first asked for.
  * 
  * @author Hannah Wilder 
  * @version 1.0
@@ -7,21 +10,20 @@
 package com.database;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class Company {
+	private int id = -1;
 	private String name = null;
 	private String website = null;
 	private String tableNum = null;
 	private String room = null;
 
-	private ArrayList<Major> majors;
-	private ArrayList<String> majorNames;
-	private ArrayList<String> majorAbbrevs;
-	private ArrayList<String> positions;
-	private ArrayList<String> workAuths;
-
-	private HashMap<String, String> majorHashMap;
+	// Set for companies built with their details, otherwise they are read
+	// from the details cache when needed
+	private CompanyDetails details;
+	private CompanyDetailsCache detailsCache;
 
 	/**
 	 * Company constructor
@@ -48,79 +50,120 @@ public class Company {
 		website = aWebsite;
 		tableNum = aTableNum;
 		room = aRoom;
+		details = new CompanyDetails(aMajors, aPositions, aWorkAuths);
+	}
 
-		majors = aMajors;
-		majorNames = new ArrayList<String>();
-		majorAbbrevs = new ArrayList<String>();
-		for (Major major : majors) {
-			majorNames.add(major.getName());
-			majorAbbrevs.add(major.getAbbrev());
-		}
-		positions = aPositions;
-		workAuths = aWorkAuths;
+	/**
+	 * Company constructor for a company header, the details are loaded from
+	 * the cache when first asked for
+	 * 
+	 * @param aId
+	 *            - the company._id of the company
+	 * @param aName
+	 *            - the name of the company
+	 * @param aWebsite
+	 *            - the name of the website
+	 * @param aTableNum
+	 *            - the number of the table (in a string)
+	 * @param aRoom
+	 *            - the room name (hall/multipurpose/wood)
+	 * @param aDetailsCache
+	 *            - the cache to read the details from
+	 */
+	Company(int aId, String aName, String aWebsite, String aTableNum,
+			String aRoom, CompanyDetailsCache aDetailsCache) {
+		id = aId;
+		name = aName;
+		website = aWebsite;
+		tableNum = aTableNum;
+		room = aRoom;
+		detailsCache = aDetailsCache;
+	}
 
-		// key = full name value = abbreviation
-		majorHashMap = new HashMap<String, String>();
-		for (Major major : majors) {
-			majorHashMap.put(major.getName(), major.getAbbrev());
+	/**
+	 * getDetails
+	 * 
+	 * @return the majors, positions and work authorizations of the company,
+	 *         loading them if needed
+	 */
+	public CompanyDetails getDetails() {
+		if (details != null) {
+			return details;
 		}
+		return detailsCache.get(id);
 	}
 
-	
+	/**
+	 * hasDetails
+	 * 
+	 * @return true if getDetails returns without reading the database
+	 */
+	public boolean hasDetails() {
+		return details != null || detailsCache.isCached(id);
+	}
 
 	/**
 	 * getMajors
 	 * 
-	 * @return returns a copy the ArrayList of majors
+	 * @return a read only view of the majors
 	 */
-	public ArrayList<Major> getMajors() {
-		return (ArrayList<Major>) majors.clone();
+	public List<Major> getMajors() {
+		return getDetails().getMajors();
 	}
 
 	/**
 	 * getMajorNames
 	 * 
-	 * @return returns a copy the ArrayList of major names
+	 * @return a read only view of the major names
 	 */
-	public ArrayList<String> getMajorNames() {
-		return (ArrayList<String>) majorNames.clone();
+	public List<String> getMajorNames() {
+		return getDetails().getMajorNames();
 	}
 
 	/**
 	 * getMajorAbbrevs
 	 * 
-	 * @return returns a copy the ArrayList of major abbrevs
+	 * @return a read only view of the major abbrevs
 	 */
-	public ArrayList<String> getMajorAbbrevs() {
-		return (ArrayList<String>) majorAbbrevs.clone();
+	public List<String> getMajorAbbrevs() {
+		return getDetails().getMajorAbbrevs();
 	}
 
 	/**
 	 * getMajorHashMap
 	 * 
-	 * @return a copy of the major hash map (keyed with full name as per
-	 *         request)
+	 * @return a read only map of the major names to their abbreviations
 	 */
-	public HashMap<String, String> getMajorHashMap() {
-		return (HashMap<String, String>) majorHashMap.clone();
+	public Map<String, String> getMajorHashMap() {
+		return getDetails().getMajorHashMap();
 	}
 
 	/**
 	 * getPositions
 	 * 
-	 * @return returns a copy of the ArrayList of positions
+	 * @return a read only view of the positions
 	 */
-	public ArrayList<String> getPositions() {
-		return (ArrayList<String>) positions.clone();
+	public List<String> getPositions() {
+		return getDetails().getPositions();
 	}
 
 	/**
 	 * getWorkAuth
 	 * 
-	 * @return returns a copy of the ArrayList of work authorizations
+	 * @return a read only view of the work authorizations
+	 */
+	public List<String> getWorkAuth() {
+		return getDetails().getWorkAuths();
+	}
+
+	/**
+	 * getId
+	 * 
+	 * @return the company._id of the company, -1 if it was not read from the
+	 *         database
 	 */
-	public ArrayList<String> getWorkAuth() {
-		return (ArrayList<String>) workAuths.clone();
+	public int getId() {
+		return id;
 	}
 
 	/**
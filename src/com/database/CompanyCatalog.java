@@ -0,0 +1,499 @@
+/**
+ * This class holds every company in the career fair in memory. It is loaded
+ * from careerFairDB.db, or a snapshot of it, when the app starts and
+ * replaced only when a change-set updates the database, so the company
+ * list, the map views and the filters can all be answered without going
+ * back to SQLite.
+ *
+ * Each company row has a dense id, its position in getCompanies (ordered by
+ * name, case insensitive, ignoring "The ", spaces and periods).
+ *
+ * The catalog is immutable once loaded and may be read from any thread. Only
+ * the company headers are kept, the details of a company are loaded through
+ * the details cache when it is opened.
+ *
+ * On later launches the catalog can be read from a CatalogSnapshot before
+ * the database is opened. Its details cache then has no database, and
+ * reading details fails until the database is attached, the first time the
+ * catalog is asked for with it.
+ *
+ * A ChangeSet applied through DbAccess replaces the catalog with one
+ * reloaded from the changed database; catalogs already handed out keep
+ * the companies they were built with.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+public final class CompanyCatalog {
+
+	private static volatile CompanyCatalog catalog;
+
+	// Stamp of the snapshot the catalog was read from, NO_SNAPSHOT if it was
+	// loaded from the database
+	private static final long NO_SNAPSHOT = Long.MIN_VALUE;
+	private final long snapshotStamp;
+
+	private final List<Company> companies;
+	private final FilterEngine filterEngine;
+	private final CompanyDetailsCache detailsCache;
+	private final RelationIndex majorIndex;
+	private final RelationIndex positionIndex;
+	private final RelationIndex workAuthIndex;
+	private final RelationIndex industryIndex;
+	// The indexes with the keys they are filtered by
+	private final KeyedRelation majorRelation;
+	private final KeyedRelation positionRelation;
+	private final KeyedRelation workAuthRelation;
+	private final KeyedRelation industryRelation;
+	private final CompanyRanker ranker;
+	private final List<String> companyNames;
+	private final List<Major> majorsByAbbrev;
+	private final List<Major> majorsByName;
+	private final List<String> workAuths;
+	private final List<String> positions;
+	private final List<String> industries;
+
+	// name -> dense id of the first row with that name
+	private final HashMap<String, Integer> idsByName = new HashMap<String, Integer>();
+	// company._id -> dense ids of its rows (one per location)
+	private final HashMap<Integer, int[]> idsByCompanyId = new HashMap<Integer, int[]>();
+	// room name -> (table number -> dense id)
+	private final BoothIndex booths;
+	// lower case names, used by search
+	private final String[] searchNames;
+
+	/**
+	 * get - returns the catalog, loading it from the database the first time
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the process wide catalog
+	 */
+	public static CompanyCatalog get(SQLiteDatabase database) {
+		CompanyCatalog loaded = catalog;
+		if (loaded == null) {
+			synchronized (CompanyCatalog.class) {
+				loaded = catalog;
+				if (loaded == null) {
+					loaded = new CompanyCatalog(CompanyLoader.load(database),
+							NO_SNAPSHOT);
+					catalog = loaded;
+				}
+			}
+		}
+		if (database != null && !loaded.detailsCache.isAttached()) {
+			loaded.detailsCache.attach(database);
+		}
+		return loaded;
+	}
+
+	/**
+	 * load - reads the catalog from a snapshot if none is loaded yet, without
+	 * opening the database
+	 *
+	 * @param snapshot
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - CatalogSnapshot.stamp of the installed database
+	 * @return true if a catalog is loaded, false if there was none and the
+	 *         snapshot is missing, damaged or stale
+	 */
+	public static boolean load(File snapshot, long stamp) {
+		synchronized (CompanyCatalog.class) {
+			if (catalog == null) {
+				CompanyLoader loader = CatalogSnapshot.read(snapshot, stamp);
+				if (loader != null) {
+					catalog = new CompanyCatalog(loader, stamp);
+				}
+			}
+			return catalog != null;
+		}
+	}
+
+	/**
+	 * open - gets the catalog once the database is open, loading it from the
+	 * database and saving a snapshot if there is no catalog or it was read
+	 * from a snapshot of another version of the database
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @param snapshot
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - CatalogSnapshot.stamp of the opened database
+	 * @return true if the catalog was (re)loaded from the database, so
+	 *         results of an earlier catalog are stale
+	 */
+	public static boolean open(SQLiteDatabase database, File snapshot,
+			long stamp) {
+		synchronized (CompanyCatalog.class) {
+			CompanyCatalog loaded = catalog;
+			if (loaded != null && (loaded.snapshotStamp == NO_SNAPSHOT
+					|| loaded.snapshotStamp == stamp)) {
+				get(database);
+				return false;
+			}
+			if (loaded != null) {
+				// Companies from the stale list (and fragments showing them)
+				// still read their details through the old cache
+				loaded.detailsCache.attach(database);
+			}
+			// Hydration alone, without installing and opening the database.
+			// The by-id CompanyLoader has only been timed on desktop, this
+			// line is where to compare it with the old loader on a device
+			long start = System.currentTimeMillis();
+			CompanyLoader loader = CompanyLoader.load(database);
+			Log.i(CompanyCatalog.class.toString(), "Companies hydrated in "
+					+ (System.currentTimeMillis() - start) + " ms");
+			try {
+				CatalogSnapshot.write(loader, snapshot, stamp);
+			} catch (IOException e) {
+				Log.w(CompanyCatalog.class.toString(), "Could not save "
+						+ snapshot, e);
+			}
+			catalog = new CompanyCatalog(loader, NO_SNAPSHOT);
+			return loaded != null;
+		}
+	}
+
+	/**
+	 * reload - loads the catalog from the database again, after the
+	 * database was changed by a ChangeSet
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the reloaded catalog
+	 */
+	public static CompanyCatalog reload(SQLiteDatabase database) {
+		synchronized (CompanyCatalog.class) {
+			if (catalog != null) {
+				catalog.detailsCache.attach(database);
+			}
+			// The stamp of the changed database no longer matches the
+			// snapshot, it is saved again on the next launch
+			catalog = new CompanyCatalog(CompanyLoader.load(database),
+					NO_SNAPSHOT);
+			return get(database);
+		}
+	}
+
+	private CompanyCatalog(CompanyLoader loader, long aSnapshotStamp) {
+		snapshotStamp = aSnapshotStamp;
+		companies = Collections.unmodifiableList(loader.getCompanies());
+		filterEngine = loader.getFilterEngine();
+		detailsCache = loader.getDetailsCache();
+		majorIndex = loader.getMajorIndex();
+		positionIndex = loader.getPositionIndex();
+		workAuthIndex = loader.getWorkAuthIndex();
+		industryIndex = loader.getIndustryIndex();
+		// Majors are filtered and counted by abbreviation
+		int[] majorKeys = new int[majorIndex.getValueCount()];
+		for (short major = 0; major < majorKeys.length; major++) {
+			majorKeys[major] = StringTable.MAJOR_ABBREVS.getId(MajorRegistry
+					.getMajor(major).getAbbrev());
+		}
+		majorRelation = new KeyedRelation(majorIndex, majorKeys,
+				StringTable.MAJOR_ABBREVS, FilterEngine.ALL_MAJORS);
+		positionRelation = new KeyedRelation(positionIndex,
+				identity(positionIndex.getValueCount()), StringTable.POSITIONS,
+				FilterEngine.BLANK);
+		workAuthRelation = new KeyedRelation(workAuthIndex,
+				identity(workAuthIndex.getValueCount()), StringTable.WORK_AUTHS,
+				FilterEngine.BLANK);
+		// Untagged companies are missing an industry and match any selection
+		industryRelation = new KeyedRelation(industryIndex,
+				identity(industryIndex.getValueCount()), StringTable.INDUSTRIES,
+				FilterEngine.BLANK, true);
+		ranker = new CompanyRanker(filterEngine, majorRelation,
+				workAuthRelation, positionRelation, industryRelation);
+		companyNames = Collections.unmodifiableList(loader.getCompanyNames());
+		majorsByAbbrev = Collections.unmodifiableList(loader.getAllMajors());
+		workAuths = Collections.unmodifiableList(loader.getAllWorkAuths());
+		positions = Collections.unmodifiableList(loader.getAllPositions());
+		industries = Collections.unmodifiableList(loader.getAllIndustries());
+
+		ArrayList<Major> sorted = new ArrayList<Major>(majorsByAbbrev);
+		Collections.sort(sorted, new Comparator<Major>() {
+			@Override
+			public int compare(Major lhs, Major rhs) {
+				return lhs.getName().compareTo(rhs.getName());
+			}
+		});
+		majorsByName = Collections.unmodifiableList(sorted);
+
+		booths = new BoothIndex(companies);
+		searchNames = new String[companies.size()];
+		for (int id = 0; id < companies.size(); id++) {
+			Company company = companies.get(id);
+			if (!idsByName.containsKey(company.getName())) {
+				idsByName.put(company.getName(), id);
+			}
+			searchNames[id] = company.getName().toLowerCase(Locale.US);
+
+			Integer companyId = loader.getCompanyIds().get(id);
+			int[] ids = idsByCompanyId.get(companyId);
+			if (ids == null) {
+				ids = new int[0];
+			}
+			ids = Arrays.copyOf(ids, ids.length + 1);
+			ids[ids.length - 1] = id;
+			idsByCompanyId.put(companyId, ids);
+		}
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @return every company row, in display order (read only)
+	 */
+	public List<Company> getCompanies() {
+		return companies;
+	}
+
+	/**
+	 * getCompany
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @return the company with that id
+	 */
+	public Company getCompany(int id) {
+		return companies.get(id);
+	}
+
+	/**
+	 * getCompanyNamed
+	 *
+	 * @param name
+	 *            - the name of the company
+	 * @return the first company with that name, or null if there is none
+	 */
+	public Company getCompanyNamed(String name) {
+		Integer id = idsByName.get(name);
+		return (id == null) ? null : companies.get(id);
+	}
+
+	/**
+	 * getIdsForCompany
+	 *
+	 * @param companyId
+	 *            - the company._id of the company
+	 * @return the dense ids of the company's rows, empty if there are none
+	 */
+	public int[] getIdsForCompany(int companyId) {
+		int[] ids = idsByCompanyId.get(companyId);
+		return (ids == null) ? new int[0] : ids.clone();
+	}
+
+	/**
+	 * getBooths
+	 *
+	 * @return the companies of every room by table number
+	 */
+	public BoothIndex getBooths() {
+		return booths;
+	}
+
+	/**
+	 * search - finds the companies whose name contains a string, ignoring
+	 * case. Used when the database has no search index (see SearchIndex)
+	 *
+	 * @param filterName
+	 *            - the string to look for, "" matches every company
+	 * @return the matching companies in display order
+	 */
+	public ArrayList<Company> search(String filterName) {
+		String term = filterName.toLowerCase(Locale.US);
+		ArrayList<Company> results = new ArrayList<Company>();
+		for (int id = 0; id < searchNames.length; id++) {
+			if (searchNames[id].contains(term)) {
+				results.add(companies.get(id));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * getFilterEngine
+	 *
+	 * @return the filter engine over the dense ids of this catalog
+	 */
+	public FilterEngine getFilterEngine() {
+		return filterEngine;
+	}
+
+	/**
+	 * getMajorIndex
+	 *
+	 * @return the companies of each major (by MajorRegistry id) and the
+	 *         majors of each company (by dense id)
+	 */
+	public RelationIndex getMajorIndex() {
+		return majorIndex;
+	}
+
+	/**
+	 * getPositionIndex
+	 *
+	 * @return the companies of each position (by StringTable.POSITIONS id)
+	 *         and the positions of each company (by dense id)
+	 */
+	public RelationIndex getPositionIndex() {
+		return positionIndex;
+	}
+
+	/**
+	 * getWorkAuthIndex
+	 *
+	 * @return the companies of each work authorization (by
+	 *         StringTable.WORK_AUTHS id) and the work authorizations of each
+	 *         company (by dense id)
+	 */
+	public RelationIndex getWorkAuthIndex() {
+		return workAuthIndex;
+	}
+
+	/**
+	 * getIndustryIndex
+	 *
+	 * @return the companies of each industry (by StringTable.INDUSTRIES id)
+	 *         and the industries of each company (by dense id)
+	 */
+	public RelationIndex getIndustryIndex() {
+		return industryIndex;
+	}
+
+	/**
+	 * getFacetCounts - counts the companies each filter value would give,
+	 * given the values selected in the other categories
+	 *
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @param filterMajor
+	 *            - the selected major abbreviations
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected positions
+	 * @param filterIndustry
+	 *            - the selected industries
+	 * @return the count of every value
+	 */
+	public FacetCounts getFacetCounts(String filterRoom,
+			List<String> filterMajor, List<String> filterWorkAuth,
+			List<String> filterPosition, List<String> filterIndustry) {
+		return new FacetCounts(companies, filterRoom, new FacetCounts.Facet(
+				majorRelation, filterMajor), new FacetCounts.Facet(
+				workAuthRelation, filterWorkAuth), new FacetCounts.Facet(
+				positionRelation, filterPosition), new FacetCounts.Facet(
+				industryRelation, filterIndustry));
+	}
+
+	/**
+	 * newIncrementalFilter
+	 *
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @return a new filter of the room's companies, with nothing selected
+	 */
+	public IncrementalFilter newIncrementalFilter(String filterRoom) {
+		return new IncrementalFilter(filterEngine, filterRoom,
+				new IncrementalFilter.Category(majorRelation),
+				new IncrementalFilter.Category(workAuthRelation),
+				new IncrementalFilter.Category(positionRelation),
+				new IncrementalFilter.Category(industryRelation));
+	}
+
+	/**
+	 * getRanker
+	 *
+	 * @return the ranker of the catalog's companies
+	 */
+	public CompanyRanker getRanker() {
+		return ranker;
+	}
+
+	/**
+	 * getDetailsCache
+	 *
+	 * @return the cache the companies of this catalog read their majors,
+	 *         positions and work authorizations from
+	 */
+	public CompanyDetailsCache getDetailsCache() {
+		return detailsCache;
+	}
+
+	/**
+	 * getCompanyNames
+	 *
+	 * @return the distinct company names, ordered case insensitive ignoring
+	 *         spaces and periods (read only)
+	 */
+	public List<String> getCompanyNames() {
+		return companyNames;
+	}
+
+	/**
+	 * getMajors
+	 *
+	 * @param orderByName
+	 *            - orders by name if true, else ordered by abbreviation
+	 * @return every major (read only)
+	 */
+	public List<Major> getMajors(boolean orderByName) {
+		return orderByName ? majorsByName : majorsByAbbrev;
+	}
+
+	/**
+	 * getWorkAuths
+	 *
+	 * @return every work authorization type, including blank (read only)
+	 */
+	public List<String> getWorkAuths() {
+		return workAuths;
+	}
+
+	/**
+	 * getPositions
+	 *
+	 * @return every position type, including blank (read only)
+	 */
+	public List<String> getPositions() {
+		return positions;
+	}
+
+	/**
+	 * getIndustries
+	 *
+	 * @return every industry tag in use, empty if no company is tagged (read
+	 *         only)
+	 */
+	public List<String> getIndustries() {
+		return industries;
+	}
+
+	private static int[] identity(int size) {
+		int[] keys = new int[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = i;
+		}
+		return keys;
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * This class stores the details of a company that are only needed when the
+ * company is opened: the majors, positions and work authorizations it is
+ * looking for. Company objects in the catalog only carry their header (id,
+ * name, website, table and room) and get their details from a
+ * CompanyDetailsCache.
+ *
+ * The details are kept as ids into the app wide MajorRegistry and
+ * StringTables, and the getters return read only views over them instead of
+ * copies.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CompanyDetails {
+
+	private final short[] majorIds;
+	private final int[] positionIds;
+	private final int[] workAuthIds;
+
+	// Built on first use, racing threads build equal maps
+	private volatile Map<String, String> majorHashMap;
+
+	/**
+	 * CompanyDetails constructor
+	 *
+	 * @param aMajors
+	 *            - the majors the company is looking for
+	 * @param aPositions
+	 *            - the positions the company is hiring
+	 * @param aWorkAuths
+	 *            - the work authorizations the company is looking for
+	 */
+	public CompanyDetails(List<Major> aMajors, List<String> aPositions,
+			List<String> aWorkAuths) {
+		majorIds = new short[aMajors.size()];
+		for (int i = 0; i < majorIds.length; i++) {
+			majorIds[i] = MajorRegistry.getId(aMajors.get(i));
+		}
+		positionIds = getIds(StringTable.POSITIONS, aPositions);
+		workAuthIds = getIds(StringTable.WORK_AUTHS, aWorkAuths);
+	}
+
+	/**
+	 * getMajors
+	 *
+	 * @return a read only view of the majors
+	 */
+	public List<Major> getMajors() {
+		return new AbstractList<Major>() {
+			@Override
+			public Major get(int index) {
+				return MajorRegistry.getMajor(majorIds[index]);
+			}
+
+			@Override
+			public int size() {
+				return majorIds.length;
+			}
+		};
+	}
+
+	/**
+	 * getMajorNames
+	 *
+	 * @return a read only view of the major names
+	 */
+	public List<String> getMajorNames() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return MajorRegistry.getMajor(majorIds[index]).getName();
+			}
+
+			@Override
+			public int size() {
+				return majorIds.length;
+			}
+		};
+	}
+
+	/**
+	 * getMajorAbbrevs
+	 *
+	 * @return a read only view of the major abbrevs
+	 */
+	public List<String> getMajorAbbrevs() {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return MajorRegistry.getMajor(majorIds[index]).getAbbrev();
+			}
+
+			@Override
+			public int size() {
+				return majorIds.length;
+			}
+		};
+	}
+
+	/**
+	 * getMajorHashMap
+	 *
+	 * @return a read only map of the major names to their abbreviations
+	 */
+	public Map<String, String> getMajorHashMap() {
+		Map<String, String> map = majorHashMap;
+		if (map == null) {
+			HashMap<String, String> names = new HashMap<String, String>();
+			for (short id : majorIds) {
+				Major major = MajorRegistry.getMajor(id);
+				names.put(major.getName(), major.getAbbrev());
+			}
+			map = Collections.unmodifiableMap(names);
+			majorHashMap = map;
+		}
+		return map;
+	}
+
+	/**
+	 * getPositions
+	 *
+	 * @return a read only view of the positions
+	 */
+	public List<String> getPositions() {
+		return view(StringTable.POSITIONS, positionIds);
+	}
+
+	/**
+	 * getWorkAuths
+	 *
+	 * @return a read only view of the work authorizations
+	 */
+	public List<String> getWorkAuths() {
+		return view(StringTable.WORK_AUTHS, workAuthIds);
+	}
+
+	private static int[] getIds(StringTable table, List<String> values) {
+		int[] ids = new int[values.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = table.getId(values.get(i));
+		}
+		return ids;
+	}
+
+	private static List<String> view(final StringTable table, final int[] ids) {
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return table.get(ids[index]);
+			}
+
+			@Override
+			public int size() {
+				return ids.length;
+			}
+		};
+	}
+}
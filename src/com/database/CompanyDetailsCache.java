@@ -0,0 +1,290 @@
+/**
+ * This class loads CompanyDetails on demand and keeps the most recently used
+ * ones. Details are read by company._id, one query per relation for any
+ * number of companies, so opening a company costs three indexed lookups and
+ * prefetching its neighbours costs the same three queries for all of them.
+ *
+ * The cache may be used from any thread; loads run outside the lock so a
+ * background prefetch does not hold up the UI thread. A load still runs SQL,
+ * so the UI thread should only call get for a company that isCached and load
+ * the others through AsyncDbAccess. A cache built from a catalog snapshot has
+ * no database until attach is called, loads made before then fail instead of
+ * waiting for it.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+public final class CompanyDetailsCache {
+
+	// Number of companies whose details are kept
+	public static final int CAPACITY = 64;
+	// Most company ids bound to one query, well under SQLite's limit of 999
+	public static final int MAX_BATCH = 100;
+	// Number of ids bound to a query, a batch is padded to the next size so
+	// each relation only has these few query plans
+	private static final int[] BATCH_SIZES = { 1, 8, 32, MAX_BATCH };
+
+	// Null until attached when loaded from a snapshot
+	private volatile SQLiteDatabase database;
+	// major._id -> the shared Major object
+	private final Map<Integer, Major> majorsById;
+
+	private final LinkedHashMap<Integer, CompanyDetails> details = new LinkedHashMap<Integer, CompanyDetails>(
+			CAPACITY, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Integer, CompanyDetails> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	/**
+	 * CompanyDetailsCache constructor
+	 *
+	 * @param aDatabase
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase, or null to attach it
+	 *            later
+	 * @param aMajorsById
+	 *            - every major, keyed by major._id
+	 */
+	CompanyDetailsCache(SQLiteDatabase aDatabase, Map<Integer, Major> aMajorsById) {
+		database = aDatabase;
+		majorsById = aMajorsById;
+	}
+
+	/**
+	 * attach - gives a cache built without a database the database to load
+	 * from
+	 *
+	 * @param aDatabase
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 */
+	synchronized void attach(SQLiteDatabase aDatabase) {
+		if (database == null) {
+			database = aDatabase;
+		}
+	}
+
+	/**
+	 * isAttached
+	 *
+	 * @return true if the cache has a database to load from
+	 */
+	boolean isAttached() {
+		return database != null;
+	}
+
+	/**
+	 * get - gets the details of a company, loading them if they are not kept
+	 *
+	 * @param companyId
+	 *            - the company._id of the company
+	 * @return the details (empty lists for an unknown company)
+	 * @throws IllegalStateException
+	 *             if they are not kept and no database is attached yet
+	 */
+	public CompanyDetails get(int companyId) {
+		CompanyDetails found = getCached(companyId);
+		if (found == null) {
+			found = load(Collections.singletonList(companyId)).get(companyId);
+		}
+		return found;
+	}
+
+	/**
+	 * prefetch - loads the details of the companies that are not kept yet
+	 *
+	 * @param companies
+	 *            - the companies about to be opened
+	 */
+	public void prefetch(Collection<Company> companies) {
+		LinkedHashSet<Integer> missing = new LinkedHashSet<Integer>();
+		synchronized (details) {
+			for (Company company : companies) {
+				if (!details.containsKey(company.getId())) {
+					missing.add(company.getId());
+				}
+			}
+		}
+		if (!missing.isEmpty()) {
+			load(missing);
+		}
+	}
+
+	/**
+	 * isCached
+	 *
+	 * @param companyId
+	 *            - the company._id of a company
+	 * @return true if the details of the company are kept
+	 */
+	public boolean isCached(int companyId) {
+		synchronized (details) {
+			return details.containsKey(companyId);
+		}
+	}
+
+	private CompanyDetails getCached(int companyId) {
+		synchronized (details) {
+			return details.get(companyId);
+		}
+	}
+
+	/**
+	 * Reads the details of the companies and keeps them, in the given order
+	 * so the last ones are kept longest
+	 */
+	private HashMap<Integer, CompanyDetails> load(Collection<Integer> companyIds) {
+		HashMap<Integer, ArrayList<Major>> majors = readMajors(companyIds);
+		HashMap<Integer, ArrayList<String>> positions = readTypes(
+				QueryPlans.POSITIONS, companyIds);
+		HashMap<Integer, ArrayList<String>> workAuths = readTypes(
+				QueryPlans.WORK_AUTHS, companyIds);
+
+		HashMap<Integer, CompanyDetails> loaded = new LinkedHashMap<Integer, CompanyDetails>();
+		for (Integer companyId : companyIds) {
+			loaded.put(companyId, new CompanyDetails(majors.get(companyId),
+					positions.get(companyId), workAuths.get(companyId)));
+		}
+		synchronized (details) {
+			details.putAll(loaded);
+		}
+		return loaded;
+	}
+
+	/**
+	 * Reads the majors of the companies, MAX_BATCH companies per query
+	 *
+	 * @return company._id -> majors, with an entry (maybe empty) for every
+	 *         requested company
+	 */
+	HashMap<Integer, ArrayList<Major>> readMajors(Collection<Integer> companyIds) {
+		HashMap<Integer, ArrayList<Major>> majors = newLists(companyIds);
+		SQLiteDatabase database = requireDatabase();
+		for (String[] args : batches(companyIds)) {
+			Cursor cursor = database.rawQuery(
+					QueryPlans.relationPlan(QueryPlans.MAJORS, args.length),
+					args);
+			for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor
+					.moveToNext()) {
+				Major major = majorsById.get(cursor.getInt(1));
+				if (major != null) {
+					majors.get(cursor.getInt(0)).add(major);
+				}
+			}
+			cursor.close();
+		}
+		return majors;
+	}
+
+	/**
+	 * Reads the positions (QueryPlans.POSITIONS) or work authorizations
+	 * (QueryPlans.WORK_AUTHS) of the companies, without the blank type,
+	 * MAX_BATCH companies per query. The values are the StringTable
+	 * instances.
+	 *
+	 * @return company._id -> types, with an entry (maybe empty) for every
+	 *         requested company
+	 */
+	HashMap<Integer, ArrayList<String>> readTypes(String relation,
+			Collection<Integer> companyIds) {
+		HashMap<Integer, ArrayList<String>> types = newLists(companyIds);
+		StringTable table = relation.equals(QueryPlans.POSITIONS) ? StringTable.POSITIONS
+				: StringTable.WORK_AUTHS;
+		SQLiteDatabase database = requireDatabase();
+		for (String[] args : batches(companyIds)) {
+			Cursor cursor = database.rawQuery(
+					QueryPlans.relationPlan(relation, args.length), args);
+			for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor
+					.moveToNext()) {
+				String type = cursor.getString(1);
+				if (!type.equals(FilterEngine.BLANK)) {
+					types.get(cursor.getInt(0)).add(table.intern(type));
+				}
+			}
+			cursor.close();
+		}
+		return types;
+	}
+
+	/**
+	 * @return the attached database
+	 * @throws IllegalStateException
+	 *             if the cache was built from a snapshot and the database is
+	 *             not open yet
+	 */
+	private SQLiteDatabase requireDatabase() {
+		SQLiteDatabase attached = database;
+		if (attached == null) {
+			throw new IllegalStateException(
+					"Company details read before the database was opened");
+		}
+		return attached;
+	}
+
+	/**
+	 * batchSize - gets the number of ids bound to a query reading the given
+	 * number of companies
+	 *
+	 * @param companies
+	 *            - between 1 and MAX_BATCH
+	 * @return the smallest of 1, 8, 32 and MAX_BATCH that holds them all
+	 */
+	public static int batchSize(int companies) {
+		for (int size : BATCH_SIZES) {
+			if (companies <= size) {
+				return size;
+			}
+		}
+		throw new IllegalArgumentException("More than " + MAX_BATCH
+				+ " companies in one batch");
+	}
+
+	/**
+	 * Splits the ids into batches of at most MAX_BATCH, padding the last one
+	 * to batchSize by repeating its last id. The queries select DISTINCT rows
+	 * so a repeated id does not repeat its rows.
+	 */
+	private static ArrayList<String[]> batches(Collection<Integer> companyIds) {
+		ArrayList<String[]> batches = new ArrayList<String[]>();
+		ArrayList<String> batch = new ArrayList<String>();
+		for (Integer companyId : companyIds) {
+			batch.add(companyId.toString());
+			if (batch.size() == MAX_BATCH) {
+				batches.add(batch.toArray(new String[batch.size()]));
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			String last = batch.get(batch.size() - 1);
+			for (int i = batch.size(); i < batchSize(batch.size()); i++) {
+				batch.add(last);
+			}
+			batches.add(batch.toArray(new String[batch.size()]));
+		}
+		return batches;
+	}
+
+	private static <T> HashMap<Integer, ArrayList<T>> newLists(
+			Collection<Integer> companyIds) {
+		HashMap<Integer, ArrayList<T>> lists = new LinkedHashMap<Integer, ArrayList<T>>();
+		for (Integer companyId : companyIds) {
+			lists.put(companyId, new ArrayList<T>());
+		}
+		return lists;
+	}
+}
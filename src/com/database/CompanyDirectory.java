@@ -0,0 +1,53 @@
+/**
+ * This class manages the companyDirectory table, a denormalized copy of the
+ * company/location/room join with one row per company location:
+ * companyID, name, sortKey, website, tableNum and room.
+ *
+ * sortKey is the display order key (the name in lower case without "The ",
+ * periods and spaces), computed once when the table is built. With the
+ * index on sortKey, company lists are read in order by walking the index
+ * instead of evaluating the key and sorting on every query.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+public final class CompanyDirectory {
+
+	public static final String TABLE = "companyDirectory";
+
+	// Display order key of company.name, as an SQL expression
+	public static final String SORT_KEY = "replace(replace(lower(replace(company.name, 'The ', '')), '.', ''), ' ', '')";
+
+	private CompanyDirectory() {
+	}
+
+	/**
+	 * create - builds (or rebuilds) the directory from the company, location
+	 * and room tables. Call it inside a transaction
+	 *
+	 * @param database
+	 *            - a writable SQLite database
+	 */
+	public static void create(SQLiteDatabase database) {
+		database.execSQL("DROP TABLE IF EXISTS " + TABLE + ";");
+		database.execSQL("CREATE TABLE "
+				+ TABLE
+				+ " (_id INTEGER PRIMARY KEY, companyID INTEGER NOT NULL, name TEXT NOT NULL, sortKey TEXT NOT NULL, website TEXT, tableNum INTEGER, room TEXT NOT NULL);");
+		// Inserted in display order so rows with the same key keep that order
+		database.execSQL("INSERT INTO "
+				+ TABLE
+				+ " (companyID, name, sortKey, website, tableNum, room) SELECT DISTINCT company._id, company.name, "
+				+ SORT_KEY
+				+ ", company.website, location.tableNum, room.name FROM company, companyToLocation, location, room WHERE company._id=companyToLocation.companyID AND companyToLocation.locationID=location._id AND location.roomID=room._id ORDER BY "
+				+ SORT_KEY + ";");
+		database.execSQL("CREATE INDEX " + TABLE + "_sortKey ON " + TABLE
+				+ "(sortKey);");
+		database.execSQL("CREATE INDEX " + TABLE + "_room ON " + TABLE
+				+ "(room, sortKey);");
+		database.execSQL("CREATE INDEX " + TABLE + "_company ON " + TABLE
+				+ "(companyID);");
+	}
+}
@@ -0,0 +1,534 @@
+/**
+ * This class loads every company in the database in one go: a single pass
+ * over the companyDirectory listing plus one streaming query per relation
+ * (majors, positions, work authorizations, industries) keyed by
+ * company._id. The listing gives the Company headers, and the relations only
+ * fill the FilterEngine and the RelationIndexes; the majors, positions and
+ * work authorizations of a company are read by the CompanyDetailsCache when
+ * it is opened.
+ *
+ * A loader can also be read back from a CatalogSnapshot. The snapshot holds
+ * the same rows and relations in display order, and reading it replays them
+ * into the FilterEngine and the RelationIndexes without opening SQLite.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+public class CompanyLoader {
+
+	private final ArrayList<Company> companies = new ArrayList<Company>();
+	private final FilterEngine filterEngine;
+	private final RelationIndex majorIndex;
+	private final RelationIndex positionIndex;
+	private final RelationIndex workAuthIndex;
+	private final RelationIndex industryIndex;
+	private final CompanyDetailsCache detailsCache;
+	private final ArrayList<String> companyNames = new ArrayList<String>();
+	private final ArrayList<Major> allMajors = new ArrayList<Major>();
+	// major._id of each major in allMajors
+	private final ArrayList<Integer> majorIds = new ArrayList<Integer>();
+	private final ArrayList<String> allWorkAuths = new ArrayList<String>();
+	private final ArrayList<String> allPositions = new ArrayList<String>();
+	private final ArrayList<String> allIndustries = new ArrayList<String>();
+	// dense id -> company._id
+	private final ArrayList<Integer> companyIds = new ArrayList<Integer>();
+
+	// company._id -> dense ids of its rows (one per location)
+	private final HashMap<Integer, ArrayList<Integer>> rowIds = new HashMap<Integer, ArrayList<Integer>>();
+
+	/**
+	 * load - reads all the companies and their relations from the database
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the loaded companies
+	 */
+	public static CompanyLoader load(SQLiteDatabase database) {
+		return new CompanyLoader(database);
+	}
+
+	private CompanyLoader(SQLiteDatabase database) {
+		// One Major object per major, shared app wide (see MajorRegistry)
+		HashMap<Integer, Major> majorsById = new HashMap<Integer, Major>();
+		Cursor cursor = database.rawQuery(
+				"SELECT _id, name, abbreviation FROM major ORDER BY abbreviation;",
+				new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			Major major = MajorRegistry.intern(cursor.getString(1),
+					cursor.getString(2));
+			majorsById.put(cursor.getInt(0), major);
+			allMajors.add(major);
+			majorIds.add(cursor.getInt(0));
+		}
+		cursor.close();
+		detailsCache = new CompanyDetailsCache(database, majorsById);
+
+		cursor = database
+				.rawQuery(
+						"SELECT companyID, name, website, tableNum, room FROM companyDirectory ORDER BY sortKey;",
+						new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			int companyId = cursor.getInt(0);
+			ArrayList<Integer> ids = rowIds.get(companyId);
+			if (ids == null) {
+				ids = new ArrayList<Integer>();
+				rowIds.put(companyId, ids);
+			}
+			ids.add(companies.size());
+			companyIds.add(companyId);
+			companies.add(new Company(companyId, cursor.getString(1), cursor
+					.getString(2), cursor.getString(3), cursor.getString(4),
+					detailsCache));
+		}
+		cursor.close();
+		fillCompanyNames();
+
+		cursor = database.rawQuery(
+				"SELECT type FROM workAuth ORDER BY type;", new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			allWorkAuths.add(StringTable.WORK_AUTHS.intern(cursor.getString(0)));
+		}
+		cursor.close();
+
+		cursor = database.rawQuery(
+				"SELECT type FROM employmentType ORDER BY type;", new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			allPositions.add(StringTable.POSITIONS.intern(cursor.getString(0)));
+		}
+		cursor.close();
+
+		// Industries have no table of their own, only the tags in use
+		cursor = database.rawQuery(
+				"SELECT DISTINCT tag FROM industryTag ORDER BY tag;",
+				new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			allIndustries.add(StringTable.INDUSTRIES.intern(cursor.getString(0)));
+		}
+		cursor.close();
+
+		// The relations only go into the filter engine's bitsets and the
+		// relation indexes, the lists of each company are read by the details
+		// cache when it is opened
+		filterEngine = new FilterEngine(companies);
+		RelationIndex.Builder majorEdges = new RelationIndex.Builder();
+		RelationIndex.Builder positionEdges = new RelationIndex.Builder();
+		RelationIndex.Builder workAuthEdges = new RelationIndex.Builder();
+		RelationIndex.Builder industryEdges = new RelationIndex.Builder();
+		cursor = database.rawQuery(
+				"SELECT companyID, majorID FROM companyToMajor;", new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			Major major = majorsById.get(cursor.getInt(1));
+			ArrayList<Integer> ids = rowIds.get(cursor.getInt(0));
+			if (major != null && ids != null) {
+				for (int id : ids) {
+					addMajor(id, major, majorEdges);
+				}
+			}
+		}
+		cursor.close();
+
+		cursor = database
+				.rawQuery(
+						"SELECT companyToType.companyID, employmentType.type FROM companyToType, employmentType WHERE companyToType.typeID=employmentType._id;",
+						new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			ArrayList<Integer> ids = rowIds.get(cursor.getInt(0));
+			if (ids != null) {
+				for (int id : ids) {
+					addPosition(id, cursor.getString(1), positionEdges);
+				}
+			}
+		}
+		cursor.close();
+
+		cursor = database
+				.rawQuery(
+						"SELECT companyToWorkAuth.companyID, workAuth.type FROM companyToWorkAuth, workAuth WHERE companyToWorkAuth.workAuthID=workAuth._id;",
+						new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			ArrayList<Integer> ids = rowIds.get(cursor.getInt(0));
+			if (ids != null) {
+				for (int id : ids) {
+					addWorkAuth(id, cursor.getString(1), workAuthEdges);
+				}
+			}
+		}
+		cursor.close();
+
+		cursor = database.rawQuery("SELECT companyID, tag FROM industryTag;",
+				new String[0]);
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			ArrayList<Integer> ids = rowIds.get(cursor.getInt(0));
+			if (ids != null) {
+				for (int id : ids) {
+					addIndustry(id, cursor.getString(1), industryEdges);
+				}
+			}
+		}
+		cursor.close();
+
+		majorIndex = majorEdges.build(companies.size(), MajorRegistry.size());
+		positionIndex = positionEdges.build(companies.size(),
+				StringTable.POSITIONS.size());
+		workAuthIndex = workAuthEdges.build(companies.size(),
+				StringTable.WORK_AUTHS.size());
+		industryIndex = industryEdges.build(companies.size(),
+				StringTable.INDUSTRIES.size());
+	}
+
+	/**
+	 * Reads a loader back from the body of a snapshot written by write. The
+	 * details cache has no database until it is attached.
+	 *
+	 * @param in
+	 *            - the snapshot body, positioned after its header
+	 */
+	CompanyLoader(ByteBuffer in) {
+		HashMap<Integer, Major> majorsById = new HashMap<Integer, Major>();
+		int majorCount = in.getInt();
+		for (int i = 0; i < majorCount; i++) {
+			int majorId = in.getInt();
+			Major major = MajorRegistry.intern(CatalogSnapshot.readString(in),
+					CatalogSnapshot.readString(in));
+			majorsById.put(majorId, major);
+			allMajors.add(major);
+			majorIds.add(majorId);
+		}
+		detailsCache = new CompanyDetailsCache(null, majorsById);
+
+		int companyCount = in.getInt();
+		for (int id = 0; id < companyCount; id++) {
+			int companyId = in.getInt();
+			companyIds.add(companyId);
+			companies.add(new Company(companyId, CatalogSnapshot.readString(in),
+					CatalogSnapshot.readString(in), CatalogSnapshot
+							.readString(in), CatalogSnapshot.readString(in),
+					detailsCache));
+		}
+		fillCompanyNames();
+
+		readTable(in, StringTable.WORK_AUTHS, allWorkAuths);
+		readTable(in, StringTable.POSITIONS, allPositions);
+		readTable(in, StringTable.INDUSTRIES, allIndustries);
+
+		filterEngine = new FilterEngine(companies);
+		RelationIndex.Builder majorEdges = new RelationIndex.Builder();
+		Major[] majors = new Major[in.getInt()];
+		for (int value = 0; value < majors.length; value++) {
+			majors[value] = MajorRegistry.intern(CatalogSnapshot.readString(in),
+					CatalogSnapshot.readString(in));
+		}
+		for (int id = 0; id < companyCount; id++) {
+			for (int i = in.getInt(); i > 0; i--) {
+				addMajor(id, majors[in.getInt()], majorEdges);
+			}
+		}
+
+		RelationIndex.Builder positionEdges = new RelationIndex.Builder();
+		String[] values = readValues(in);
+		for (int id = 0; id < companyCount; id++) {
+			for (int i = in.getInt(); i > 0; i--) {
+				addPosition(id, values[in.getInt()], positionEdges);
+			}
+		}
+
+		RelationIndex.Builder workAuthEdges = new RelationIndex.Builder();
+		values = readValues(in);
+		for (int id = 0; id < companyCount; id++) {
+			for (int i = in.getInt(); i > 0; i--) {
+				addWorkAuth(id, values[in.getInt()], workAuthEdges);
+			}
+		}
+
+		RelationIndex.Builder industryEdges = new RelationIndex.Builder();
+		values = readValues(in);
+		for (int id = 0; id < companyCount; id++) {
+			for (int i = in.getInt(); i > 0; i--) {
+				addIndustry(id, values[in.getInt()], industryEdges);
+			}
+		}
+
+		majorIndex = majorEdges.build(companies.size(), MajorRegistry.size());
+		positionIndex = positionEdges.build(companies.size(),
+				StringTable.POSITIONS.size());
+		workAuthIndex = workAuthEdges.build(companies.size(),
+				StringTable.WORK_AUTHS.size());
+		industryIndex = industryEdges.build(companies.size(),
+				StringTable.INDUSTRIES.size());
+	}
+
+	/**
+	 * write - writes the rows and relations for the CompanyLoader(ByteBuffer)
+	 * constructor to read back
+	 *
+	 * @param out
+	 *            - the snapshot body
+	 * @throws IOException
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeInt(allMajors.size());
+		for (int i = 0; i < allMajors.size(); i++) {
+			out.writeInt(majorIds.get(i));
+			CatalogSnapshot.writeString(out, allMajors.get(i).getName());
+			CatalogSnapshot.writeString(out, allMajors.get(i).getAbbrev());
+		}
+
+		out.writeInt(companies.size());
+		for (int id = 0; id < companies.size(); id++) {
+			Company company = companies.get(id);
+			out.writeInt(companyIds.get(id));
+			CatalogSnapshot.writeString(out, company.getName());
+			CatalogSnapshot.writeString(out, company.getWebsite());
+			CatalogSnapshot.writeString(out, company.getTableNum());
+			CatalogSnapshot.writeString(out, company.getRoom());
+		}
+
+		writeTable(out, allWorkAuths);
+		writeTable(out, allPositions);
+		writeTable(out, allIndustries);
+
+		out.writeInt(majorIndex.getValueCount());
+		for (short value = 0; value < majorIndex.getValueCount(); value++) {
+			Major major = MajorRegistry.getMajor(value);
+			CatalogSnapshot.writeString(out, major.getName());
+			CatalogSnapshot.writeString(out, major.getAbbrev());
+		}
+		writeRows(out, majorIndex);
+		writeValues(out, StringTable.POSITIONS, positionIndex);
+		writeRows(out, positionIndex);
+		writeValues(out, StringTable.WORK_AUTHS, workAuthIndex);
+		writeRows(out, workAuthIndex);
+		writeValues(out, StringTable.INDUSTRIES, industryIndex);
+		writeRows(out, industryIndex);
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @return every company, ordered by name (case insensitive, ignoring
+	 *         "The ", spaces and periods)
+	 */
+	public ArrayList<Company> getCompanies() {
+		return companies;
+	}
+
+	/**
+	 * getCompanyIds
+	 *
+	 * @return the company._id of each company returned by getCompanies
+	 */
+	public ArrayList<Integer> getCompanyIds() {
+		return companyIds;
+	}
+
+	/**
+	 * getMajorIndex
+	 *
+	 * @return companies (dense ids) to majors (MajorRegistry ids) and back
+	 */
+	public RelationIndex getMajorIndex() {
+		return majorIndex;
+	}
+
+	/**
+	 * getPositionIndex
+	 *
+	 * @return companies (dense ids) to positions (StringTable.POSITIONS ids)
+	 *         and back
+	 */
+	public RelationIndex getPositionIndex() {
+		return positionIndex;
+	}
+
+	/**
+	 * getWorkAuthIndex
+	 *
+	 * @return companies (dense ids) to work authorizations
+	 *         (StringTable.WORK_AUTHS ids) and back
+	 */
+	public RelationIndex getWorkAuthIndex() {
+		return workAuthIndex;
+	}
+
+	/**
+	 * getIndustryIndex
+	 *
+	 * @return companies (dense ids) to industries (StringTable.INDUSTRIES
+	 *         ids) and back
+	 */
+	public RelationIndex getIndustryIndex() {
+		return industryIndex;
+	}
+
+	/**
+	 * getDetailsCache
+	 *
+	 * @return the cache the companies read their details from
+	 */
+	public CompanyDetailsCache getDetailsCache() {
+		return detailsCache;
+	}
+
+	/**
+	 * getFilterEngine
+	 *
+	 * @return a filter engine over the companies returned by getCompanies
+	 */
+	public FilterEngine getFilterEngine() {
+		return filterEngine;
+	}
+
+	/**
+	 * getCompanyNames
+	 * 
+	 * @return the distinct company names, ordered case insensitive ignoring
+	 *         spaces and periods
+	 */
+	public ArrayList<String> getCompanyNames() {
+		return companyNames;
+	}
+
+	/**
+	 * getAllMajors
+	 * 
+	 * @return every major in the major table, ordered by abbreviation
+	 */
+	public ArrayList<Major> getAllMajors() {
+		return allMajors;
+	}
+
+	/**
+	 * getAllWorkAuths
+	 * 
+	 * @return every work authorization type (including blank), ordered by type
+	 */
+	public ArrayList<String> getAllWorkAuths() {
+		return allWorkAuths;
+	}
+
+	/**
+	 * getAllPositions
+	 * 
+	 * @return every position type (including blank), ordered by type
+	 */
+	public ArrayList<String> getAllPositions() {
+		return allPositions;
+	}
+
+	/**
+	 * getAllIndustries
+	 * 
+	 * @return every industry tag in use, ordered by tag
+	 */
+	public ArrayList<String> getAllIndustries() {
+		return allIndustries;
+	}
+
+	private void addMajor(int id, Major major, RelationIndex.Builder edges) {
+		filterEngine.addMajor(id, major.getAbbrev());
+		edges.add(id, MajorRegistry.getId(major));
+	}
+
+	private void addPosition(int id, String position,
+			RelationIndex.Builder edges) {
+		filterEngine.addPosition(id, position);
+		edges.add(id, StringTable.POSITIONS.getId(position));
+	}
+
+	private void addWorkAuth(int id, String workAuth,
+			RelationIndex.Builder edges) {
+		filterEngine.addWorkAuth(id, workAuth);
+		edges.add(id, StringTable.WORK_AUTHS.getId(workAuth));
+	}
+
+	private void addIndustry(int id, String industry,
+			RelationIndex.Builder edges) {
+		filterEngine.addIndustry(id, industry);
+		edges.add(id, StringTable.INDUSTRIES.getId(industry));
+	}
+
+	private static void writeTable(DataOutputStream out, ArrayList<String> table)
+			throws IOException {
+		out.writeInt(table.size());
+		for (String value : table) {
+			CatalogSnapshot.writeString(out, value);
+		}
+	}
+
+	private static void readTable(ByteBuffer in, StringTable strings,
+			ArrayList<String> table) {
+		for (int i = in.getInt(); i > 0; i--) {
+			table.add(strings.intern(CatalogSnapshot.readString(in)));
+		}
+	}
+
+	/**
+	 * Writes the strings of the ids an index was built for, the ids of a
+	 * StringTable are not the same in the next process
+	 */
+	private static void writeValues(DataOutputStream out, StringTable strings,
+			RelationIndex index) throws IOException {
+		out.writeInt(index.getValueCount());
+		for (int value = 0; value < index.getValueCount(); value++) {
+			CatalogSnapshot.writeString(out, strings.get(value));
+		}
+	}
+
+	private static String[] readValues(ByteBuffer in) {
+		String[] values = new String[in.getInt()];
+		for (int value = 0; value < values.length; value++) {
+			values[value] = CatalogSnapshot.readString(in);
+		}
+		return values;
+	}
+
+	/**
+	 * Writes the values of each company, as a count and then the value ids
+	 */
+	private void writeRows(DataOutputStream out, RelationIndex index)
+			throws IOException {
+		for (int id = 0; id < companies.size(); id++) {
+			int end = index.valuesEnd(id);
+			out.writeInt(end - index.valuesStart(id));
+			for (int i = index.valuesStart(id); i < end; i++) {
+				out.writeInt(index.valueAt(i));
+			}
+		}
+	}
+
+	/**
+	 * Fills the distinct company names, ordered by name in lower case without
+	 * periods and spaces
+	 */
+	private void fillCompanyNames() {
+		final HashMap<String, String> keys = new HashMap<String, String>();
+		for (Company company : companies) {
+			String name = company.getName();
+			if (!keys.containsKey(name)) {
+				keys.put(name, name.toLowerCase(Locale.US).replace(".", "")
+						.replace(" ", ""));
+				companyNames.add(name);
+			}
+		}
+		Collections.sort(companyNames, new Comparator<String>() {
+			@Override
+			public int compare(String lhs, String rhs) {
+				return keys.get(lhs).compareTo(keys.get(rhs));
+			}
+		});
+	}
+}
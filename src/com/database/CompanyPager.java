@@ -0,0 +1,256 @@
+/**
+ * This class gives positional access to a set of companies without building
+ * a list of all of them. The companies are identified by their dense ids
+ * (see CompanyCatalog) in a BitSet, and positions are resolved a page at a
+ * time with keyset pagination: page n starts at the first id after the last
+ * id of page n - 1, so reaching a page only walks the ids in between.
+ *
+ * Only the last MAX_PAGES pages are kept, older pages are read again from
+ * the BitSet when needed. A pager can also list an array of ids in its own
+ * order (a ranking), its pages are then slices of the array. A pager is meant to be used from one thread (the UI
+ * thread of the list showing it).
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class CompanyPager {
+
+	// Number of companies per page
+	public static final int PAGE_SIZE = 50;
+	// Number of pages kept
+	public static final int MAX_PAGES = 4;
+
+	private final FilterEngine engine;
+	private final BitSet ids;
+	// The ids in listed order, or null to list ids in display order
+	private final int[] order;
+	private final int size;
+
+	// page -> the id the page starts after (-1 for the first page)
+	private final ArrayList<Integer> pageKeys = new ArrayList<Integer>();
+
+	private final LinkedHashMap<Integer, int[]> pages = new LinkedHashMap<Integer, int[]>(
+			MAX_PAGES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+			return size() > MAX_PAGES;
+		}
+	};
+
+	/**
+	 * CompanyPager constructor
+	 *
+	 * @param aEngine
+	 *            - the engine the ids refer to
+	 * @param aIds
+	 *            - the dense ids of the companies, never changed by the pager
+	 */
+	public CompanyPager(FilterEngine aEngine, BitSet aIds) {
+		engine = aEngine;
+		ids = aIds;
+		order = null;
+		size = ids.cardinality();
+		pageKeys.add(-1);
+	}
+
+	/**
+	 * CompanyPager constructor
+	 *
+	 * @param aEngine
+	 *            - the engine the ids refer to
+	 * @param aOrder
+	 *            - the dense ids of the companies in the order to list them,
+	 *            never changed by the pager
+	 */
+	public CompanyPager(FilterEngine aEngine, int[] aOrder) {
+		engine = aEngine;
+		ids = null;
+		order = aOrder;
+		size = order.length;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of companies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * getId
+	 *
+	 * @param position
+	 *            - the position of a company, from 0 to size() - 1
+	 * @return the dense id of the company at that position
+	 */
+	public int getId(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("Position " + position
+					+ ", size " + size);
+		}
+		if (order != null) {
+			return order[position];
+		}
+		return getPage(position / PAGE_SIZE)[position % PAGE_SIZE];
+	}
+
+	/**
+	 * getCompany
+	 *
+	 * @param position
+	 *            - the position of a company, from 0 to size() - 1
+	 * @return the company at that position
+	 */
+	public Company getCompany(int position) {
+		return engine.getCompany(getId(position));
+	}
+
+	/**
+	 * getName
+	 *
+	 * @param position
+	 *            - the position of a company, from 0 to size() - 1
+	 * @return the name of the company at that position
+	 */
+	public String getName(int position) {
+		return getCompany(position).getName();
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @param from
+	 *            - the first position, clamped to 0
+	 * @param to
+	 *            - the position after the last one, clamped to size()
+	 * @return the companies between the two positions
+	 */
+	public ArrayList<Company> getCompanies(int from, int to) {
+		ArrayList<Company> companies = new ArrayList<Company>();
+		for (int position = Math.max(from, 0); position < Math.min(to, size); position++) {
+			companies.add(getCompany(position));
+		}
+		return companies;
+	}
+
+	/**
+	 * getPositionForInitial - finds the first company listed under a letter
+	 * of the alphabet index
+	 *
+	 * @param initial
+	 *            - the start of the name, ignoring "The "
+	 * @return the position of the first company starting with initial, or -1
+	 *         if there is none
+	 */
+	public int getPositionForInitial(String initial) {
+		if (order != null) {
+			for (int position = 0; position < size; position++) {
+				if (getIndexName(getCompany(position)).startsWith(initial)) {
+					return position;
+				}
+			}
+			return -1;
+		}
+		int position = 0;
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			if (getIndexName(engine.getCompany(id)).startsWith(initial)) {
+				return position;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * getInitials
+	 *
+	 * @return the distinct first letters of the names (ignoring "The "), in
+	 *         the order they are listed
+	 */
+	public ArrayList<String> getInitials() {
+		ArrayList<String> initials = new ArrayList<String>();
+		if (order != null) {
+			for (int id : order) {
+				addInitial(initials, engine.getCompany(id));
+			}
+			return initials;
+		}
+		for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+			addInitial(initials, engine.getCompany(id));
+		}
+		return initials;
+	}
+
+	private static void addInitial(ArrayList<String> initials, Company company) {
+		String name = getIndexName(company);
+		if (name.length() > 0) {
+			String initial = name.substring(0, 1);
+			if (!initials.contains(initial)) {
+				initials.add(initial);
+			}
+		}
+	}
+
+	/**
+	 * getCachedPages
+	 *
+	 * @return the number of pages currently kept
+	 */
+	public int getCachedPages() {
+		return pages.size();
+	}
+
+	private int[] getPage(int page) {
+		int[] ids = pages.get(page);
+		if (ids == null) {
+			ids = readPage(getPageKey(page));
+			pages.put(page, ids);
+		}
+		return ids;
+	}
+
+	/**
+	 * Finds the key of a page, walking forward from the last known key
+	 */
+	private int getPageKey(int page) {
+		while (pageKeys.size() <= page) {
+			int id = pageKeys.get(pageKeys.size() - 1);
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				id = ids.nextSetBit(id + 1);
+			}
+			pageKeys.add(id);
+		}
+		return pageKeys.get(page);
+	}
+
+	private int[] readPage(int key) {
+		int[] page = new int[PAGE_SIZE];
+		int count = 0;
+		for (int id = ids.nextSetBit(key + 1); id >= 0 && count < PAGE_SIZE; id = ids
+				.nextSetBit(id + 1)) {
+			page[count++] = id;
+		}
+		if (count < PAGE_SIZE) {
+			int[] last = new int[count];
+			System.arraycopy(page, 0, last, 0, count);
+			page = last;
+		}
+		return page;
+	}
+
+	/**
+	 * The name as used by the alphabet index, without "The " and surrounding
+	 * spaces
+	 */
+	private static String getIndexName(Company company) {
+		return company.getName().replace("The ", "").trim();
+	}
+}
@@ -0,0 +1,204 @@
+/**
+ * This class ranks the companies of a room by how well they fit a selection
+ * of majors, work authorizations, positions and industries, as an
+ * alternative to the alphabetical "Matches" / "Other Possible Matches"
+ * lists. A company scores the weight of a category for every selected value
+ * of it that the company has, and once for the category's wildcard ("ALL"
+ * major, blank type, no industry tag).
+ *
+ * Scores are summed over the selected values' slices of the catalog's
+ * RelationIndexes, and the best companies are kept with a bounded min-heap
+ * of packed (score, id) longs instead of sorting every company. Ties are
+ * listed in display order.
+ *
+ * A ranker never changes once built and may be used from any thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+public final class CompanyRanker {
+
+	// Score of each selected value a company has, by category
+	public static final int MAJOR_WEIGHT = 3;
+	public static final int POSITION_WEIGHT = 2;
+	public static final int WORK_AUTH_WEIGHT = 1;
+	public static final int INDUSTRY_WEIGHT = 1;
+
+	private final FilterEngine engine;
+	private final KeyedRelation majors;
+	private final KeyedRelation workAuths;
+	private final KeyedRelation positions;
+	private final KeyedRelation industries;
+
+	/**
+	 * CompanyRanker constructor
+	 *
+	 * @param aEngine
+	 *            - the engine the ids refer to
+	 * @param aMajors
+	 *            - the major category, keyed by abbreviation
+	 * @param aWorkAuths
+	 *            - the work authorization category
+	 * @param aPositions
+	 *            - the position category
+	 * @param aIndustries
+	 *            - the industry category
+	 */
+	CompanyRanker(FilterEngine aEngine, KeyedRelation aMajors,
+			KeyedRelation aWorkAuths, KeyedRelation aPositions,
+			KeyedRelation aIndustries) {
+		engine = aEngine;
+		majors = aMajors;
+		workAuths = aWorkAuths;
+		positions = aPositions;
+		industries = aIndustries;
+	}
+
+	/**
+	 * rank - finds the best scoring companies
+	 *
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @param filterMajor
+	 *            - the selected major abbreviations
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected positions
+	 * @param filterIndustry
+	 *            - the selected industries
+	 * @param limit
+	 *            - the most companies to return
+	 * @return the best min(limit, companies in the room) companies, best
+	 *         first
+	 */
+	public RankedResult rank(String filterRoom, List<String> filterMajor,
+			List<String> filterWorkAuth, List<String> filterPosition,
+			List<String> filterIndustry, int limit) {
+		int[] scores = new int[engine.size()];
+		// Company that last scored for a key, so values sharing a key
+		// (majors with one abbreviation) score once
+		int[] scored = new int[engine.size()];
+		int[] serial = { 0 };
+		addScores(scores, scored, serial, majors, filterMajor, MAJOR_WEIGHT);
+		addScores(scores, scored, serial, workAuths, filterWorkAuth,
+				WORK_AUTH_WEIGHT);
+		addScores(scores, scored, serial, positions, filterPosition,
+				POSITION_WEIGHT);
+		addScores(scores, scored, serial, industries, filterIndustry,
+				INDUSTRY_WEIGHT);
+
+		List<String> none = Collections.emptyList();
+		BitSet room = engine.filter(filterRoom, none, none, none);
+
+		// Min-heap of the best keys so far, a larger key is a better company
+		long[] heap = new long[Math.max(Math.min(limit, room.cardinality()), 0)];
+		int size = 0;
+		for (int id = room.nextSetBit(0); id >= 0 && heap.length > 0; id = room
+				.nextSetBit(id + 1)) {
+			long key = pack(scores[id], id);
+			if (size < heap.length) {
+				heap[size] = key;
+				siftUp(heap, size++);
+			} else if (key > heap[0]) {
+				heap[0] = key;
+				siftDown(heap, size);
+			}
+		}
+
+		Arrays.sort(heap, 0, size);
+		int[] ids = new int[size];
+		int[] idScores = new int[size];
+		for (int i = 0; i < size; i++) {
+			long key = heap[size - 1 - i];
+			ids[i] = unpackId(key);
+			idScores[i] = scores[ids[i]];
+		}
+		return new RankedResult(engine, ids, idScores);
+	}
+
+	/**
+	 * Adds the weight of a category to the scores of the companies with each
+	 * selected value, and once to the companies with the wildcard
+	 */
+	private static void addScores(int[] scores, int[] scored, int[] serial,
+			KeyedRelation relation, List<String> values, int weight) {
+		if (values.isEmpty()) {
+			return;
+		}
+		BitSet wildcards = relation.getWildcards();
+		for (int id = wildcards.nextSetBit(0); id >= 0; id = wildcards
+				.nextSetBit(id + 1)) {
+			scores[id] += weight;
+		}
+
+		RelationIndex index = relation.getIndex();
+		boolean[] seen = new boolean[relation.getKeyCount()];
+		for (String value : values) {
+			int key = relation.findKey(value);
+			if (key < 0 || seen[key] || relation.isWildcard(key)) {
+				continue;
+			}
+			seen[key] = true;
+			serial[0]++;
+			for (int valueId : relation.getValues(key)) {
+				int end = index.companiesEnd(valueId);
+				for (int i = index.companiesStart(valueId); i < end; i++) {
+					int company = index.companyAt(i);
+					if (scored[company] != serial[0]) {
+						scored[company] = serial[0];
+						scores[company] += weight;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Packs a score and a dense id into one key, ordered by score and then by
+	 * lower id (display order) first
+	 */
+	private static long pack(int score, int id) {
+		return ((long) score << 32) | (Integer.MAX_VALUE - id);
+	}
+
+	private static int unpackId(long key) {
+		return Integer.MAX_VALUE - (int) (key & 0xFFFFFFFFL);
+	}
+
+	private static void siftUp(long[] heap, int i) {
+		long key = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (heap[parent] <= key) {
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = key;
+	}
+
+	private static void siftDown(long[] heap, int size) {
+		long key = heap[0];
+		int i = 0;
+		while (2 * i + 1 < size) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && heap[child + 1] < heap[child]) {
+				child++;
+			}
+			if (key <= heap[child]) {
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = key;
+	}
+}
@@ -0,0 +1,235 @@
+/**
+ * This class copies the pre-populated careerFairDB.db out of the assets and
+ * records what it installed, so later launches can tell the database is
+ * already installed and current without opening it.
+ *
+ * Next to the database it keeps a small stamp file with the version of the
+ * APK the database was installed from and the CRC32 of the asset. A launch
+ * with the same APK only reads the stamp. After an app update the asset is
+ * read once to compare its checksum: an unchanged asset keeps the installed
+ * (already migrated) database, a new one replaces it.
+ *
+ * The asset is copied to a temporary file, synced and then renamed over the
+ * database, so an interrupted copy never leaves a partial database behind.
+ * The stamp is only written once the database is in place. A gzipped asset
+ * (see gzipped) is inflated on the way to disk, one buffer at a time, so
+ * memory use does not grow with the size of the database.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+
+public final class DatabaseInstaller {
+
+	// Changed whenever the layout of the stamp changes
+	public static final int FORMAT = 1;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	// Files SQLite keeps next to a database, which must not outlive it
+	private static final String[] JOURNALS = { "-journal", "-wal", "-shm" };
+
+	/**
+	 * Opens the bundled database, once per read
+	 */
+	public interface Asset {
+		InputStream open() throws IOException;
+	}
+
+	private DatabaseInstaller() {
+	}
+
+	/**
+	 * gzipped - reads a database bundled as a gzip file
+	 *
+	 * @param compressed
+	 *            - the gzip file, such as careerFairDB.db.gz
+	 * @return the database the gzip file holds, inflated while it is read
+	 */
+	public static Asset gzipped(final Asset compressed) {
+		return new Asset() {
+			@Override
+			public InputStream open() throws IOException {
+				InputStream in = compressed.open();
+				try {
+					return new GZIPInputStream(in, BUFFER_SIZE);
+				} catch (IOException e) {
+					in.close();
+					throw e;
+				}
+			}
+		};
+	}
+
+	/**
+	 * version - identifies the installed APK
+	 *
+	 * @param apk
+	 *            - the installed APK, which bundles the database
+	 * @return a value that changes whenever the app is updated
+	 */
+	public static long version(File apk) {
+		return apk.length() * 31 + apk.lastModified();
+	}
+
+	/**
+	 * isCurrent - checks the stamp only, without reading the asset or opening
+	 * the database
+	 *
+	 * @param database
+	 *            - the installed careerFairDB.db
+	 * @param version
+	 *            - the version of the running APK
+	 * @return whether the database was installed from this APK
+	 */
+	public static boolean isCurrent(File database, long version) {
+		long[] stamp = readStamp(database);
+		return stamp != null && stamp[0] == version && database.isFile();
+	}
+
+	/**
+	 * install - copies the asset over the database unless it is already
+	 * installed
+	 *
+	 * @param asset
+	 *            - the bundled database, as it should be on disk
+	 * @param database
+	 *            - where the database is installed
+	 * @param version
+	 *            - the version of the running APK
+	 * @return true if the database was copied, false if the installed one was
+	 *         kept
+	 * @throws IOException
+	 */
+	public static boolean install(Asset asset, File database, long version)
+			throws IOException {
+		if (isCurrent(database, version)) {
+			return false;
+		}
+
+		long[] stamp = readStamp(database);
+		if (stamp != null && database.isFile()) {
+			// Installed from another APK, keep it if the asset is unchanged
+			long checksum;
+			InputStream in = asset.open();
+			try {
+				checksum = copy(in, null);
+			} finally {
+				in.close();
+			}
+			if (checksum == stamp[1]) {
+				writeStamp(database, version, checksum);
+				return false;
+			}
+		}
+
+		database.getParentFile().mkdirs();
+		File temp = new File(database.getPath() + ".tmp");
+		long checksum;
+		InputStream in = asset.open();
+		try {
+			FileOutputStream out = new FileOutputStream(temp);
+			try {
+				checksum = copy(in, out);
+				out.getFD().sync();
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			// A damaged or truncated asset leaves the old database in place
+			temp.delete();
+			throw e;
+		} finally {
+			in.close();
+		}
+
+		// A stamp or journal left from the old database must not describe the
+		// new one
+		stampFile(database).delete();
+		for (String journal : JOURNALS) {
+			new File(database.getPath() + journal).delete();
+		}
+		replace(temp, database);
+		writeStamp(database, version, checksum);
+		return true;
+	}
+
+	/**
+	 * Copies the stream, to out if it is not null
+	 *
+	 * @return the CRC32 of the bytes read
+	 */
+	private static long copy(InputStream in, OutputStream out)
+			throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = in.read(buffer)) != -1) {
+			crc.update(buffer, 0, bytesRead);
+			if (out != null) {
+				out.write(buffer, 0, bytesRead);
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * @return { version, checksum } of the stamp, or null if there is no
+	 *         readable stamp
+	 */
+	private static long[] readStamp(File database) {
+		try {
+			DataInputStream in = new DataInputStream(new FileInputStream(
+					stampFile(database)));
+			try {
+				if (in.readInt() != FORMAT) {
+					return null;
+				}
+				return new long[] { in.readLong(), in.readLong() };
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static void writeStamp(File database, long version, long checksum)
+			throws IOException {
+		File stamp = stampFile(database);
+		File temp = new File(stamp.getPath() + ".tmp");
+		FileOutputStream stream = new FileOutputStream(temp);
+		try {
+			DataOutputStream out = new DataOutputStream(stream);
+			out.writeInt(FORMAT);
+			out.writeLong(version);
+			out.writeLong(checksum);
+			out.flush();
+			stream.getFD().sync();
+		} finally {
+			stream.close();
+		}
+		replace(temp, stamp);
+	}
+
+	private static void replace(File temp, File file) throws IOException {
+		if (!temp.renameTo(file)) {
+			temp.delete();
+			throw new IOException("Could not replace " + file);
+		}
+	}
+
+	private static File stampFile(File database) {
+		return new File(database.getPath() + ".stamp");
+	}
+}
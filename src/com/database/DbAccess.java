@@ -2,14 +2,22 @@
  * This class handles all database access needs with methods that query the database and return the results in a structed format
  * (ex. ArrayList)
  * 
+ * No results are kept between calls (filters and searches return a FilterResult/SearchResult), so the methods can be
+ * called from any thread.
+ * 
  * @author Hannah Wilder (with code borrowed from http://blog.softeq.com/2012/12/using-pre-populated-sqlite-database-in.html)
  * @version 1.1
  */
 
 package com.database;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
@@ -17,334 +25,146 @@ import android.database.sqlite.SQLiteDatabase;
 public class DbAccess {
 
 	private static final String DB_NAME = "careerFairDB.db";
-	private static ArrayList<String> majorNames;
-	private static ArrayList<String> majorAbbrevs;
-	private static ArrayList<String> lastFilteredNames = new ArrayList<String>();
-	private static ArrayList<String> lastSearchedNames = new ArrayList<String>();
-	private static HashMap<String, ArrayList<Major>> majorMap;
-	private static HashMap<String, ArrayList<String>> workAuthMap;
-	private static HashMap<String, ArrayList<String>> positionMap;
-	
-	private static ArrayList<String> lastFilteredNamesBlank = new ArrayList<String>();
-	private static ArrayList<Company> lastFilteredBlank = new ArrayList<Company>();
-	private static ArrayList<String> lastFilteredNamesNotBlank = new ArrayList<String>();
-	private static ArrayList<Company> lastFilteredNotBlank = new ArrayList<Company>();
-	
-
-	public static ArrayList<String> getSearchedCompanyNames() {
-		return (ArrayList<String>)lastSearchedNames.clone();
-	}
-	/**
-	 * getFilteredNamesSep
-	 * @param getBlanks - set to true if you want the filtered names that had a blank filter, false otherwise
-	 * @return an ArrayList<String> of the company names last filtered that either had (if true) or did not have (if false) a blank for a filtered value 
-	 */
-	public static ArrayList<String> getFilteredNamesSep(boolean getBlanks) {
-		if (getBlanks) {
-			return (ArrayList<String>)lastFilteredNamesBlank.clone();
-		} else {
-			return (ArrayList<String>)lastFilteredNamesNotBlank.clone();
-		}
-	}
-	
-	/**
-	 * getFilteredSep
-	 * @param getBlanks - set to true if you want the filtered companies that had a blank filter, false otherwise
-	 * @return an ArrayList<Company> of the companies last filtered that either had (if true) or did not have (if false) a blank for a filtered value 
-	 */
-	public static ArrayList<Company> getFilteredSep(boolean getBlanks) {
-		if (getBlanks) {
-			return (ArrayList<Company>)lastFilteredBlank.clone();
-		} else {
-			return (ArrayList<Company>)lastFilteredNotBlank.clone();
-		}
-	}
-	
+
 	/**
-	 * fillPositionMap - gets all the positions each company is
-	 * hiring for and places them into a map for later retrieval 
-	 *
+	 * Queries the database to obtain a list of company names and fill an array
+	 * list with them
+	 * 
+	 * @param companies
+	 *            - an empty array list to fill with company names
 	 * @param database
-	 *            - SQLite database object returned by
-	 *            ExternalDbOpenHelper.openDataBase
+	 *            - the database to query (obtain database with
+	 *            ExternalDbOpenHelper instance)
 	 */
-	private static void fillPositionMap(SQLiteDatabase database) {
-		positionMap = new HashMap<String, ArrayList<String>>();
-
-		Cursor positionsCursor = database
-				.rawQuery(
-						"SELECT DISTINCT company.name, employmentType.type FROM company, companyToType, employmentType WHERE company._id=companyToType.companyID AND companyToType.typeID=employmentType._id AND type<>'';",
-						new String[0]);
-		positionsCursor.moveToFirst();
-		if (!positionsCursor.isAfterLast()) {
-			do {
-
-				ArrayList<String> list = positionMap.get(positionsCursor
-						.getString(0));
-				if (list == null) {
-					ArrayList<String> newlist = new ArrayList<String>();
-					newlist.add(positionsCursor.getString(1));
-					positionMap.put(positionsCursor.getString(0), newlist);
-				} else {
-					list.add(positionsCursor.getString(1));
-				}
-			} while (positionsCursor.moveToNext());
-		}
-		positionsCursor.close();
-
+	public static void fillCompanies(ArrayList companies,
+			SQLiteDatabase database) {
+		companies.addAll(CompanyCatalog.get(database).getCompanyNames());
 	}
 
 	/**
-	 * fillWorkAuthMap - gets all the work authorizations each company is
-	 * hiring for and places them into a map for later retrieval 
+	 * getAllCompanies - gets all the companies in the database, ordered by
+	 * company name, case insensitive, ignores spaces and periods in the names
 	 * 
+	 * @param companies
+	 *            - an ArrayList to fill with companies
 	 * @param database
 	 *            - SQLite database object returned by
 	 *            ExternalDbOpenHelper.openDataBase
 	 */
-	private static void fillWorkAuthMap(SQLiteDatabase database) {
-		workAuthMap = new HashMap<String, ArrayList<String>>();
-
-		Cursor workAuthsCursor = database
-				.rawQuery(
-						"SELECT DISTINCT company.name, workAuth.type FROM company, companyToWorkAuth, workAuth WHERE company._id=companyToWorkAuth.companyID AND companyToWorkAuth.workAuthID=workAuth._id AND type<>'';",
-						new String[0]);
-		workAuthsCursor.moveToFirst();
-		if (!workAuthsCursor.isAfterLast()) {
-			do {
-
-				ArrayList<String> list = workAuthMap.get(workAuthsCursor
-						.getString(0));
-			
-				if (list == null) {
-					ArrayList<String> newlist = new ArrayList<String>();
-					newlist.add(workAuthsCursor.getString(1));
-					String companyName = workAuthsCursor.getString(0);
-					workAuthMap.put(workAuthsCursor.getString(0), newlist);
-				} else {
-					list.add(workAuthsCursor.getString(1));
-				}
-			} while (workAuthsCursor.moveToNext());
-		}
-		workAuthsCursor.close();
-
+	public static void getAllCompanies(ArrayList<Company> companies,
+			SQLiteDatabase database) {
+		companies.addAll(CompanyCatalog.get(database).getCompanies());
 	}
 
 	/**
-	 * fillMajorMap - gets all the majors each company is
-	 * hiring for and places them into a map for later retrieval 
+	 * getAllCompanies - gets all the companies in the database
 	 * 
 	 * @param database
 	 *            - SQLite database object returned by
 	 *            ExternalDbOpenHelper.openDataBase
+	 * @return an ArrayList filled with companies
 	 */
-	private static void fillMajorMap(SQLiteDatabase database) {
-		majorMap = new HashMap<String, ArrayList<Major>>();
-		Cursor majorsCursor = database
-				.rawQuery(
-						"SELECT DISTINCT company.name, major.name, major.abbreviation FROM company, companyToMajor, major WHERE company._id=companyToMajor.companyID AND companyToMajor.majorID=major._id ORDER BY major.abbreviation;",
-						new String[0]);
-		majorsCursor.moveToFirst();
-		if (!majorsCursor.isAfterLast()) {
-			do {
-
-				String majorName = majorsCursor.getString(1);
-				String majorAbbrev = majorsCursor.getString(2);
-				ArrayList<Major> list = majorMap.get(majorsCursor.getString(0));
-				if (list == null) {
-					ArrayList<Major> newlist = new ArrayList<Major>();
-					newlist.add(new Major(majorName, majorAbbrev));
-					majorMap.put(majorsCursor.getString(0), newlist);
-				} else {
-					list.add(new Major(majorName, majorAbbrev));
-				}
-
-			} while (majorsCursor.moveToNext());
-		}
-		majorsCursor.close();
-
+	public static ArrayList<Company> getAllCompanies(SQLiteDatabase database) {
+		ArrayList<Company> companies = new ArrayList<Company>();
+		getAllCompanies(companies, database);
+		return companies;
 	}
 
 	/**
-	 * Queries the database to obtain a list of company names and fill an array
-	 * list with them
+	 * loadCatalogSnapshot - loads the companies from a snapshot saved by an
+	 * earlier openCatalog, without opening the database. Once it returns
+	 * true the methods reading the catalog (lists, filters, counts, booths)
+	 * work before the database is open; company details wait for it
 	 * 
-	 * @param companies
-	 *            - an empty array list to fill with company names
-	 * @param database
-	 *            - the database to query (obtain database with
-	 *            ExternalDbOpenHelper instance)
+	 * @param snapshot
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - CatalogSnapshot.stamp of the installed database
+	 * @return true if the companies are loaded
 	 */
-	public static void fillCompanies(ArrayList companies,
-			SQLiteDatabase database) {
-		// companies = new ArrayList<String>();
-		Cursor companiesCursor = database
-				.rawQuery(
-						"SELECT DISTINCT company.name FROM company ORDER BY replace(replace(lower(company.name), '.', ''), ' ', '');",
-						new String[0]);
-		companiesCursor.moveToFirst();
-		if (!companiesCursor.isAfterLast()) {
-			do {
-				String name = companiesCursor.getString(0);
-				companies.add(name);
-			} while (companiesCursor.moveToNext());
-		}
-		companiesCursor.close();
+	public static boolean loadCatalogSnapshot(File snapshot, long stamp) {
+		return CompanyCatalog.load(snapshot, stamp);
 	}
 
 	/**
-	 * Returns a list of the companies that were in the set last filtered by
-	 * getCompaniesWith
+	 * openCatalog - loads the companies once the database is open, and saves
+	 * a snapshot of them for the next launch if they were read from the
+	 * database
 	 * 
 	 * @param database
-	 *            - the database to query (obtain database with
-	 *            ExternalDbOpenHelper instance)
-	 * @return the names of the companies in the list last returned by
-	 *         getCompaniesWith
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @param snapshot
+	 *            - the snapshot file
+	 * @param stamp
+	 *            - CatalogSnapshot.stamp of the opened database
+	 * @return true if companies loaded from an out of date snapshot were
+	 *         replaced, so earlier results should be filtered again
 	 */
-	public static ArrayList<String> getFilteredNames(SQLiteDatabase database) {
-		if (lastFilteredNames.isEmpty()) {
-			ArrayList<String> toReturn = new ArrayList<String>();
-			fillCompanies(toReturn, database);
-			return toReturn;
-		} else {
-			return lastFilteredNames;
-		}
+	public static boolean openCatalog(SQLiteDatabase database, File snapshot,
+			long stamp) {
+		return CompanyCatalog.open(database, snapshot, stamp);
 	}
 
 	/**
-	 * getAllCompanies - gets all the companies in the database, ordered by
-	 * company name, case insensitive, ignores spaces and periods in the names
-	 * 
-	 * @param companies
-	 *            - an ArrayList to fill with companies
+	 * applyChangeSet - updates the database with a change-set and reloads
+	 * the companies from it
+	 *
+	 * @param changeSet
+	 *            - a change-set read with ChangeSet.read
 	 * @param database
 	 *            - SQLite database object returned by
 	 *            ExternalDbOpenHelper.openDataBase
+	 * @return true if it was applied and earlier results should be filtered
+	 *         again, false if the database is not at the version the
+	 *         change-set was made from
 	 */
-	public static void getAllCompanies(ArrayList<Company> companies,
+	public static boolean applyChangeSet(ChangeSet changeSet,
 			SQLiteDatabase database) {
-		Cursor companiesCursor = database
-				.rawQuery(
-						"SELECT DISTINCT company.name, company.website, location.tableNum, room.name FROM company, companyToLocation, location, room WHERE company._id=companyToLocation.companyID AND companyToLocation.locationID=location._id AND location.roomID=room._id ORDER BY replace(replace(lower(replace(company.name, 'The ', '')), '.', ''), ' ', '');",
-						new String[0]);
-		companiesCursor.moveToFirst();
-		if (!companiesCursor.isAfterLast()) {
-			do {
-				String name = companiesCursor.getString(0);
-				String website = companiesCursor.getString(1);
-				String tableNum = companiesCursor.getString(2);
-				String room = companiesCursor.getString(3);
-
-				if (majorMap == null) {
-					fillMajorMap(database);
-				}
-				if (positionMap == null) {
-					fillPositionMap(database);
-				}
-				if (workAuthMap == null) {
-					fillWorkAuthMap(database);
-				}
-				ArrayList<Major> majorList = majorMap.get(name);
-				ArrayList<String> positionList = positionMap.get(name);
-				ArrayList<String> workAuthList = workAuthMap.get(name);
-				if (majorList == null) {
-					majorList = new ArrayList<Major>();
-				}
-				if (positionList == null) {
-					positionList = new ArrayList<String>();
-				}
-				if (workAuthList == null) {
-					workAuthList = new ArrayList<String>();
-				}
-				Company newCompany = new Company(name, website, tableNum, room,
-						majorList, positionList, workAuthList);
-
-				companies.add(newCompany);
-
-			} while (companiesCursor.moveToNext());
+		if (!changeSet.apply(database)) {
+			return false;
 		}
-		companiesCursor.close();
+		CompanyCatalog.reload(database);
+		return true;
 	}
 
 	/**
-	 * getAllCompanies - gets all the companies in the database
+	 * getCompanyNamed - looks up a company by name
 	 * 
+	 * @param name
+	 *            - the name of the company
 	 * @param database
 	 *            - SQLite database object returned by
 	 *            ExternalDbOpenHelper.openDataBase
-	 * @return an ArrayList filled with companies
+	 * @return the company with that name, or null if there is none
 	 */
-	public static ArrayList<Company> getAllCompanies(SQLiteDatabase database) {
-		ArrayList<Company> companies = new ArrayList<Company>();
-		getAllCompanies(companies, database);
-		return companies;
+	public static Company getCompanyNamed(String name, SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getCompanyNamed(name);
 	}
-	
-	public static ArrayList<Company> searchAllCompanies(String filterName, SQLiteDatabase database) {
-		lastSearchedNames = new ArrayList<String>();
-		ArrayList<Company> companies = new ArrayList<Company>();
-		String fromString = "FROM company, companyToLocation, location, room";
-		String whereString = "WHERE company._id=companyToLocation.companyID AND companyToLocation.locationID=location._id AND location.roomID=room._id";
 
-
-		// Handle name filter
-		if (!filterName.isEmpty()) {
-			filterName = "%" + filterName + "%";
-			whereString = whereString + " AND company.name LIKE '" + filterName
-					+ "'";
-		}
-
-		// Toss strings into array to be passed into query
-		String[] query = { fromString, whereString };
-		String wholeQuery = "SELECT DISTINCT company.name, company.website, location.tableNum, room.name "
-				+ fromString
-				+ " "
-				+ whereString
-				+ " ORDER BY replace(replace(lower(replace(company.name, 'The ', '')), '.', ''), ' ', '');";
-		wholeQuery = wholeQuery + "";
-		Cursor companiesCursor = database.rawQuery(wholeQuery, new String[0]);
-		companiesCursor.moveToFirst();
-		if (!companiesCursor.isAfterLast()) {
-			do {
-				String name = companiesCursor.getString(0);
-				String website = companiesCursor.getString(1);
-				String tableNum = companiesCursor.getString(2);
-				String room = companiesCursor.getString(3);
-
-				lastSearchedNames.add(name);
-
-				if (majorMap == null) {
-					fillMajorMap(database);
-				}
-				if (positionMap == null) {
-					fillPositionMap(database);
-				}
-				if (workAuthMap == null) {
-					fillWorkAuthMap(database);
-				}
-				ArrayList<Major> majorList = majorMap.get(name);
-				ArrayList<String> positionList = positionMap.get(name);
-				ArrayList<String> workAuthList = workAuthMap.get(name);
-				if (majorList == null) {
-					majorList = new ArrayList<Major>();
-				}
-				if (positionList == null) {
-					positionList = new ArrayList<String>();
-				}
-				if (workAuthList == null) {
-					workAuthList = new ArrayList<String>();
-				}
-
-				Company newCompany = new Company(name, website, tableNum, room,
-						majorList, positionList, workAuthList);
-				companies.add(newCompany);
-
-			} while (companiesCursor.moveToNext());
+	/**
+	 * searchAllCompanies - gets all the companies with a word in their name
+	 * starting with each word of the search, using the full-text index (see
+	 * SearchIndex). Falls back to a case insensitive substring search if the
+	 * database has no index
+	 * 
+	 * @param filterName
+	 *            - the string to search for
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the matching companies, best match first
+	 */
+	public static SearchResult searchAllCompanies(String filterName,
+			SQLiteDatabase database) {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		ArrayList<Company> companies;
+		if (SearchIndex.exists(database)) {
+			companies = SearchIndex.search(filterName, catalog, database);
+		} else {
+			companies = catalog.search(filterName);
 		}
-		companiesCursor.close();
-
-		return companies;
+		return new SearchResult(filterName, companies);
 	}
 
 	/**
@@ -368,131 +188,158 @@ public class DbAccess {
 	 * @param database
 	 *            - SQLite database object returned by
 	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the matching companies in display order, also split by whether
+	 *         they had a blank for a filtered category
+	 */
+	public static FilterResult getCompaniesWith(String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, SQLiteDatabase database) {
+		return getCompaniesWith(filterRoom, filterMajor, filterWorkAuth,
+				filterPosition, new ArrayList<String>(), database);
+	}
+
+	/**
+	 * getCompaniesWith - gets all the companies in the database fitting a
+	 * specific set of criteria, including industries
+	 * 
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 *            (indicating not to filter at all)
+	 * @param filterMajor
+	 *            - an ArrayList of majors to filter by
+	 * @param filterWorkAuth
+	 *            - an ArrayList of strings to filter work authorizations by
+	 * @param filterPosition
+	 *            - an ArrayList of strings to filter position types by
+	 * @param filterIndustry
+	 *            - an ArrayList of industry tags to filter by, this filter
+	 *            will find all the companies with at least one of the
+	 *            specified tags
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the matching companies in display order, also split by whether
+	 *         they had a blank for a filtered category
 	 */
-	public static ArrayList<Company> getCompaniesWith(
-			String filterRoom, ArrayList<String> filterMajor,
-			ArrayList<String> filterWorkAuth, ArrayList<String> filterPosition,
+	public static FilterResult getCompaniesWith(String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
 			SQLiteDatabase database) {
-		ArrayList<Company> companies = new ArrayList<Company>();
-		lastFilteredNames = new ArrayList<String>();
-		lastFilteredNamesBlank = new ArrayList<String>();
-		lastFilteredBlank = new ArrayList<Company>();
-		
-		lastFilteredNamesNotBlank = new ArrayList<String>();
-		lastFilteredNotBlank = new ArrayList<Company>();
-		// Set default from and where strings (if there are no filters
-		// specified)
-		String fromString = "FROM company, companyToLocation, location, room";
-		String whereString = "WHERE company._id=companyToLocation.companyID AND companyToLocation.locationID=location._id AND location.roomID=room._id";
-
-		if (!filterRoom.isEmpty()) {
-			whereString = whereString + " AND room.name = '" + filterRoom + "'";
-		}
+		FilterEngine filterEngine = CompanyCatalog.get(database)
+				.getFilterEngine();
 
-		// Handle Major filter
-		if (!filterMajor.isEmpty()) {
-			String majorSet = "'ALL'";
-			for (String major : filterMajor) {
+		BitSet matches = filterEngine.filter(filterRoom, filterMajor,
+				filterWorkAuth, filterPosition, filterIndustry);
+		// Determine which of the matches had a blank for a filtered field
+		BitSet blanks = filterEngine.blanks(!filterMajor.isEmpty(),
+				!filterWorkAuth.isEmpty(), !filterPosition.isEmpty(),
+				!filterIndustry.isEmpty());
 
-				majorSet = majorSet + ", '" + major + "'";
-			}
-			whereString = whereString
-					+ " AND company._id=companyToMajor.companyID AND major._id=companyToMajor.majorID AND major.abbreviation IN ("
-					+ majorSet + ")";
-			fromString = fromString + ", companyToMajor, major";
-		}
+		return new FilterResult(filterEngine, matches, blanks);
+	}
 
-		// Handle workAuth filter
-		if (!filterWorkAuth.isEmpty()) {
-			String workAuthSet = "''";
-			for (String workAuth : filterWorkAuth) {
-				workAuthSet = workAuthSet + ", '" + workAuth + "'";
-			}
-			whereString = whereString
-					+ " AND company._id=companyToWorkAuth.companyID AND workAuth._id=companyToWorkAuth.workAuthID AND workAuth.type IN ("
-					+ workAuthSet + ")";
-			fromString = fromString + ", companyToWorkAuth, workAuth";
-		}
+	/**
+	 * rankCompanies - ranks the companies by how many of the selected majors,
+	 * work authorizations, positions and industries they have, weighted by
+	 * category (see CompanyRanker)
+	 * 
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 *            (indicating not to filter at all)
+	 * @param filterMajor
+	 *            - the selected major abbreviations
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected position types
+	 * @param filterIndustry
+	 *            - the selected industry tags
+	 * @param limit
+	 *            - the most companies to return
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the best scoring companies, best first and ties in display
+	 *         order
+	 */
+	public static RankedResult rankCompanies(String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
+			int limit, SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getRanker().rank(filterRoom,
+				filterMajor, filterWorkAuth, filterPosition, filterIndustry,
+				limit);
+	}
 
-		// Handle position filter
-		if (!filterPosition.isEmpty()) {
-			String positionSet = "''";
-			for (String position : filterPosition) {
-				positionSet = positionSet + ", '" + position + "'";
-			}
-			whereString = whereString
-					+ " AND company._id=companyToType.companyID AND employmentType._id=companyToType.typeID AND employmentType.type IN ("
-					+ positionSet + ")";
-			fromString = fromString + ", companyToType, employmentType";
+	/**
+	 * getIncrementalFilter - starts a getCompaniesWith filter that can then
+	 * be changed one value at a time (see IncrementalFilter.toggle)
+	 * 
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 *            (indicating not to filter at all)
+	 * @param filterMajor
+	 *            - the selected major abbreviations
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected position types
+	 * @param filterIndustry
+	 *            - the selected industry tags
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return a filter with the values selected, its getResult is the same
+	 *         as getCompaniesWith
+	 */
+	public static IncrementalFilter getIncrementalFilter(String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
+			SQLiteDatabase database) {
+		IncrementalFilter filter = CompanyCatalog.get(database)
+				.newIncrementalFilter(filterRoom);
+		for (String major : filterMajor) {
+			filter.toggle(IncrementalFilter.MAJORS, major, true);
 		}
-
-		// Toss strings into array to be passed into query
-		String[] query = { fromString, whereString };
-		String wholeQuery = "SELECT DISTINCT company.name, company.website, location.tableNum, room.name "
-				+ fromString
-				+ " "
-				+ whereString
-				+ " ORDER BY replace(replace(lower(replace(company.name, 'The ', '')), '.', ''), ' ', '');";
-		wholeQuery = wholeQuery + "";
-		Cursor companiesCursor = database.rawQuery(wholeQuery, new String[0]);
-		companiesCursor.moveToFirst();
-		if (!companiesCursor.isAfterLast()) {
-			do {
-				String name = companiesCursor.getString(0);
-				String website = companiesCursor.getString(1);
-				String tableNum = companiesCursor.getString(2);
-				String room = companiesCursor.getString(3);
-
-				lastFilteredNames.add(name);
-
-				if (majorMap == null) {
-					fillMajorMap(database);
-				}
-				if (positionMap == null) {
-					fillPositionMap(database);
-				}
-				if (workAuthMap == null) {
-					fillWorkAuthMap(database);
-				}
-				ArrayList<Major> majorList = majorMap.get(name);
-				ArrayList<String> positionList = positionMap.get(name);
-				ArrayList<String> workAuthList = workAuthMap.get(name);
-				if (majorList == null) {
-					majorList = new ArrayList<Major>();
-				}
-				if (positionList == null) {
-					positionList = new ArrayList<String>();
-				}
-				if (workAuthList == null) {
-					workAuthList = new ArrayList<String>();
-				}
-				
-				Company newCompany = new Company(name, website, tableNum, room,
-						majorList, positionList, workAuthList);
-				companies.add(newCompany);
-				
-				//Determine if any of the fields matched a blank
-				
-				
-				
-				if (!filterMajor.isEmpty() && majorList.isEmpty()) {
-					lastFilteredNamesBlank.add(name);
-					lastFilteredBlank.add(newCompany);
-				} else if (!filterWorkAuth.isEmpty() && workAuthList.isEmpty()) {
-					lastFilteredNamesBlank.add(name);
-					lastFilteredBlank.add(newCompany);
-				} else if (!filterPosition.isEmpty() && positionList.isEmpty()) {
-					lastFilteredNamesBlank.add(name);
-					lastFilteredBlank.add(newCompany);
-				} else {
-					lastFilteredNamesNotBlank.add(name);
-					lastFilteredNotBlank.add(newCompany);
-				}
-			} while (companiesCursor.moveToNext());
+		for (String workAuth : filterWorkAuth) {
+			filter.toggle(IncrementalFilter.WORK_AUTHS, workAuth, true);
+		}
+		for (String position : filterPosition) {
+			filter.toggle(IncrementalFilter.POSITIONS, position, true);
+		}
+		for (String industry : filterIndustry) {
+			filter.toggle(IncrementalFilter.INDUSTRIES, industry, true);
 		}
-		companiesCursor.close();
+		return filter;
+	}
 
-		return companies;
+	/**
+	 * getFacetCounts - counts, for every major, work authorization, position
+	 * and industry, the companies getCompaniesWith would give if it were the only
+	 * value selected in its category, keeping the other categories' filters
+	 * 
+	 * @param filterRoom
+	 *            - one of either "Wood", "Multipurpose", "Hall" or ""
+	 *            (indicating not to filter at all)
+	 * @param filterMajor
+	 *            - the selected major abbreviations
+	 * @param filterWorkAuth
+	 *            - the selected work authorizations
+	 * @param filterPosition
+	 *            - the selected position types
+	 * @param filterIndustry
+	 *            - the selected industry tags
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the count of every value, computed in one pass over the catalog
+	 */
+	public static FacetCounts getFacetCounts(String filterRoom,
+			ArrayList<String> filterMajor, ArrayList<String> filterWorkAuth,
+			ArrayList<String> filterPosition, ArrayList<String> filterIndustry,
+			SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getFacetCounts(filterRoom,
+				filterMajor, filterWorkAuth, filterPosition, filterIndustry);
 	}
 
 	/**
@@ -508,28 +355,30 @@ public class DbAccess {
 	 */
 	public static ArrayList<Major> getMajorsForCompany(String company,
 			SQLiteDatabase database) {
-		String[] nameArray = { company };
-
-		ArrayList<Major> majors = new ArrayList<Major>();
-		majorNames = new ArrayList<String>();
-		majorAbbrevs = new ArrayList<String>();
-		Cursor majorsCursor = database
-				.rawQuery(
-						"SELECT major.name, major.abbreviation FROM company, companyToMajor, major WHERE company._id=companyToMajor.companyID AND company.name=? AND companyToMajor.majorID=major._id ORDER BY major.abbreviation;",
-						nameArray);
-		majorsCursor.moveToFirst();
-		if (!majorsCursor.isAfterLast()) {
-			do {
-				String majorName = majorsCursor.getString(0);
-				majorNames.add(majorName);
-				String majorAbbrev = majorsCursor.getString(1);
-				majorAbbrevs.add(majorAbbrev);
-				majors.add(new Major(majorName, majorAbbrev));
-			} while (majorsCursor.moveToNext());
+		Company found = CompanyCatalog.get(database).getCompanyNamed(company);
+		if (found == null) {
+			return new ArrayList<Major>();
 		}
-		majorsCursor.close();
+		return getMajorsForCompanies(Collections.singletonList(found.getId()),
+				database).get(found.getId());
+	}
 
-		return majors;
+	/**
+	 * getMajorsForCompanies - gets the majors several companies are looking
+	 * for, with one query for up to CompanyDetailsCache.MAX_BATCH companies
+	 * 
+	 * @param companyIds
+	 *            - the company._id of each company (see Company.getId)
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return company._id -> majors ordered by abbreviation, with an entry
+	 *         (maybe empty) for every requested company
+	 */
+	public static Map<Integer, ArrayList<Major>> getMajorsForCompanies(
+			Collection<Integer> companyIds, SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getDetailsCache()
+				.readMajors(companyIds);
 	}
 
 	/**
@@ -545,23 +394,32 @@ public class DbAccess {
 	 */
 	public static ArrayList<String> getPositionsForCompany(String company,
 			SQLiteDatabase database) {
-		String[] nameArray = { company };
-
-		ArrayList<String> positions = new ArrayList<String>();
-		Cursor positionsCursor = database
-				.rawQuery(
-						"SELECT employmentType.type FROM company, companyToType, employmentType WHERE company._id=companyToType.companyID AND company.name=? AND companyToType.typeID=employmentType._id AND type<>'';",
-						nameArray);
-		positionsCursor.moveToFirst();
-		if (!positionsCursor.isAfterLast()) {
-			do {
-				positions.add(positionsCursor.getString(0));
-								
-			} while (positionsCursor.moveToNext());
+		Company found = CompanyCatalog.get(database).getCompanyNamed(company);
+		if (found == null) {
+			return new ArrayList<String>();
 		}
-		positionsCursor.close();
+		return getPositionsForCompanies(
+				Collections.singletonList(found.getId()), database).get(
+				found.getId());
+	}
 
-		return positions;
+	/**
+	 * getPositionsForCompanies - gets the positions several companies are
+	 * hiring for, with one query for up to CompanyDetailsCache.MAX_BATCH
+	 * companies
+	 * 
+	 * @param companyIds
+	 *            - the company._id of each company (see Company.getId)
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return company._id -> positions (without the blank type), with an
+	 *         entry (maybe empty) for every requested company
+	 */
+	public static Map<Integer, ArrayList<String>> getPositionsForCompanies(
+			Collection<Integer> companyIds, SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getDetailsCache()
+				.readTypes(QueryPlans.POSITIONS, companyIds);
 	}
 
 	/**
@@ -577,22 +435,61 @@ public class DbAccess {
 	 */
 	public static ArrayList<String> getWorkAuthsForCompany(String company,
 			SQLiteDatabase database) {
-		String[] nameArray = { company };
-
-		ArrayList<String> workAuths = new ArrayList<String>();
-		Cursor workAuthsCursor = database
-				.rawQuery(
-						"SELECT workAuth.type FROM company, companyToWorkAuth, workAuth WHERE company._id=companyToWorkAuth.companyID AND company.name=? AND companyToWorkAuth.workAuthID=workAuth._id AND type<>'';",
-						nameArray);
-		workAuthsCursor.moveToFirst();
-		if (!workAuthsCursor.isAfterLast()) {
-			do {
-				workAuths.add(workAuthsCursor.getString(0));
-			} while (workAuthsCursor.moveToNext());
+		Company found = CompanyCatalog.get(database).getCompanyNamed(company);
+		if (found == null) {
+			return new ArrayList<String>();
 		}
-		workAuthsCursor.close();
+		return getWorkAuthsForCompanies(
+				Collections.singletonList(found.getId()), database).get(
+				found.getId());
+	}
 
-		return workAuths;
+	/**
+	 * getWorkAuthsForCompanies - gets the work authorization types several
+	 * companies are looking for, with one query for up to
+	 * CompanyDetailsCache.MAX_BATCH companies
+	 * 
+	 * @param companyIds
+	 *            - the company._id of each company (see Company.getId)
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return company._id -> work authorizations (without the blank type),
+	 *         with an entry (maybe empty) for every requested company
+	 */
+	public static Map<Integer, ArrayList<String>> getWorkAuthsForCompanies(
+			Collection<Integer> companyIds, SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getDetailsCache()
+				.readTypes(QueryPlans.WORK_AUTHS, companyIds);
+	}
+
+	/**
+	 * getCompaniesLookingFor - gets the companies looking for a major, from
+	 * the catalog's major index instead of a query
+	 * 
+	 * @param major
+	 *            - a major (see getAllMajors)
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the companies looking for the major, in display order, empty
+	 *         if no company lists the major
+	 */
+	public static ArrayList<Company> getCompaniesLookingFor(Major major,
+			SQLiteDatabase database) {
+		CompanyCatalog catalog = CompanyCatalog.get(database);
+		// Looked up without registering, so unknown majors do not grow the
+		// registry
+		int majorId = MajorRegistry.findId(major);
+		if (majorId < 0) {
+			return new ArrayList<Company>();
+		}
+		int[] ids = catalog.getMajorIndex().getCompanies(majorId);
+		ArrayList<Company> companies = new ArrayList<Company>(ids.length);
+		for (int id : ids) {
+			companies.add(catalog.getCompany(id));
+		}
+		return companies;
 	}
 
 	/**
@@ -607,33 +504,12 @@ public class DbAccess {
 	 */
 	public static ArrayList<Major> getAllMajors(SQLiteDatabase database,
 			boolean orderByName) {
-		String[] empty = {};
-
 		ArrayList<Major> majors = new ArrayList<Major>();
-		Cursor majorsCursor;
-		if (orderByName) {
-			majorsCursor = database.rawQuery(
-					"SELECT name, abbreviation FROM major ORDER BY name;",
-					empty);
-		} else {
-			majorsCursor = database
-					.rawQuery(
-							"SELECT name, abbreviation FROM major ORDER BY abbreviation;",
-							empty);
-		}
-
-		majorsCursor.moveToFirst();
-		if (!majorsCursor.isAfterLast()) {
-			do {
-				String majorName = majorsCursor.getString(0);
-				String majorAbbrev = majorsCursor.getString(1);
-				if (!majorName.equals("")) {
-					majors.add(new Major(majorName, majorAbbrev));
-				}
-			} while (majorsCursor.moveToNext());
+		for (Major major : CompanyCatalog.get(database).getMajors(orderByName)) {
+			if (!major.getName().equals("")) {
+				majors.add(major);
+			}
 		}
-		majorsCursor.close();
-
 		return majors;
 	}
 
@@ -646,20 +522,10 @@ public class DbAccess {
 	 * @return an ArrayList filled with the major names ordered by name
 	 */
 	public static ArrayList<String> getAllMajorNames(SQLiteDatabase database) {
-		String[] empty = {};
-
 		ArrayList<String> names = new ArrayList<String>();
-		Cursor majorsCursor = database.rawQuery(
-				"SELECT name FROM major ORDER BY name;", empty);
-
-		majorsCursor.moveToFirst();
-		if (!majorsCursor.isAfterLast()) {
-			do {
-				names.add(majorsCursor.getString(0));
-			} while (majorsCursor.moveToNext());
+		for (Major major : CompanyCatalog.get(database).getMajors(true)) {
+			names.add(major.getName());
 		}
-		majorsCursor.close();
-
 		return names;
 	}
 
@@ -672,20 +538,10 @@ public class DbAccess {
 	 * @return an ArrayList filled with the major abbreviations ordered by abbreviation
 	 */
 	public static ArrayList<String> getAllMajorAbbrevs(SQLiteDatabase database) {
-		String[] empty = {};
-
 		ArrayList<String> abbrev = new ArrayList<String>();
-		Cursor majorsCursor = database.rawQuery(
-				"SELECT abbreviation FROM major ORDER BY abbreviation;", empty);
-
-		majorsCursor.moveToFirst();
-		if (!majorsCursor.isAfterLast()) {
-			do {
-				abbrev.add(majorsCursor.getString(0));
-			} while (majorsCursor.moveToNext());
+		for (Major major : CompanyCatalog.get(database).getMajors(false)) {
+			abbrev.add(major.getAbbrev());
 		}
-		majorsCursor.close();
-
 		return abbrev;
 	}
 
@@ -698,20 +554,12 @@ public class DbAccess {
 	 * @return an ArrayList filled with the work authorizations
 	 */
 	public static ArrayList<String> getAllWorkAuths(SQLiteDatabase database) {
-		String[] empty = {};
-
 		ArrayList<String> workAuths = new ArrayList<String>();
-		Cursor workAuthsCursor = database.rawQuery(
-				"SELECT type FROM workAuth ORDER BY type;", empty);
-		workAuthsCursor.moveToFirst();
-		if (!workAuthsCursor.isAfterLast()) {
-			do {
-				if(!workAuthsCursor.getString(0).equals("") )
-					workAuths.add(workAuthsCursor.getString(0));
-			} while (workAuthsCursor.moveToNext());
+		for (String workAuth : CompanyCatalog.get(database).getWorkAuths()) {
+			if (!workAuth.equals("")) {
+				workAuths.add(workAuth);
+			}
 		}
-		workAuthsCursor.close();
-
 		return workAuths;
 	}
 
@@ -724,25 +572,28 @@ public class DbAccess {
 	 * @return an ArrayList filled with the positions
 	 */
 	public static ArrayList<String> getAllPositions(SQLiteDatabase database) {
-		String[] empty = {};
-
 		ArrayList<String> positions = new ArrayList<String>();
-		Cursor positionsCursor = database.rawQuery(
-				"SELECT type FROM employmentType ORDER BY type;", empty);
-		positionsCursor.moveToFirst();
-		if (!positionsCursor.isAfterLast()) {
-			do {
-				if (!positionsCursor.getString(0).equals("")) {
-					positions.add(positionsCursor.getString(0));
-				}
-				
-			} while (positionsCursor.moveToNext());
+		for (String position : CompanyCatalog.get(database).getPositions()) {
+			if (!position.equals("")) {
+				positions.add(position);
+			}
 		}
-
-		positionsCursor.close();
-
 		return positions;
+	}
 
+	/**
+	 * getAllIndustries - gets a list of all the industry tags companies are
+	 * tagged with
+	 * 
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return an ArrayList filled with the industry tags, empty if no company
+	 *         is tagged
+	 */
+	public static ArrayList<String> getAllIndustries(SQLiteDatabase database) {
+		return new ArrayList<String>(CompanyCatalog.get(database)
+				.getIndustries());
 	}
 
 	/**
@@ -761,9 +612,6 @@ public class DbAccess {
 	 */
 	public static HashMap<String, Company> getTableCompanyMap(boolean WoodGym,
 			SQLiteDatabase database) {
-		HashMap<String, Company> map = new HashMap<String, Company>();
-		String[] empty = {};
-
 		String roomName;
 		if (WoodGym) {
 			roomName = "Wood";
@@ -771,15 +619,23 @@ public class DbAccess {
 			roomName = "Multipurpose";
 		}
 
-		ArrayList<Company> companies = getAllCompanies(database);
-
-		for (Company company : companies) {
-			if (company.getRoom().equals(roomName)) {
-				map.put(company.getTableNum(), company);
-			}
-		}
+		return getBooths(roomName, database).getTableMap();
+	}
 
-		return map;
+	/**
+	 * getBooths - gets the companies of a room by table number, from an
+	 * index built once with the catalog
+	 * 
+	 * @param roomName
+	 *            - one of either "Wood", "Multipurpose" or "Hall"
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the room's tables, empty for an unknown room
+	 */
+	public static BoothIndex.Room getBooths(String roomName,
+			SQLiteDatabase database) {
+		return CompanyCatalog.get(database).getBooths().getRoom(roomName);
 	}
 
 	/**
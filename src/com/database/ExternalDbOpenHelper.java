@@ -11,10 +11,9 @@
 
 package com.database;
 
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import android.content.Context;
 import android.database.SQLException;
@@ -29,6 +28,10 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 
 	// Database file name
 	public static String DB_NAME;
+
+	// The database is bundled gzipped, as careerFairDB.db.gz
+	private static final String ASSET_SUFFIX = ".gz";
+
 	public SQLiteDatabase database;
 	public final Context context;
 
@@ -52,7 +55,7 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 	 * @return whether the database exists
 	 */
 	public ExternalDbOpenHelper(Context context, String databaseName) {
-		super(context, databaseName, null, 1);
+		super(context, databaseName, null, SchemaMigrations.VERSION);
 		this.context = context;
 		// Write a full path to the databases of your application
 		String packageName = context.getPackageName();
@@ -62,73 +65,34 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 	}
 
 	/**
-	 * Creates the database if it doesn't exist
+	 * Creates the database if it doesn't exist, or replaces it if the app was
+	 * updated with a different bundled database. The bundled database is
+	 * inflated straight to disk. A database that is already installed and
+	 * current is only checked against its stamp, it is not opened
 	 * 
 	 * @return whether the database exists
 	 */
 	public void createDataBase() {
-		boolean dbExist = checkDataBase();
-		if (!dbExist) {
-			this.getReadableDatabase();
-			try {
-				copyDataBase();
-			} catch (IOException e) {
-				Log.e(this.getClass().toString(), "Copying error");
-				throw new Error("Error copying database!");
-			}
-		} else {
-			Log.i(this.getClass().toString(), "Database already exists");
-		}
-	}
-
-	/**
-	 * Checks to see if the database already exists
-	 * 
-	 * @return whether the database exists
-	 */
-	private boolean checkDataBase() {
-		SQLiteDatabase checkDb = null;
+		long start = System.currentTimeMillis();
+		File database = new File(DB_PATH + DB_NAME);
+		long version = DatabaseInstaller.version(new File(context
+				.getApplicationInfo().sourceDir));
 		try {
-			String path = DB_PATH + DB_NAME;
-			checkDb = SQLiteDatabase.openDatabase(path, null,
-					SQLiteDatabase.OPEN_READONLY);
-		} catch (SQLException e) {
-			Log.i(this.getClass().toString(),
-					"Database does not exist yet, ignore above errors, database will be created momentarily");
+			boolean copied = DatabaseInstaller.install(DatabaseInstaller
+					.gzipped(new DatabaseInstaller.Asset() {
+						@Override
+						public InputStream open() throws IOException {
+							return context.getAssets().open(
+									DB_NAME + ASSET_SUFFIX);
+						}
+					}), database, version);
+			Log.i(this.getClass().toString(), (copied ? "Database installed in "
+					: "Database already installed, checked in ")
+					+ (System.currentTimeMillis() - start) + " ms");
+		} catch (IOException e) {
+			Log.e(this.getClass().toString(), "Copying error");
+			throw new Error("Error copying database!");
 		}
-		// Android doesn�t like resource leaks, everything should
-		// be closed
-		if (checkDb != null) {
-			checkDb.close();
-		}
-		return checkDb != null;
-	}
-
-	/**
-	 * Copies the database in the asset folder to the local database
-	 * 
-	 * @throws IOException
-	 */
-	private void copyDataBase() throws IOException {
-		// Open a stream for reading from our ready-made database
-		// The stream source is located in the assets
-		InputStream externalDbStream = context.getAssets().open(DB_NAME);
-
-		// Path to the created empty database on your Android device
-		String outFileName = DB_PATH + DB_NAME;
-
-		// Now create a stream for writing the database byte by byte
-		OutputStream localDbStream = new FileOutputStream(outFileName);
-
-		// Copying the database
-		byte[] buffer = new byte[1024];
-		int bytesRead;
-		while ((bytesRead = externalDbStream.read(buffer)) > 0) {
-			localDbStream.write(buffer, 0, bytesRead);
-		}
-		// Don�t forget to close the streams
-		localDbStream.close();
-		externalDbStream.close();
 	}
 
 	/**
@@ -143,10 +107,36 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 			createDataBase();
 			database = SQLiteDatabase.openDatabase(path, null,
 					SQLiteDatabase.OPEN_READWRITE);
+			upgradeDataBase();
 		}
 		return database;
 	}
 
+	/**
+	 * Upgrades the schema of the opened database if it is older than
+	 * SchemaMigrations.VERSION. The database is opened directly rather than
+	 * through getWritableDatabase, so onUpgrade has to be called here
+	 */
+	private void upgradeDataBase() {
+		int version = database.getVersion();
+		if (version < SchemaMigrations.VERSION) {
+			Log.i(this.getClass().toString(), "Upgrading database from version "
+					+ version + " to " + SchemaMigrations.VERSION);
+			onUpgrade(database, version, SchemaMigrations.VERSION);
+		}
+	}
+
+	/**
+	 * Returns the data version of the opened database, the version of the
+	 * last ChangeSet applied to it (ChangeSet.BUNDLED_VERSION for the
+	 * bundled database)
+	 * 
+	 * @return the data version
+	 */
+	public int getDataVersion() {
+		return ChangeSet.getVersion(openDataBase());
+	}
+
 	/**
 	 * Disposes of instances of ExternalDbOpenHelper
 	 * 
@@ -170,7 +160,7 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 	}
 
 	/**
-	 * Method not in use right now
+	 * Runs the schema migrations between the two versions
 	 * 
 	 * @param SQLiteDatabase
 	 *            db
@@ -181,5 +171,6 @@ public class ExternalDbOpenHelper extends SQLiteOpenHelper {
 	 */
 	@Override
 	public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+		SchemaMigrations.upgrade(db, oldVersion, newVersion);
 	}
 }
@@ -0,0 +1,219 @@
+/**
+ * This class holds how many companies each filter value would give, given
+ * the values selected in the other categories: the count of a major is the
+ * number of companies (in the room) that match the selected work
+ * authorizations and positions and are looking for that major (or "ALL"),
+ * which is what the company list would show if it were the only major
+ * selected. Work authorizations, positions and industries are counted the
+ * same way.
+ *
+ * Every count is computed in one pass over the companies, reading their
+ * values from the catalog's RelationIndexes: a company that matches every
+ * category counts for each of its values, a company that fails exactly one
+ * category only counts for the values of that category, and a company that
+ * fails more than one counts for nothing.
+ *
+ * A FacetCounts never changes once built and may be read from any thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class FacetCounts {
+
+	private final int total;
+	private final Facet majors;
+	private final Facet workAuths;
+	private final Facet positions;
+	private final Facet industries;
+
+	/**
+	 * The counts of one category. Values of the index are counted under their
+	 * key, so values sharing a key count a company once.
+	 */
+	static final class Facet {
+		private final KeyedRelation relation;
+		private final RelationIndex index;
+		private final boolean filtering;
+		private final boolean[] selected;
+		private final int[] counts;
+		// Company that last counted for each key
+		private final int[] counted;
+		// Companies with the wildcard, which count for every key
+		private int wildcards = 0;
+
+		/**
+		 * Facet constructor
+		 *
+		 * @param aRelation
+		 *            - the companies' values and their keys
+		 * @param values
+		 *            - the selected values, empty if the category is not
+		 *            filtered
+		 */
+		Facet(KeyedRelation aRelation, List<String> values) {
+			relation = aRelation;
+			index = relation.getIndex();
+			filtering = !values.isEmpty();
+			selected = new boolean[relation.getKeyCount()];
+			for (String value : values) {
+				int key = relation.findKey(value);
+				if (key >= 0) {
+					selected[key] = true;
+				}
+			}
+			counts = new int[relation.getKeyCount()];
+			counted = new int[relation.getKeyCount()];
+			Arrays.fill(counted, -1);
+		}
+
+		/**
+		 * @return true if the company fits the selection of the category
+		 */
+		boolean accepts(int company) {
+			if (!filtering || relation.hasWildcard(company)) {
+				return true;
+			}
+			int end = index.valuesEnd(company);
+			for (int i = index.valuesStart(company); i < end; i++) {
+				if (selected[relation.getKey(index.valueAt(i))]) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Counts the company for each of its values
+		 */
+		void count(int company) {
+			if (relation.hasWildcard(company)) {
+				wildcards++;
+				return;
+			}
+			int end = index.valuesEnd(company);
+			for (int i = index.valuesStart(company); i < end; i++) {
+				int key = relation.getKey(index.valueAt(i));
+				if (counted[key] != company) {
+					counted[key] = company;
+					counts[key]++;
+				}
+			}
+		}
+
+		int get(String value) {
+			int key = relation.findKey(value);
+			if (key < 0) {
+				return wildcards;
+			}
+			return counts[key] + wildcards;
+		}
+	}
+
+	/**
+	 * FacetCounts constructor - counts every value in one pass
+	 *
+	 * @param companies
+	 *            - the companies in display order
+	 * @param room
+	 *            - the room name or "" for every room
+	 * @param aMajors
+	 *            - the major category, keyed by abbreviation
+	 * @param aWorkAuths
+	 *            - the work authorization category
+	 * @param aPositions
+	 *            - the position category
+	 * @param aIndustries
+	 *            - the industry category
+	 */
+	FacetCounts(List<Company> companies, String room, Facet aMajors,
+			Facet aWorkAuths, Facet aPositions, Facet aIndustries) {
+		majors = aMajors;
+		workAuths = aWorkAuths;
+		positions = aPositions;
+		industries = aIndustries;
+		Facet[] facets = { majors, workAuths, positions, industries };
+
+		int matches = 0;
+		for (int id = 0; id < companies.size(); id++) {
+			if (!room.isEmpty() && !room.equals(companies.get(id).getRoom())) {
+				continue;
+			}
+			Facet failed = null;
+			int failures = 0;
+			for (Facet facet : facets) {
+				if (!facet.accepts(id)) {
+					failed = facet;
+					failures++;
+				}
+			}
+
+			if (failures == 0) {
+				matches++;
+				for (Facet facet : facets) {
+					facet.count(id);
+				}
+			} else if (failures == 1) {
+				failed.count(id);
+			}
+		}
+		total = matches;
+	}
+
+	/**
+	 * getTotal
+	 *
+	 * @return the number of companies matching every selection
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * getMajorCount
+	 *
+	 * @param abbrev
+	 *            - a major abbreviation
+	 * @return the number of companies if it were the only major selected
+	 */
+	public int getMajorCount(String abbrev) {
+		return majors.get(abbrev);
+	}
+
+	/**
+	 * getWorkAuthCount
+	 *
+	 * @param workAuth
+	 *            - a work authorization type
+	 * @return the number of companies if it were the only work authorization
+	 *         selected
+	 */
+	public int getWorkAuthCount(String workAuth) {
+		return workAuths.get(workAuth);
+	}
+
+	/**
+	 * getPositionCount
+	 *
+	 * @param position
+	 *            - a position type
+	 * @return the number of companies if it were the only position selected
+	 */
+	public int getPositionCount(String position) {
+		return positions.get(position);
+	}
+
+	/**
+	 * getIndustryCount
+	 *
+	 * @param industry
+	 *            - an industry tag
+	 * @return the number of companies if it were the only industry selected
+	 */
+	public int getIndustryCount(String industry) {
+		return industries.get(industry);
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ * This class answers getCompaniesWith style filters from memory. Every company
+ * row is given a dense id (its position in the sorted company list) and each
+ * major, work authorization, position, industry and room gets a bitset of
+ * the ids that have it, so a filter is an OR within a category and an AND
+ * across categories.
+ *
+ * Each company also has a bitmask of the categories it has no (non blank)
+ * value for, so the companies missing information for the filtered
+ * categories are found with one mask test per company.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FilterEngine {
+
+	// Major abbreviation that matches every major filter
+	public static final String ALL_MAJORS = "ALL";
+	// Work authorization/position type that matches every filter
+	public static final String BLANK = "";
+
+	// Bits of getMissing, set when a company has no value for the category
+	public static final int MISSING_MAJOR = 1;
+	public static final int MISSING_WORK_AUTH = 2;
+	public static final int MISSING_POSITION = 4;
+	public static final int MISSING_INDUSTRY = 8;
+
+	private final ArrayList<Company> companies;
+
+	// Keyed by the StringTable instance of each value, so lookups compare
+	// references
+	private final IdentityHashMap<String, BitSet> majorSets = new IdentityHashMap<String, BitSet>();
+	private final IdentityHashMap<String, BitSet> workAuthSets = new IdentityHashMap<String, BitSet>();
+	private final IdentityHashMap<String, BitSet> positionSets = new IdentityHashMap<String, BitSet>();
+	private final IdentityHashMap<String, BitSet> industrySets = new IdentityHashMap<String, BitSet>();
+	private final HashMap<String, BitSet> roomSets = new HashMap<String, BitSet>();
+
+	// dense id -> MISSING_* bits of the categories the company has no value for
+	private final byte[] missing;
+
+	/**
+	 * FilterEngine constructor
+	 *
+	 * @param aCompanies
+	 *            - the companies in display order, the index of a company in
+	 *            this list is its dense id
+	 */
+	public FilterEngine(ArrayList<Company> aCompanies) {
+		companies = aCompanies;
+		missing = new byte[companies.size()];
+		Arrays.fill(missing, (byte) (MISSING_MAJOR | MISSING_WORK_AUTH
+				| MISSING_POSITION | MISSING_INDUSTRY));
+		for (int id = 0; id < companies.size(); id++) {
+			getSet(roomSets, companies.get(id).getRoom()).set(id);
+		}
+	}
+
+	/**
+	 * addMajor - records that a company is looking for a major
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @param abbrev
+	 *            - the major abbreviation
+	 */
+	public void addMajor(int id, String abbrev) {
+		getSet(majorSets, StringTable.MAJOR_ABBREVS.intern(abbrev)).set(id);
+		missing[id] &= ~MISSING_MAJOR;
+	}
+
+	/**
+	 * addWorkAuth - records that a company accepts a work authorization
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @param workAuth
+	 *            - the work authorization type (may be blank)
+	 */
+	public void addWorkAuth(int id, String workAuth) {
+		getSet(workAuthSets, StringTable.WORK_AUTHS.intern(workAuth)).set(id);
+		if (!workAuth.equals(BLANK)) {
+			missing[id] &= ~MISSING_WORK_AUTH;
+		}
+	}
+
+	/**
+	 * addPosition - records that a company is hiring for a position
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @param position
+	 *            - the position type (may be blank)
+	 */
+	public void addPosition(int id, String position) {
+		getSet(positionSets, StringTable.POSITIONS.intern(position)).set(id);
+		if (!position.equals(BLANK)) {
+			missing[id] &= ~MISSING_POSITION;
+		}
+	}
+
+	/**
+	 * addIndustry - records that a company is tagged with an industry
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @param industry
+	 *            - the industry tag
+	 */
+	public void addIndustry(int id, String industry) {
+		getSet(industrySets, StringTable.INDUSTRIES.intern(industry)).set(id);
+		missing[id] &= ~MISSING_INDUSTRY;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of companies in the engine
+	 */
+	public int size() {
+		return companies.size();
+	}
+
+	/**
+	 * getCompany
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @return the company with that id
+	 */
+	public Company getCompany(int id) {
+		return companies.get(id);
+	}
+
+	/**
+	 * filter - finds the companies fitting a set of criteria, with the same
+	 * meaning as DbAccess.getCompaniesWith (an empty list or room does not
+	 * filter, the "ALL" major and blank work authorizations/positions match any
+	 * value)
+	 *
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @param filterMajor
+	 *            - major abbreviations, a company needs at least one of them
+	 * @param filterWorkAuth
+	 *            - work authorizations, a company needs at least one of them
+	 * @param filterPosition
+	 *            - positions, a company needs at least one of them
+	 * @return a new bitset of the dense ids of the matching companies
+	 */
+	public BitSet filter(String filterRoom, List<String> filterMajor,
+			List<String> filterWorkAuth, List<String> filterPosition) {
+		return filter(filterRoom, filterMajor, filterWorkAuth, filterPosition,
+				Collections.<String> emptyList());
+	}
+
+	/**
+	 * filter - finds the companies fitting a set of criteria, including
+	 * industries
+	 *
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @param filterMajor
+	 *            - major abbreviations, a company needs at least one of them
+	 * @param filterWorkAuth
+	 *            - work authorizations, a company needs at least one of them
+	 * @param filterPosition
+	 *            - positions, a company needs at least one of them
+	 * @param filterIndustry
+	 *            - industry tags, a company needs at least one of them or
+	 *            no tag at all
+	 * @return a new bitset of the dense ids of the matching companies
+	 */
+	public BitSet filter(String filterRoom, List<String> filterMajor,
+			List<String> filterWorkAuth, List<String> filterPosition,
+			List<String> filterIndustry) {
+		BitSet result = new BitSet(companies.size());
+		result.set(0, companies.size());
+
+		if (!filterRoom.isEmpty()) {
+			and(result, roomSets.get(filterRoom));
+		}
+		if (!filterMajor.isEmpty()) {
+			result.and(union(majorSets, StringTable.MAJOR_ABBREVS, filterMajor,
+					ALL_MAJORS));
+		}
+		if (!filterWorkAuth.isEmpty()) {
+			result.and(union(workAuthSets, StringTable.WORK_AUTHS,
+					filterWorkAuth, BLANK));
+		}
+		if (!filterPosition.isEmpty()) {
+			result.and(union(positionSets, StringTable.POSITIONS,
+					filterPosition, BLANK));
+		}
+		if (!filterIndustry.isEmpty()) {
+			BitSet industries = union(industrySets, StringTable.INDUSTRIES,
+					filterIndustry, BLANK);
+			// Untagged companies have no industryTag rows, they match as
+			// missing an industry, like blanks in the other categories
+			industries.or(blanks(false, false, false, true));
+			result.and(industries);
+		}
+		return result;
+	}
+
+	/**
+	 * getMissing
+	 *
+	 * @param id
+	 *            - the dense id of the company
+	 * @return the MISSING_* bits of the categories the company has no value
+	 *         for
+	 */
+	public int getMissing(int id) {
+		return missing[id];
+	}
+
+	/**
+	 * blanks - finds the companies missing information for one of the
+	 * filtered categories
+	 *
+	 * @param majors
+	 *            - true if majors are being filtered
+	 * @param workAuths
+	 *            - true if work authorizations are being filtered
+	 * @param positions
+	 *            - true if positions are being filtered
+	 * @return a new bitset of the dense ids of the companies with a blank
+	 */
+	public BitSet blanks(boolean majors, boolean workAuths, boolean positions) {
+		return blanks(majors, workAuths, positions, false);
+	}
+
+	/**
+	 * blanks - finds the companies missing information for one of the
+	 * filtered categories, including industries
+	 *
+	 * @param majors
+	 *            - true if majors are being filtered
+	 * @param workAuths
+	 *            - true if work authorizations are being filtered
+	 * @param positions
+	 *            - true if positions are being filtered
+	 * @param industries
+	 *            - true if industries are being filtered
+	 * @return a new bitset of the dense ids of the companies with a blank
+	 */
+	public BitSet blanks(boolean majors, boolean workAuths, boolean positions,
+			boolean industries) {
+		int mask = (majors ? MISSING_MAJOR : 0)
+				| (workAuths ? MISSING_WORK_AUTH : 0)
+				| (positions ? MISSING_POSITION : 0)
+				| (industries ? MISSING_INDUSTRY : 0);
+		BitSet result = new BitSet(companies.size());
+		if (mask != 0) {
+			for (int id = 0; id < missing.length; id++) {
+				if ((missing[id] & mask) != 0) {
+					result.set(id);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void and(BitSet result, BitSet set) {
+		if (set == null) {
+			result.clear();
+		} else {
+			result.and(set);
+		}
+	}
+
+	/**
+	 * Unions the sets of the values and the wildcard, values missing from
+	 * the table have no companies
+	 */
+	private static BitSet union(IdentityHashMap<String, BitSet> sets,
+			StringTable table, List<String> values, String wildcard) {
+		BitSet result = new BitSet();
+		BitSet set = sets.get(table.find(wildcard));
+		if (set != null) {
+			result.or(set);
+		}
+		for (String value : values) {
+			set = sets.get(table.find(value));
+			if (set != null) {
+				result.or(set);
+			}
+		}
+		return result;
+	}
+
+	private static BitSet getSet(Map<String, BitSet> sets, String key) {
+		BitSet set = sets.get(key);
+		if (set == null) {
+			set = new BitSet();
+			sets.put(key, set);
+		}
+		return set;
+	}
+}
@@ -0,0 +1,278 @@
+/**
+ * This class holds the result of one DbAccess.getCompaniesWith call: the
+ * matching companies in display order, their names, and the same lists split
+ * into the companies matching every filtered category ("matches") and the
+ * ones missing information for a filtered category ("blanks").
+ *
+ * A FilterResult never changes once built, so it can be handed between
+ * threads and kept by fragments without copying. Only the id sets are built
+ * up front. The lists are read only views over two id arrays built on first
+ * use: one in display order, and one partitioned into matches and blanks so
+ * both separated lists are ranges of it. Lists that show the result a window
+ * at a time should use a CompanyPager instead.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class FilterResult {
+
+	private final FilterEngine engine;
+	private final BitSet ids;
+	private final BitSet matchIds;
+	private final BitSet blankIds;
+	private final int size;
+
+	// Built on first use, racing threads build equal lists
+	private volatile Lists lists;
+	// Built on first use, racing threads build equal sets
+	private volatile Set<String> nameSet;
+
+	/**
+	 * The matching ids, built only for callers that need every company at
+	 * once: in display order, and partitioned with the companies matching
+	 * every filtered category first and the blanks after them
+	 */
+	private static final class Lists {
+		final int[] ordered;
+		final int[] partitioned;
+		final int matchCount;
+
+		Lists(BitSet ids, BitSet blankIds, int size) {
+			ordered = new int[size];
+			partitioned = new int[size];
+			int position = 0;
+			int match = 0;
+			int blank = size - blankIds.cardinality();
+			matchCount = blank;
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				ordered[position++] = id;
+				if (blankIds.get(id)) {
+					partitioned[blank++] = id;
+				} else {
+					partitioned[match++] = id;
+				}
+			}
+		}
+	}
+
+	/**
+	 * FilterResult constructor
+	 *
+	 * @param aEngine
+	 *            - the engine the ids refer to
+	 * @param aIds
+	 *            - the dense ids of the matching companies
+	 * @param aBlankIds
+	 *            - the dense ids of the companies missing information for a
+	 *            filtered category
+	 */
+	FilterResult(FilterEngine aEngine, BitSet aIds, BitSet aBlankIds) {
+		engine = aEngine;
+		ids = (BitSet) aIds.clone();
+		blankIds = (BitSet) aBlankIds.clone();
+		blankIds.and(ids);
+		matchIds = (BitSet) ids.clone();
+		matchIds.andNot(blankIds);
+		size = ids.cardinality();
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @return every matching company in display order (read only)
+	 */
+	public List<Company> getCompanies() {
+		Lists current = getLists();
+		return companies(current.ordered, 0, current.ordered.length);
+	}
+
+	/**
+	 * getNames
+	 *
+	 * @return the names of getCompanies (read only)
+	 */
+	public List<String> getNames() {
+		Lists current = getLists();
+		return names(current.ordered, 0, current.ordered.length);
+	}
+
+	/**
+	 * getPartitioned
+	 *
+	 * @return every matching company, the getMatchCount companies matching
+	 *         every filtered category first and the blanks after them, each
+	 *         part in display order (read only)
+	 */
+	public List<Company> getPartitioned() {
+		Lists current = getLists();
+		return companies(current.partitioned, 0, current.partitioned.length);
+	}
+
+	/**
+	 * getMatchCount
+	 *
+	 * @return the number of companies before the blanks in getPartitioned
+	 */
+	public int getMatchCount() {
+		return getLists().matchCount;
+	}
+
+	/**
+	 * getSeparated
+	 *
+	 * @param getBlanks
+	 *            - set to true for the companies that had a blank for a
+	 *            filtered value, false for the others
+	 * @return the companies in display order, a range of getPartitioned
+	 *         (read only)
+	 */
+	public List<Company> getSeparated(boolean getBlanks) {
+		Lists current = getLists();
+		return getBlanks ? companies(current.partitioned, current.matchCount,
+				size) : companies(current.partitioned, 0, current.matchCount);
+	}
+
+	/**
+	 * getSeparatedNames
+	 *
+	 * @param getBlanks
+	 *            - set to true for the companies that had a blank for a
+	 *            filtered value, false for the others
+	 * @return the names of getSeparated(getBlanks) (read only)
+	 */
+	public List<String> getSeparatedNames(boolean getBlanks) {
+		Lists current = getLists();
+		return getBlanks ? names(current.partitioned, current.matchCount, size)
+				: names(current.partitioned, 0, current.matchCount);
+	}
+
+	/**
+	 * getPager
+	 *
+	 * @return a pager over every matching company, in the order of
+	 *         getCompanies
+	 */
+	public CompanyPager getPager() {
+		return new CompanyPager(engine, ids);
+	}
+
+	/**
+	 * getSeparatedPager
+	 *
+	 * @param getBlanks
+	 *            - set to true for the companies that had a blank for a
+	 *            filtered value, false for the others
+	 * @return a pager over the companies of getSeparated(getBlanks)
+	 */
+	public CompanyPager getSeparatedPager(boolean getBlanks) {
+		return new CompanyPager(engine, getBlanks ? blankIds : matchIds);
+	}
+
+	/**
+	 * separatedSize
+	 *
+	 * @param getBlanks
+	 *            - set to true for the companies that had a blank for a
+	 *            filtered value, false for the others
+	 * @return the size of getSeparated(getBlanks)
+	 */
+	public int separatedSize(boolean getBlanks) {
+		return getBlanks ? blankIds.cardinality() : matchIds.cardinality();
+	}
+
+	/**
+	 * getIds
+	 *
+	 * @return the dense ids (see CompanyCatalog) of the matching companies
+	 */
+	public BitSet getIds() {
+		return (BitSet) ids.clone();
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of matching companies
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * containsName
+	 *
+	 * @param name
+	 *            - a company name
+	 * @return true if a company with that name matched
+	 */
+	public boolean containsName(String name) {
+		Set<String> set = nameSet;
+		if (set == null) {
+			HashSet<String> names = new HashSet<String>();
+			for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+				names.add(engine.getCompany(id).getName());
+			}
+			set = Collections.unmodifiableSet(names);
+			nameSet = set;
+		}
+		return set.contains(name);
+	}
+
+	private Lists getLists() {
+		Lists current = lists;
+		if (current == null) {
+			current = new Lists(ids, blankIds, size);
+			lists = current;
+		}
+		return current;
+	}
+
+	/**
+	 * A view of the companies with the ids in [from, to) of an array
+	 */
+	private List<Company> companies(final int[] array, final int from,
+			final int to) {
+		return new AbstractList<Company>() {
+			@Override
+			public Company get(int index) {
+				if (index < 0 || index >= to - from) {
+					throw new IndexOutOfBoundsException("Index " + index
+							+ ", size " + (to - from));
+				}
+				return engine.getCompany(array[from + index]);
+			}
+
+			@Override
+			public int size() {
+				return to - from;
+			}
+		};
+	}
+
+	/**
+	 * A view of the names of the companies with the ids in [from, to) of an
+	 * array
+	 */
+	private List<String> names(int[] array, int from, int to) {
+		final List<Company> companies = companies(array, from, to);
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return companies.get(index).getName();
+			}
+
+			@Override
+			public int size() {
+				return companies.size();
+			}
+		};
+	}
+}
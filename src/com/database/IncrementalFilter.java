@@ -0,0 +1,206 @@
+/**
+ * This class keeps a getCompaniesWith filter up to date as single values are
+ * checked and unchecked, instead of filtering every company again. For each
+ * category it keeps how many of the selected values every company has, so
+ * toggling a value only visits the companies with that value (a slice of the
+ * catalog's RelationIndex) and patches their bits of the matching set.
+ *
+ * Selecting the first value of a category, or removing its last one, changes
+ * which categories filter at all; the matching set is then rebuilt with one
+ * AND per category over the id bitsets, still without visiting companies.
+ *
+ * getResult gives the same FilterResult getCompaniesWith would for the
+ * current selection. An IncrementalFilter is not thread safe, it should only
+ * be used by one thread at a time.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public final class IncrementalFilter {
+
+	public static final String MAJORS = "majors";
+	public static final String WORK_AUTHS = "workAuths";
+	public static final String POSITIONS = "positions";
+	public static final String INDUSTRIES = "industries";
+
+	private final FilterEngine engine;
+	private final BitSet room;
+	private final Category majors;
+	private final Category workAuths;
+	private final Category positions;
+	private final Category industries;
+	private final BitSet matches;
+
+	// Rebuilt when the set of filtered categories changes
+	private BitSet blanks;
+
+	/**
+	 * The selection of one category and, for each company, how many selected
+	 * values it has
+	 */
+	static final class Category {
+		private final KeyedRelation relation;
+		private final RelationIndex index;
+		private final HashSet<String> selected = new HashSet<String>();
+		private final int[] hits;
+		// Companies with the wildcard or a selected value
+		private final BitSet accepted = new BitSet();
+
+		/**
+		 * Category constructor
+		 *
+		 * @param aRelation
+		 *            - the companies' values and their keys
+		 */
+		Category(KeyedRelation aRelation) {
+			relation = aRelation;
+			index = relation.getIndex();
+			hits = new int[index.getCompanyCount()];
+			accepted.or(relation.getWildcards());
+		}
+
+		boolean isFiltering() {
+			return !selected.isEmpty();
+		}
+
+		boolean accepts(int company) {
+			return !isFiltering() || accepted.get(company);
+		}
+
+		/**
+		 * Adds or removes a value from the selection, visiting only the
+		 * companies with the value
+		 *
+		 * @return the companies whose accepted bit changed, or null if the
+		 *         value was already (not) selected
+		 */
+		BitSet toggle(String value, boolean checked) {
+			if (checked ? !selected.add(value) : !selected.remove(value)) {
+				return null;
+			}
+			BitSet changed = new BitSet();
+			int step = checked ? 1 : -1;
+			for (int valueId : relation.getValues(relation.findKey(value))) {
+				int end = index.companiesEnd(valueId);
+				for (int i = index.companiesStart(valueId); i < end; i++) {
+					int company = index.companyAt(i);
+					boolean before = hits[company] > 0;
+					hits[company] += step;
+					if (before != hits[company] > 0
+							&& !relation.hasWildcard(company)) {
+						accepted.flip(company);
+						changed.set(company);
+					}
+				}
+			}
+			return changed;
+		}
+	}
+
+	/**
+	 * IncrementalFilter constructor - starts with nothing selected
+	 *
+	 * @param aEngine
+	 *            - the engine the results refer to
+	 * @param filterRoom
+	 *            - the room name or "" for every room
+	 * @param aMajors
+	 *            - the major category, keyed by abbreviation
+	 * @param aWorkAuths
+	 *            - the work authorization category
+	 * @param aPositions
+	 *            - the position category
+	 * @param aIndustries
+	 *            - the industry category
+	 */
+	IncrementalFilter(FilterEngine aEngine, String filterRoom,
+			Category aMajors, Category aWorkAuths, Category aPositions,
+			Category aIndustries) {
+		engine = aEngine;
+		majors = aMajors;
+		workAuths = aWorkAuths;
+		positions = aPositions;
+		industries = aIndustries;
+		List<String> none = Collections.emptyList();
+		room = engine.filter(filterRoom, none, none, none);
+		matches = (BitSet) room.clone();
+		blanks = engine.blanks(false, false, false);
+	}
+
+	/**
+	 * toggle - checks or unchecks one filter value
+	 *
+	 * @param category
+	 *            - MAJORS, WORK_AUTHS, POSITIONS or INDUSTRIES
+	 * @param value
+	 *            - a major abbreviation, work authorization, position or
+	 *            industry
+	 * @param checked
+	 *            - true to add the value to the selection, false to remove
+	 *            it
+	 */
+	public void toggle(String category, String value, boolean checked) {
+		Category toggled = getCategory(category);
+		boolean wasFiltering = toggled.isFiltering();
+		BitSet changed = toggled.toggle(value, checked);
+		if (changed == null) {
+			return;
+		}
+
+		if (wasFiltering != toggled.isFiltering()) {
+			// Which categories filter changed, AND the accepted sets again
+			matches.clear();
+			matches.or(room);
+			and(matches, majors);
+			and(matches, workAuths);
+			and(matches, positions);
+			and(matches, industries);
+			blanks = engine.blanks(majors.isFiltering(),
+					workAuths.isFiltering(), positions.isFiltering(),
+					industries.isFiltering());
+			return;
+		}
+
+		for (int id = changed.nextSetBit(0); id >= 0; id = changed
+				.nextSetBit(id + 1)) {
+			matches.set(id, room.get(id) && majors.accepts(id)
+					&& workAuths.accepts(id) && positions.accepts(id)
+					&& industries.accepts(id));
+		}
+	}
+
+	/**
+	 * getResult
+	 *
+	 * @return the companies matching the current selection, as
+	 *         DbAccess.getCompaniesWith would give them
+	 */
+	public FilterResult getResult() {
+		return new FilterResult(engine, matches, blanks);
+	}
+
+	private Category getCategory(String category) {
+		if (MAJORS.equals(category)) {
+			return majors;
+		} else if (WORK_AUTHS.equals(category)) {
+			return workAuths;
+		} else if (POSITIONS.equals(category)) {
+			return positions;
+		} else if (INDUSTRIES.equals(category)) {
+			return industries;
+		}
+		throw new IllegalArgumentException("Unknown category " + category);
+	}
+
+	private static void and(BitSet result, Category category) {
+		if (category.isFiltering()) {
+			result.and(category.accepted);
+		}
+	}
+}
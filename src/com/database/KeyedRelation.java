@@ -0,0 +1,152 @@
+/**
+ * This class puts a RelationIndex together with the key each of its values is
+ * filtered by (the StringTable id of a work authorization, position or major
+ * abbreviation), the values with each key, and the companies with the
+ * category's wildcard ("ALL" major, blank type), which match any selection.
+ * For industries, which have no blank rows, the companies without any value
+ * are the wildcard's.
+ *
+ * It is built once per catalog and shared by the facet counts, incremental
+ * filters and rankings. It never changes once built and may be read from any
+ * thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.BitSet;
+
+final class KeyedRelation {
+
+	private final RelationIndex index;
+	private final StringTable table;
+	// value -> key
+	private final int[] keys;
+	// key -> the values with that key
+	private final int[][] valuesByKey;
+	private final int wildcardKey;
+	// Companies with the wildcard
+	private final BitSet wildcards = new BitSet();
+
+	/**
+	 * KeyedRelation constructor
+	 *
+	 * @param aIndex
+	 *            - the companies' values
+	 * @param aKeys
+	 *            - the key of each value of the index
+	 * @param aTable
+	 *            - the table of the keys
+	 * @param wildcard
+	 *            - the value matching every selection
+	 */
+	KeyedRelation(RelationIndex aIndex, int[] aKeys, StringTable aTable,
+			String wildcard) {
+		this(aIndex, aKeys, aTable, wildcard, false);
+	}
+
+	/**
+	 * KeyedRelation constructor
+	 *
+	 * @param aIndex
+	 *            - the companies' values
+	 * @param aKeys
+	 *            - the key of each value of the index
+	 * @param aTable
+	 *            - the table of the keys
+	 * @param wildcard
+	 *            - the value matching every selection
+	 * @param noValueIsWildcard
+	 *            - true if companies without any value match every
+	 *            selection too
+	 */
+	KeyedRelation(RelationIndex aIndex, int[] aKeys, StringTable aTable,
+			String wildcard, boolean noValueIsWildcard) {
+		index = aIndex;
+		keys = aKeys;
+		table = aTable;
+
+		int size = 0;
+		for (int key : keys) {
+			size = Math.max(size, key + 1);
+		}
+		int[] counts = new int[size];
+		for (int key : keys) {
+			counts[key]++;
+		}
+		valuesByKey = new int[size][];
+		for (int key = 0; key < size; key++) {
+			valuesByKey[key] = new int[counts[key]];
+			counts[key] = 0;
+		}
+		for (int value = 0; value < keys.length; value++) {
+			valuesByKey[keys[value]][counts[keys[value]]++] = value;
+		}
+
+		wildcardKey = findKey(wildcard);
+		for (int value : getValues(wildcardKey)) {
+			int end = index.companiesEnd(value);
+			for (int i = index.companiesStart(value); i < end; i++) {
+				wildcards.set(index.companyAt(i));
+			}
+		}
+		if (noValueIsWildcard) {
+			for (int company = 0; company < index.getCompanyCount(); company++) {
+				if (index.countValues(company) == 0) {
+					wildcards.set(company);
+				}
+			}
+		}
+	}
+
+	RelationIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the number of keys, every key is below it
+	 */
+	int getKeyCount() {
+		return valuesByKey.length;
+	}
+
+	/**
+	 * @return the key of a value of the index
+	 */
+	int getKey(int value) {
+		return keys[value];
+	}
+
+	/**
+	 * @return the key of a filter value, or -1 if no company has it
+	 */
+	int findKey(String value) {
+		int key = table.findId(value);
+		return (key < valuesByKey.length) ? key : -1;
+	}
+
+	/**
+	 * @return the values of the index with a key, empty for -1
+	 */
+	int[] getValues(int key) {
+		return (key < 0) ? new int[0] : valuesByKey[key];
+	}
+
+	/**
+	 * @return true if the key is the wildcard's
+	 */
+	boolean isWildcard(int key) {
+		return key >= 0 && key == wildcardKey;
+	}
+
+	boolean hasWildcard(int company) {
+		return wildcards.get(company);
+	}
+
+	/**
+	 * @return the companies with the wildcard, not to be changed
+	 */
+	BitSet getWildcards() {
+		return wildcards;
+	}
+}
@@ -1,5 +1,7 @@
 /** 
- * This class stores all the relevant information about a major
+ * This class stores all the relevant information about a major. Majors read
+ * from the database are shared app wide (see MajorRegistry.intern), so they
+ * can be compared with ==.
  * 
  * @author Hannah Wilder 
  * @version 1.0
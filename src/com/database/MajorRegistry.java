@@ -0,0 +1,101 @@
+/**
+ * This class gives every distinct major (name and abbreviation) a short id,
+ * app wide, so companies can store their majors as a short[] instead of
+ * lists of objects and strings. Majors from the database are registered in
+ * abbreviation order when the catalog loads, so their ids follow that order.
+ *
+ * intern returns one shared Major per name and abbreviation, so majors from
+ * the catalog and the details cache can be compared with ==.
+ *
+ * Ids are never reused or removed. Lookups by id do not lock and may be made
+ * from any thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public final class MajorRegistry {
+
+	// "abbreviation\nname" -> id
+	private static final HashMap<String, Short> ids = new HashMap<String, Short>();
+	// id -> major, replaced (never changed) when a major is added
+	private static volatile Major[] majors = new Major[0];
+
+	private MajorRegistry() {
+	}
+
+	/**
+	 * getId - gets the id of a major, registering it the first time
+	 *
+	 * @param major
+	 *            - a major
+	 * @return the id of the major, shared by every major with the same name
+	 *         and abbreviation
+	 */
+	public static synchronized short getId(Major major) {
+		String key = major.getAbbrev() + '\n' + major.getName();
+		Short id = ids.get(key);
+		if (id == null) {
+			if (majors.length > Short.MAX_VALUE) {
+				throw new IllegalStateException("Too many majors");
+			}
+			id = (short) majors.length;
+			Major[] grown = Arrays.copyOf(majors, majors.length + 1);
+			grown[id] = major;
+			majors = grown;
+			ids.put(key, id);
+		}
+		return id;
+	}
+
+	/**
+	 * findId - gets the id of a major without registering it
+	 *
+	 * @param major
+	 *            - a major
+	 * @return the id of the major, or -1 if no major with the same name and
+	 *         abbreviation is registered
+	 */
+	public static synchronized int findId(Major major) {
+		Short id = ids.get(major.getAbbrev() + '\n' + major.getName());
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * intern - gets the shared major with a name and abbreviation, creating
+	 * and registering it the first time
+	 *
+	 * @param name
+	 *            - the "long" name of the major
+	 * @param abbrev
+	 *            - the abbreviation of the major
+	 * @return the one Major registered with that name and abbreviation
+	 */
+	public static Major intern(String name, String abbrev) {
+		return getMajor(getId(new Major(name, StringTable.MAJOR_ABBREVS
+				.intern(abbrev))));
+	}
+
+	/**
+	 * getMajor
+	 *
+	 * @param id
+	 *            - an id returned by getId
+	 * @return the major registered with that id
+	 */
+	public static Major getMajor(short id) {
+		return majors[id];
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of registered majors
+	 */
+	public static int size() {
+		return majors.length;
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * This class builds the SQL for the queries the catalog still sends to
+ * SQLite: the full-text search of company names and the batched reads of
+ * company details. The filter and search SQL this class first built was
+ * superseded by the in-memory FilterEngine (user-001) and the SearchIndex
+ * (user-005) and has been removed. The SQL only depends on the shape of a
+ * request (which relation and how many companies), all the values are bound
+ * as arguments.
+ * That keeps the SQL text identical between calls of the same shape, so
+ * SQLite's prepared statement cache can reuse the compiled statement, and
+ * values with apostrophes can no longer break the query.
+ *
+ * The most recently used plans are kept in an LRU keyed by shape.
+ * CompanyDetailsCache pads its batches to four fixed sizes, so the three
+ * relations and the search make at most 13 shapes and all of them fit.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class QueryPlans {
+
+	// Number of plans kept, older shapes are rebuilt when needed again
+	public static final int MAX_PLANS = 16;
+
+	// Relations of a company, see relationPlan
+	public static final String MAJORS = "majors";
+	public static final String POSITIONS = "positions";
+	public static final String WORK_AUTHS = "workAuths";
+
+	private static final LinkedHashMap<String, String> plans = new LinkedHashMap<String, String>(
+			MAX_PLANS, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_PLANS;
+		}
+	};
+
+	private QueryPlans() {
+	}
+
+	/**
+	 * matchPlan - gets the SQL for a full-text search of the company names,
+	 * selecting the company._id of the matches
+	 *
+	 * @return the SQL, bind a SearchIndex.matchQuery expression to it
+	 */
+	public static synchronized String matchPlan() {
+		String sql = plans.get("match");
+		if (sql == null) {
+			sql = "SELECT docid FROM " + SearchIndex.TABLE + " WHERE "
+					+ SearchIndex.TABLE + " MATCH ?;";
+			plans.put("match", sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * relationPlan - gets the SQL for reading one relation of several
+	 * companies, selecting (companyID, majorID) for MAJORS and (companyID,
+	 * type) for POSITIONS and WORK_AUTHS, each company's rows in the order
+	 * they are shown
+	 *
+	 * @param relation
+	 *            - MAJORS, POSITIONS or WORK_AUTHS
+	 * @param ids
+	 *            - the number of company._id values to bind, one of the
+	 *            CompanyDetailsCache.batchSize values
+	 * @return the SQL for this shape, with one ? per company._id
+	 */
+	public static synchronized String relationPlan(String relation, int ids) {
+		String shape = relation + ":" + ids;
+		String sql = plans.get(shape);
+		if (sql == null) {
+			StringBuilder query = new StringBuilder();
+			String orderBy;
+			if (relation.equals(MAJORS)) {
+				query.append("SELECT DISTINCT companyToMajor.companyID, companyToMajor.majorID FROM companyToMajor, major WHERE companyToMajor.majorID=major._id AND companyToMajor.companyID IN (");
+				orderBy = " ORDER BY major.abbreviation;";
+			} else if (relation.equals(POSITIONS)) {
+				query.append("SELECT DISTINCT companyToType.companyID, employmentType.type FROM companyToType, employmentType WHERE companyToType.typeID=employmentType._id AND companyToType.companyID IN (");
+				orderBy = " ORDER BY companyToType._id;";
+			} else if (relation.equals(WORK_AUTHS)) {
+				query.append("SELECT DISTINCT companyToWorkAuth.companyID, workAuth.type FROM companyToWorkAuth, workAuth WHERE companyToWorkAuth.workAuthID=workAuth._id AND companyToWorkAuth.companyID IN (");
+				orderBy = " ORDER BY companyToWorkAuth._id;";
+			} else {
+				throw new IllegalArgumentException("Unknown relation "
+						+ relation);
+			}
+			for (int i = 0; i < ids; i++) {
+				query.append(i == 0 ? "?" : ", ?");
+			}
+			query.append(")").append(orderBy);
+			sql = query.toString();
+			plans.put(shape, sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of plans currently cached
+	 */
+	public static synchronized int size() {
+		return plans.size();
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * This class holds the result of one CompanyRanker.rank call: the best
+ * scoring companies, best first, with their scores. A RankedResult never
+ * changes once built, so it can be handed between threads and kept by
+ * fragments without copying.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.AbstractList;
+import java.util.List;
+
+public final class RankedResult {
+
+	private final FilterEngine engine;
+	private final int[] ids;
+	private final int[] scores;
+
+	/**
+	 * RankedResult constructor
+	 *
+	 * @param aEngine
+	 *            - the engine the ids refer to
+	 * @param aIds
+	 *            - the dense ids of the companies, best first
+	 * @param aScores
+	 *            - the score of each company
+	 */
+	RankedResult(FilterEngine aEngine, int[] aIds, int[] aScores) {
+		engine = aEngine;
+		ids = aIds;
+		scores = aScores;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of ranked companies
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * getCompany
+	 *
+	 * @param position
+	 *            - the rank of a company, from 0 to size() - 1
+	 * @return the company at that rank
+	 */
+	public Company getCompany(int position) {
+		return engine.getCompany(ids[position]);
+	}
+
+	/**
+	 * getScore
+	 *
+	 * @param position
+	 *            - the rank of a company, from 0 to size() - 1
+	 * @return the score of the company at that rank
+	 */
+	public int getScore(int position) {
+		return scores[position];
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @return a read only view of the ranked companies, best first
+	 */
+	public List<Company> getCompanies() {
+		return new AbstractList<Company>() {
+			@Override
+			public Company get(int index) {
+				return getCompany(index);
+			}
+
+			@Override
+			public int size() {
+				return ids.length;
+			}
+		};
+	}
+
+	/**
+	 * getPager
+	 *
+	 * @return a pager over the ranked companies, best first
+	 */
+	public CompanyPager getPager() {
+		return new CompanyPager(engine, ids);
+	}
+}
@@ -0,0 +1,232 @@
+/**
+ * This class stores one company relation (majors, positions or work
+ * authorizations) as compressed sparse rows in both directions: for each
+ * company the ids of its values, and for each value the dense ids of its
+ * companies. Each direction is an int[] of offsets and an int[] of targets,
+ * so "which companies hire this major" and "how many companies hire it" are
+ * array slices, with no SQL, hashing or boxing.
+ *
+ * Companies are dense ids (see CompanyCatalog) and values are MajorRegistry
+ * or StringTable ids. Both directions are sorted by id, so values come in
+ * the order of their table and companies in display order.
+ *
+ * An index never changes once built and may be read from any thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+
+public final class RelationIndex {
+
+	// company -> values
+	private final int[] offsets;
+	private final int[] targets;
+	// value -> companies
+	private final int[] reverseOffsets;
+	private final int[] reverseTargets;
+
+	/**
+	 * Collects (company, value) pairs, duplicates are dropped when built
+	 */
+	public static final class Builder {
+		private int[] companies = new int[64];
+		private int[] values = new int[64];
+		private int size = 0;
+
+		/**
+		 * add - records that a company has a value
+		 *
+		 * @param company
+		 *            - the dense id of the company
+		 * @param value
+		 *            - the id of the value
+		 */
+		public void add(int company, int value) {
+			if (size == companies.length) {
+				companies = Arrays.copyOf(companies, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			companies[size] = company;
+			values[size] = value;
+			size++;
+		}
+
+		/**
+		 * build
+		 *
+		 * @param companyCount
+		 *            - the number of companies (dense ids are below this)
+		 * @param valueCount
+		 *            - the number of values (value ids are below this)
+		 * @return the index of the recorded pairs
+		 */
+		public RelationIndex build(int companyCount, int valueCount) {
+			return new RelationIndex(companies, values, size, companyCount,
+					valueCount);
+		}
+	}
+
+	private RelationIndex(int[] companies, int[] values, int size,
+			int companyCount, int valueCount) {
+		int[][] rows = compress(companies, values, size, companyCount);
+		offsets = rows[0];
+		targets = rows[1];
+		int[][] reverse = compress(values, companies, size, valueCount);
+		reverseOffsets = reverse[0];
+		reverseTargets = reverse[1];
+	}
+
+	/**
+	 * countValues
+	 *
+	 * @param company
+	 *            - the dense id of a company
+	 * @return the number of values the company has
+	 */
+	public int countValues(int company) {
+		if (company < 0 || company >= offsets.length - 1) {
+			return 0;
+		}
+		return offsets[company + 1] - offsets[company];
+	}
+
+	/**
+	 * getValues
+	 *
+	 * @param company
+	 *            - the dense id of a company
+	 * @return the ids of the company's values, ascending
+	 */
+	public int[] getValues(int company) {
+		if (company < 0 || company >= offsets.length - 1) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(targets, offsets[company],
+				offsets[company + 1]);
+	}
+
+	/**
+	 * countCompanies
+	 *
+	 * @param value
+	 *            - the id of a value
+	 * @return the number of companies with the value
+	 */
+	public int countCompanies(int value) {
+		if (value < 0 || value >= reverseOffsets.length - 1) {
+			return 0;
+		}
+		return reverseOffsets[value + 1] - reverseOffsets[value];
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @param value
+	 *            - the id of a value
+	 * @return the dense ids of the companies with the value, ascending
+	 */
+	public int[] getCompanies(int value) {
+		if (value < 0 || value >= reverseOffsets.length - 1) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(reverseTargets, reverseOffsets[value],
+				reverseOffsets[value + 1]);
+	}
+
+	/**
+	 * getCompanyCounts
+	 *
+	 * @return the number of companies with each value, indexed by value id
+	 */
+	public int[] getCompanyCounts() {
+		int[] counts = new int[reverseOffsets.length - 1];
+		for (int value = 0; value < counts.length; value++) {
+			counts[value] = reverseOffsets[value + 1] - reverseOffsets[value];
+		}
+		return counts;
+	}
+
+	/**
+	 * getCompanyCount
+	 *
+	 * @return the number of companies the index was built for
+	 */
+	public int getCompanyCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * getValueCount
+	 *
+	 * @return the number of values the index was built for
+	 */
+	public int getValueCount() {
+		return reverseOffsets.length - 1;
+	}
+
+	// Used by the facet counts and the incremental filter, which read the
+	// rows in place
+
+	int valuesStart(int company) {
+		return offsets[company];
+	}
+
+	int valuesEnd(int company) {
+		return offsets[company + 1];
+	}
+
+	int valueAt(int offset) {
+		return targets[offset];
+	}
+
+	int companiesStart(int value) {
+		return reverseOffsets[value];
+	}
+
+	int companiesEnd(int value) {
+		return reverseOffsets[value + 1];
+	}
+
+	int companyAt(int offset) {
+		return reverseTargets[offset];
+	}
+
+	/**
+	 * Builds the rows of one direction with a counting sort on the row ids,
+	 * then sorts each row and drops duplicate targets
+	 *
+	 * @return { offsets, targets }
+	 */
+	private static int[][] compress(int[] rowIds, int[] targetIds, int size,
+			int rowCount) {
+		int[] counts = new int[rowCount + 1];
+		for (int i = 0; i < size; i++) {
+			counts[rowIds[i] + 1]++;
+		}
+		for (int row = 0; row < rowCount; row++) {
+			counts[row + 1] += counts[row];
+		}
+		int[] next = Arrays.copyOf(counts, rowCount);
+		int[] sorted = new int[size];
+		for (int i = 0; i < size; i++) {
+			sorted[next[rowIds[i]]++] = targetIds[i];
+		}
+
+		int[] rowOffsets = new int[rowCount + 1];
+		int length = 0;
+		for (int row = 0; row < rowCount; row++) {
+			Arrays.sort(sorted, counts[row], counts[row + 1]);
+			rowOffsets[row] = length;
+			for (int i = counts[row]; i < counts[row + 1]; i++) {
+				if (i == counts[row] || sorted[i] != sorted[i - 1]) {
+					sorted[length++] = sorted[i];
+				}
+			}
+		}
+		rowOffsets[rowCount] = length;
+		return new int[][] { rowOffsets, Arrays.copyOf(sorted, length) };
+	}
+}
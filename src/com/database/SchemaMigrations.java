@@ -0,0 +1,106 @@
+/**
+ * This class upgrades the schema of careerFairDB.db. The bundled database
+ * ships at version 0 (PRAGMA user_version), every step below adds to it and
+ * the version reached is written back, so both fresh copies and existing
+ * installs are brought up to VERSION the next time they are opened.
+ *
+ * Steps:
+ * 1 - full-text search index of company names (see SearchIndex)
+ * 2 - covering indexes on the join tables, both directions, and ANALYZE
+ * 3 - the companyDirectory table (see CompanyDirectory)
+ * 4 - covering indexes on industryTag, both directions, and ANALYZE
+ * 5 - the dataVersion table of applied change-sets, at the version of the
+ *     bundled data (see ChangeSet)
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+public final class SchemaMigrations {
+
+	// The schema version this code expects
+	public static final int VERSION = 5;
+
+	// Join table -> the column linking it to the other table
+	private static final String[][] JOIN_TABLES = {
+			{ "companyToMajor", "majorID" },
+			{ "companyToWorkAuth", "workAuthID" },
+			{ "companyToType", "typeID" },
+			{ "companyToLocation", "locationID" } };
+
+	private SchemaMigrations() {
+	}
+
+	/**
+	 * upgrade - runs the steps after oldVersion up to newVersion in one
+	 * transaction and records newVersion
+	 *
+	 * @param database
+	 *            - a writable SQLite database
+	 * @param oldVersion
+	 *            - the current version of the database
+	 * @param newVersion
+	 *            - the version to upgrade to
+	 */
+	public static void upgrade(SQLiteDatabase database, int oldVersion,
+			int newVersion) {
+		database.beginTransaction();
+		try {
+			for (int version = oldVersion + 1; version <= newVersion; version++) {
+				upgradeTo(database, version);
+			}
+			database.setVersion(newVersion);
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	private static void upgradeTo(SQLiteDatabase database, int version) {
+		switch (version) {
+		case 1:
+			// Searches fall back to substring matching without the index
+			try {
+				SearchIndex.create(database);
+			} catch (SQLException e) {
+				Log.e(SchemaMigrations.class.toString(), "Search index error", e);
+			}
+			break;
+		case 2:
+			for (String[] join : JOIN_TABLES) {
+				createJoinIndexes(database, join[0], join[1]);
+			}
+			database.execSQL("ANALYZE;");
+			break;
+		case 3:
+			CompanyDirectory.create(database);
+			database.execSQL("ANALYZE " + CompanyDirectory.TABLE + ";");
+			break;
+		case 4:
+			createJoinIndexes(database, "industryTag", "tag");
+			database.execSQL("ANALYZE industryTag;");
+			break;
+		case 5:
+			ChangeSet.createVersionTable(database);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown schema version "
+					+ version);
+		}
+	}
+
+	/**
+	 * Indexes a join table from the company to the other column and back
+	 */
+	private static void createJoinIndexes(SQLiteDatabase database,
+			String table, String column) {
+		database.execSQL("CREATE INDEX IF NOT EXISTS " + table + "_company ON "
+				+ table + "(companyID, " + column + ");");
+		database.execSQL("CREATE INDEX IF NOT EXISTS " + table + "_" + column
+				+ " ON " + table + "(" + column + ", companyID);");
+	}
+}
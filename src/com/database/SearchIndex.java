@@ -0,0 +1,209 @@
+/**
+ * This class manages the full-text index used to search company names. The
+ * index is an FTS4 virtual table (companySearch) whose docid is company._id,
+ * it is built from the company table by SchemaMigrations.
+ *
+ * Each word typed by the user is matched as a prefix of a word in the company
+ * name (so "mich tech" finds "Michigan Technological University"), and the
+ * results are ranked: names starting with the query first, then names with a
+ * whole word equal to a query word, then the other prefix matches.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+public final class SearchIndex {
+
+	public static final String TABLE = "companySearch";
+
+	private SearchIndex() {
+	}
+
+	/**
+	 * exists - checks whether the search index has been built
+	 *
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return true if the companySearch table exists
+	 */
+	public static boolean exists(SQLiteDatabase database) {
+		Cursor cursor = database.rawQuery(
+				"SELECT name FROM sqlite_master WHERE type='table' AND name=?;",
+				new String[] { TABLE });
+		boolean exists = cursor.moveToFirst();
+		cursor.close();
+		return exists;
+	}
+
+	/**
+	 * create - builds the search index from the company table, does nothing
+	 * if it already exists. Call it inside a transaction
+	 *
+	 * @param database
+	 *            - a writable SQLite database
+	 */
+	public static void create(SQLiteDatabase database) {
+		if (exists(database)) {
+			return;
+		}
+		database.execSQL("CREATE VIRTUAL TABLE " + TABLE + " USING fts4(name);");
+		database.execSQL("INSERT INTO " + TABLE
+				+ "(docid, name) SELECT _id, name FROM company;");
+	}
+
+	/**
+	 * rebuild - builds the search index again after the company table
+	 * changed, does nothing if there is no index. Call it inside a
+	 * transaction
+	 *
+	 * @param database
+	 *            - a writable SQLite database
+	 */
+	public static void rebuild(SQLiteDatabase database) {
+		if (!exists(database)) {
+			return;
+		}
+		database.execSQL("DELETE FROM " + TABLE + ";");
+		database.execSQL("INSERT INTO " + TABLE
+				+ "(docid, name) SELECT _id, name FROM company;");
+	}
+
+	/**
+	 * tokenize - splits a string into lower case words the same way the FTS
+	 * "simple" tokenizer does (anything that is not a letter or digit
+	 * separates words)
+	 *
+	 * @param text
+	 *            - the text to split
+	 * @return the words in the text
+	 */
+	public static ArrayList<String> tokenize(String text) {
+		ArrayList<String> tokens = new ArrayList<String>();
+		String lower = text.toLowerCase(Locale.US);
+		int start = -1;
+		for (int i = 0; i <= lower.length(); i++) {
+			boolean wordChar = i < lower.length()
+					&& Character.isLetterOrDigit(lower.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				tokens.add(lower.substring(start, i));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * matchQuery - builds the FTS MATCH expression for a user query, every
+	 * word must appear as a prefix of a word in the name
+	 *
+	 * @param tokens
+	 *            - the words returned by tokenize
+	 * @return the MATCH expression
+	 */
+	public static String matchQuery(ArrayList<String> tokens) {
+		StringBuilder match = new StringBuilder();
+		for (String token : tokens) {
+			if (match.length() > 0) {
+				match.append(' ');
+			}
+			match.append(token).append('*');
+		}
+		return match.toString();
+	}
+
+	/**
+	 * search - finds the companies matching a user query
+	 *
+	 * @param filterName
+	 *            - the text typed by the user, "" matches every company
+	 * @param catalog
+	 *            - the catalog to return companies from
+	 * @param database
+	 *            - SQLite database object returned by
+	 *            ExternalDbOpenHelper.openDataBase
+	 * @return the matching companies, best match first
+	 */
+	public static ArrayList<Company> search(String filterName,
+			CompanyCatalog catalog, SQLiteDatabase database) {
+		ArrayList<String> tokens = tokenize(filterName);
+		if (tokens.isEmpty()) {
+			if (filterName.trim().isEmpty()) {
+				return new ArrayList<Company>(catalog.getCompanies());
+			}
+			return new ArrayList<Company>();
+		}
+
+		// Collect the dense ids of the matching companies
+		int[] ids = new int[16];
+		int count = 0;
+		Cursor cursor = database.rawQuery(QueryPlans.matchPlan(),
+				new String[] { matchQuery(tokens) });
+		for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+			for (int id : catalog.getIdsForCompany(cursor.getInt(0))) {
+				if (count == ids.length) {
+					ids = Arrays.copyOf(ids, count * 2);
+				}
+				ids[count++] = id;
+			}
+		}
+		cursor.close();
+
+		// Sort by rank then display order, packed into one long per company
+		long[] ranked = new long[count];
+		String phrase = join(tokens);
+		for (int i = 0; i < count; i++) {
+			ranked[i] = ((long) rank(catalog.getCompany(ids[i]).getName(),
+					phrase, tokens) << 32)
+					| ids[i];
+		}
+		Arrays.sort(ranked);
+
+		ArrayList<Company> results = new ArrayList<Company>(count);
+		for (long entry : ranked) {
+			results.add(catalog.getCompany((int) entry));
+		}
+		return results;
+	}
+
+	/**
+	 * 0 if the name starts with the query, 1 if one of its words equals a
+	 * query word, 2 otherwise
+	 */
+	private static int rank(String name, String phrase,
+			ArrayList<String> tokens) {
+		ArrayList<String> words = tokenize(name);
+		if (!words.isEmpty() && words.get(0).equals("the")) {
+			words.remove(0);
+		}
+		if (join(words).startsWith(phrase)) {
+			return 0;
+		}
+		for (String token : tokens) {
+			if (words.contains(token)) {
+				return 1;
+			}
+		}
+		return 2;
+	}
+
+	private static String join(ArrayList<String> words) {
+		StringBuilder joined = new StringBuilder();
+		for (String word : words) {
+			if (joined.length() > 0) {
+				joined.append(' ');
+			}
+			joined.append(word);
+		}
+		return joined.toString();
+	}
+}
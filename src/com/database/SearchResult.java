@@ -0,0 +1,76 @@
+/**
+ * This class holds the result of one DbAccess.searchAllCompanies call: the
+ * search text, the matching companies (best match first) and their names.
+ *
+ * A SearchResult never changes once built, so it can be handed between
+ * threads and kept by fragments without copying.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class SearchResult {
+
+	private final String query;
+	private final List<Company> companies;
+	private final List<String> names;
+
+	/**
+	 * SearchResult constructor
+	 *
+	 * @param aQuery
+	 *            - the text searched for
+	 * @param aCompanies
+	 *            - the matching companies, best match first
+	 */
+	SearchResult(String aQuery, List<Company> aCompanies) {
+		query = aQuery;
+		companies = Collections.unmodifiableList(new ArrayList<Company>(
+				aCompanies));
+		ArrayList<String> companyNames = new ArrayList<String>();
+		for (Company company : companies) {
+			companyNames.add(company.getName());
+		}
+		names = Collections.unmodifiableList(companyNames);
+	}
+
+	/**
+	 * getQuery
+	 *
+	 * @return the text searched for
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * getCompanies
+	 *
+	 * @return the matching companies, best match first (read only)
+	 */
+	public List<Company> getCompanies() {
+		return companies;
+	}
+
+	/**
+	 * getNames
+	 *
+	 * @return the names of getCompanies (read only)
+	 */
+	public List<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of matching companies
+	 */
+	public int size() {
+		return companies.size();
+	}
+}
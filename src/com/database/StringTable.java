@@ -0,0 +1,110 @@
+/**
+ * This class stores each distinct string of a kind (position types, work
+ * authorization types, major abbreviations, industry tags) once and gives
+ * it an int id, so companies can store their values as an int[] into the
+ * table instead of their own strings. intern returns the one stored instance
+ * of a value, so interned values can be compared with ==.
+ *
+ * Ids are never reused or removed. Lookups by id do not lock and may be made
+ * from any thread.
+ *
+ * @version 1.0
+ */
+package com.database;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public final class StringTable {
+
+	// Position types (employmentType.type)
+	public static final StringTable POSITIONS = new StringTable();
+	// Work authorization types (workAuth.type)
+	public static final StringTable WORK_AUTHS = new StringTable();
+	// Major abbreviations (major.abbreviation)
+	public static final StringTable MAJOR_ABBREVS = new StringTable();
+	// Industry tags (industryTag.tag)
+	public static final StringTable INDUSTRIES = new StringTable();
+
+	private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	// id -> string, replaced (never changed) when a string is added
+	private volatile String[] strings = new String[0];
+
+	private StringTable() {
+	}
+
+	/**
+	 * getId - gets the id of a string, adding it the first time
+	 *
+	 * @param string
+	 *            - a value
+	 * @return the id of the value
+	 */
+	public synchronized int getId(String string) {
+		Integer id = ids.get(string);
+		if (id == null) {
+			id = strings.length;
+			String[] grown = Arrays.copyOf(strings, strings.length + 1);
+			grown[id] = string;
+			strings = grown;
+			ids.put(string, id);
+		}
+		return id;
+	}
+
+	/**
+	 * intern - gets the stored instance of a string, adding it the first time
+	 *
+	 * @param string
+	 *            - a value
+	 * @return the instance stored in the table, equal to string
+	 */
+	public String intern(String string) {
+		return get(getId(string));
+	}
+
+	/**
+	 * find - gets the stored instance of a string without adding it
+	 *
+	 * @param string
+	 *            - a value
+	 * @return the instance stored in the table, or null if the value is not
+	 *         in the table
+	 */
+	public synchronized String find(String string) {
+		Integer id = ids.get(string);
+		return (id == null) ? null : strings[id];
+	}
+
+	/**
+	 * findId - gets the id of a string without adding it
+	 *
+	 * @param string
+	 *            - a value
+	 * @return the id of the value, or -1 if the value is not in the table
+	 */
+	public synchronized int findId(String string) {
+		Integer id = ids.get(string);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * get
+	 *
+	 * @param id
+	 *            - an id returned by getId
+	 * @return the string stored with that id
+	 */
+	public String get(int id) {
+		return strings[id];
+	}
+
+	/**
+	 * size
+	 *
+	 * @return the number of strings in the table
+	 */
+	public int size() {
+		return strings.length;
+	}
+}
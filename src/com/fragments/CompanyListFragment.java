@@ -1,11 +1,14 @@
 package com.fragments;
 
 import java.util.ArrayList;
+import java.util.List;
 
-import com.database.DbAccess;
+import com.database.CompanyPager;
+import com.database.FilterResult;
 import com.example.careerfair.R;
 import com.example.careerfair.R.id;
 import com.example.careerfair.R.layout;
+import com.helpers.PagedCompanyAdapter;
 import com.helpers.SeparatedListAdapter;
 
 import android.app.ActionBar;
@@ -54,7 +57,12 @@ public class CompanyListFragment extends Fragment {
 	private ActionBarDrawerToggle mDrawerToggle;
 	// private ExternalDbOpenHelper dbOpenHelper;
 	// private static ArrayList<Company> companyList;
-	private static ArrayList<String> companyNames;
+	private static List<String> companyNames;
+	private FilterResult mFilterResult;
+	// Pagers over the filter result, the list only reads the pages it shows
+	private CompanyPager mAllPager;
+	private CompanyPager mMatchPager;
+	private CompanyPager mBlankPager;
 	private static ArrayList<String> companyNameTag = new ArrayList<String>();
 	
 	private static ArrayList<String> companyNameTagNoBlank = new ArrayList<String>();
@@ -76,21 +84,25 @@ public class CompanyListFragment extends Fragment {
 
 	}
 	
-	public CompanyListFragment(ArrayList<String> aCompanyNames, boolean aSearch) {
-		companyNames = aCompanyNames;
+	public CompanyListFragment(List<String> aCompanyNames, boolean aSearch) {
+		if (aCompanyNames != null) {
+			companyNames = aCompanyNames;
+		}
 		mSearchOn = aSearch;
 	}
 	
 	/**newInstance
 	 * Returns a new instance of this fragment for the given section number.
 	 * @para sectionNumber - 
-	 * @para companyName - the filtedCompanyNames in the MainActivity 
+	 * @para companyName - the searched company names, or null to list the filterResult of the MainActivity
 	 * @return Return a new instance of this fragment
 	 */
 
 	public CompanyListFragment newInstance(int sectionNumber,
-			ArrayList<String> companyName, boolean aSearch) {
-		companyNames = companyName;
+			List<String> companyName, boolean aSearch) {
+		if (companyName != null) {
+			companyNames = companyName;
+		}
 		CompanyListFragment fragment = new CompanyListFragment(companyName, aSearch);
 		Bundle args = new Bundle();
 		args.putInt(ARG_SECTION_NUMBER, sectionNumber);
@@ -161,6 +173,14 @@ public class CompanyListFragment extends Fragment {
 	 */
 	public View onCreateView(LayoutInflater inflater, ViewGroup container,
 			Bundle savedInstanceState) {
+		MainActivity main = (MainActivity) getActivity();
+		if (!mSearchOn && main.filterResult == null) {
+			//Built before the first filter finished (such as when restored), show an
+			//empty list and let the MainActivity show the companies once they are filtered
+			main.showCompanyListWhenFiltered();
+			return inflater.inflate(R.layout.company_list, container, false);
+		}
+		buildAlphabetTags();
 		
 		// Inflate the layout for this fragment
 		/* non-javadoc
@@ -179,11 +199,12 @@ public class CompanyListFragment extends Fragment {
 		SharedPreferences sharedPref = getActivity().getPreferences(
 						Context.MODE_PRIVATE);
 			
-		if (sharedPref.getBoolean("separateLists", true) && !mSearchOn) {
+		boolean ranked = ((MainActivity) getActivity()).isSortedByRelevance();
+		if (sharedPref.getBoolean("separateLists", true) && !mSearchOn && !ranked) {
 			SeparatedListAdapter adapter = new SeparatedListAdapter(this.getActivity());
-			adapter.addSection("Matches", new ArrayAdapter<String>(getActionBar().getThemedContext(), android.R.layout.simple_list_item_activated_1, DbAccess.getFilteredNamesSep(false) ));
-			if (DbAccess.getFilteredNamesSep(true).size() > 0) {
-				adapter.addSection("Other Possible Matches (Information Missing)", new ArrayAdapter<String>(getActionBar().getThemedContext(), android.R.layout.simple_list_item_activated_1, DbAccess.getFilteredNamesSep(true) ));
+			adapter.addSection("Matches", new PagedCompanyAdapter(getActionBar().getThemedContext(), mMatchPager));
+			if (mBlankPager.size() > 0) {
+				adapter.addSection("Other Possible Matches (Information Missing)", new PagedCompanyAdapter(getActionBar().getThemedContext(), mBlankPager));
 			}
 			
 			lv1.setAdapter(adapter);
@@ -218,29 +239,20 @@ public class CompanyListFragment extends Fragment {
 					@Override
 					public void onClick(View v) {
 						String firstLetter = (String) v.getTag();
-						int index = 0;
-						ArrayList<String> filteredNames = DbAccess.getFilteredNamesSep(false);
-						if (filteredNames != null) {
-							for (String string : filteredNames) {
-								if (string.replace("The ","").trim().startsWith(firstLetter)) {
-									index = filteredNames.indexOf(string);
-									break;
-								}
-							}
-						}
+						int index = Math.max(mMatchPager.getPositionForInitial(firstLetter), 0);
 						ListView lv1 = (ListView) mCompanyListView.findViewById(id.listView1);
 						lv1.setSelectionFromTop(index + 1, 0);
 					}
 				});    
 			}
-			if (DbAccess.getFilteredNamesSep(true).size() > 0) {
+			if (mBlankPager.size() > 0) {
 				Button btn2 = new Button(getActivity());
 				btn2.setText("-");
 				btn2.setOnClickListener(new Button.OnClickListener() {
 					@Override
 					public void onClick(View v) {
 						ListView lv1 = (ListView) mCompanyListView.findViewById(id.listView1);
-						lv1.setSelectionFromTop(DbAccess.getFilteredNamesSep(false).size()+1, 0);
+						lv1.setSelectionFromTop(mMatchPager.size()+1, 0);
 					}
 				});
 				ll.addView(btn2);
@@ -257,17 +269,8 @@ public class CompanyListFragment extends Fragment {
 						@Override
 						public void onClick(View v) {
 							String firstLetter = (String) v.getTag();
-							int index = 0;
-							ArrayList<String> filteredNames = DbAccess.getFilteredNamesSep(true);
-							int nonBlankSize = DbAccess.getFilteredNamesSep(false).size();
-							if (filteredNames != null) {
-								for (String string : filteredNames) {
-									if (string.replace("The ","").trim().startsWith(firstLetter)) {
-										index = filteredNames.indexOf(string);
-										break;
-									}
-								}
-							}
+							int index = Math.max(mBlankPager.getPositionForInitial(firstLetter), 0);
+							int nonBlankSize = mMatchPager.size();
 							ListView lv1 = (ListView) mCompanyListView.findViewById(id.listView1);
 							lv1.setSelectionFromTop(index + nonBlankSize + 2, 0);
 						}
@@ -293,10 +296,15 @@ public class CompanyListFragment extends Fragment {
 					selectItem(position);
 				}
 			});
-			lv1.setAdapter(new ArrayAdapter<String>(getActionBar()
-					.getThemedContext(),
-					android.R.layout.simple_list_item_activated_1,
-					companyNames));                                                                                                                                                                                                                                                                                                                                                                                                                                                         
+			if (mSearchOn) {
+				lv1.setAdapter(new ArrayAdapter<String>(getActionBar()
+						.getThemedContext(),
+						android.R.layout.simple_list_item_activated_1,
+						companyNames));
+			} else {
+				lv1.setAdapter(new PagedCompanyAdapter(getActionBar()
+						.getThemedContext(), mAllPager));
+			}                                                                                                                                                                                                                                                                                                                                                                                                                                                         
 			lv1.setItemChecked(mCurrentSelectedPosition, true);
 
 
@@ -321,7 +329,9 @@ public class CompanyListFragment extends Fragment {
 					public void onClick(View v) {
 						String firstLetter = (String) v.getTag();
 						int index = 0;
-						if (companyNames != null) {
+						if (!mSearchOn) {
+							index = Math.max(mAllPager.getPositionForInitial(firstLetter), 0);
+						} else if (companyNames != null) {
 							for (String string : (companyNames)) {
 								if (string.replace("The ","").trim().startsWith(firstLetter)) {
 									index = (companyNames.indexOf(string));
@@ -426,47 +436,65 @@ public class CompanyListFragment extends Fragment {
 		*/
 	}
 	
-	@Override
-	/**onAttach
-	 * Called when this fragment is first attached to its activity
-	 * @para activity - the activity it belongs to
+	/**buildAlphabetTags
+	 * Reads the current filter result from the MainActivity, or the searched names in search mode,
+	 * and sets up the alphabet index buttons' letters
 	 */
-	public void onAttach(Activity activity) {
-		super.onAttach(activity);
+	private void buildAlphabetTags() {
 		companyNameTagBlank = new ArrayList<String>();
 		companyNameTagNoBlank = new ArrayList<String>();
 		companyNameTag = new ArrayList<String>();
-		
-		SharedPreferences sharedPref = getActivity().getPreferences(
-				Context.MODE_PRIVATE);
-	
-		if (sharedPref.getBoolean("separateLists", true) && !mSearchOn) {
-			//Setup the alphabet array from filteredCompanyNames
-			for(String string: DbAccess.getFilteredNamesSep(false)){
-				String tag = string.replace("The ","").trim().substring(0, 1);
-					if (!companyNameTagNoBlank.contains(tag))
-						companyNameTagNoBlank.add(tag);
-						
-			}
-			
-			//Setup the alphabet array from filteredCompanyNames
-			for(String string: DbAccess.getFilteredNamesSep(true)){
-				String tag = string.replace("The ","").trim().substring(0, 1);
-					if (!companyNameTagBlank.contains(tag))
-						companyNameTagBlank.add(tag);
-						
-			}
-		} else {
-			//Setup the alphabet array from filteredCompanyNames
+		if (mSearchOn) {
+			//Setup the alphabet array from the searched company names, search results
+			//do not need the filter result
 			for(String string: companyNames){
 				String tag = string.replace("The ","").trim().substring(0, 1);
 					if (!companyNameTag.contains(tag))
 						companyNameTag.add(tag);
 						
 			}
+			return;
 		}
+		// Read each time the view is built, the filter may have changed since
+		// this fragment was attached
+		mFilterResult = ((MainActivity) getActivity()).filterResult;
+		mAllPager = ((MainActivity) getActivity()).getCompanyPager();
+		mMatchPager = mFilterResult.getSeparatedPager(false);
+		mBlankPager = mFilterResult.getSeparatedPager(true);
 		
-		
+		SharedPreferences sharedPref = getActivity().getPreferences(
+				Context.MODE_PRIVATE);
+	
+		boolean ranked = ((MainActivity) getActivity()).isSortedByRelevance();
+		if (sharedPref.getBoolean("separateLists", true) && !ranked) {
+			//Setup the alphabet arrays from the filter result
+			companyNameTagNoBlank = mMatchPager.getInitials();
+			companyNameTagBlank = mBlankPager.getInitials();
+		} else if (ranked) {
+			//A ranked list is not alphabetical, so it has no alphabet index
+		} else {
+			companyNameTag = mAllPager.getInitials();
+		}
+	}
+
+	/**refresh
+	 * Rebuilds the list from the MainActivity's current filter result, used when a background filter finishes
+	 * while this fragment is showing
+	 */
+	public void refresh() {
+		if (!mSearchOn && getView() != null) {
+			getFragmentManager().beginTransaction().detach(this).attach(this)
+					.commit();
+		}
+	}
+
+	@Override
+	/**onAttach
+	 * Called when this fragment is first attached to its activity
+	 * @para activity - the activity it belongs to
+	 */
+	public void onAttach(Activity activity) {
+		super.onAttach(activity);
 		try {
 			mCallbacks = (CompanyListCallbacks) activity;
 		} catch (ClassCastException e) {
@@ -1,8 +1,10 @@
 package com.fragments;
 
-import java.util.ArrayList;
+import java.util.List;
 
+import com.database.AsyncDbAccess;
 import com.database.Company;
+import com.database.CompanyDetails;
 import com.example.careerfair.R;
 //import com.example.careerfair.R.id;
 //import com.example.careerfair.R.layout;
@@ -33,6 +35,9 @@ public class CompanyReaderFragment extends Fragment {
 	 */
 	private static final String ARG_SECTION_NUMBER = "CompanyReader";
 
+	// Shown in each table until the details are loaded
+	private static final String LOADING = "Loading...";
+
 	private static Company companyObj;
 	//private View mCompanyReaderView;
 
@@ -102,38 +107,7 @@ public class CompanyReaderFragment extends Fragment {
 		ll.addView(tv);
 		
 		// Create a table for majors
-		TableLayout majorTable = new TableLayout(getActivity());
-		ArrayList<String> majorNames = companyObj.getMajorNames();
-		ArrayList<String> majorAbbrevs = companyObj.getMajorAbbrevs();
-		
-		// Quick check, this is for logging purposes
-		if (majorNames.size() != majorAbbrevs.size()) {
-			Log.w("myApp", "MajorNames was a different size then MajorAbbrevs in CompanyReaderFragment");
-		}
-		
-		// Loop through all the majors and add them
-		for (int i = 0; i < majorNames.size(); i++) {
-			
-			// Pull the two String values
-			String majorFullStr = majorNames.get(i);
-			String majorAbbrevStr = majorAbbrevs.get(i);
-			
-			// Create a row from template
-			TableRow row = (TableRow) inflater.inflate(R.layout.major_row, container, false);
-			
-			// Set the text for the two template values
-			TextView majorAbbrev = (TextView) row.findViewById(R.id.majorAbbrev);
-		    	majorAbbrev.setText("\t" + majorAbbrevStr);
-			
-			TextView majorFull = (TextView) row.findViewById(R.id.majorFull);
-			majorFull.setText("\t" + majorFullStr);
-			
-		    // Add the row to the table
-		    majorTable.addView(row);
-			
-		}
-		
-		// Add the table to the view
+		final TableLayout majorTable = new TableLayout(getActivity());
 		ll.addView(majorTable);
 		
 		// Print a header for the position table
@@ -142,28 +116,7 @@ public class CompanyReaderFragment extends Fragment {
 		ll.addView(tv);
 		
 		// Create a table for positions
-		TableLayout positionTable = new TableLayout(getActivity());
-		ArrayList<String> positionStrings = companyObj.getPositions();
-		
-		// Go through all the positions
-		for (int i = 0; i < positionStrings.size(); i++) {
-			
-			// Pull the two String values
-			String positionStr = positionStrings.get(i);
-			
-			// Create a row from template
-			TableRow row = (TableRow) inflater.inflate(R.layout.row_single_entry, container, false);
-			
-			// Set the text for the two template values
-			TextView position = (TextView) row.findViewById(R.id.position);
-			position.setText("\t" + positionStr);
-			
-			// Add the row to the table
-			positionTable.addView(row);
-			
-		}
-		
-		// Add the table to the view
+		final TableLayout positionTable = new TableLayout(getActivity());
 		ll.addView(positionTable);
 		
 		// Print a header for the work authorization table
@@ -172,30 +125,37 @@ public class CompanyReaderFragment extends Fragment {
 		ll.addView(tv);
 		
 		// Create a table for work authorizations
-		TableLayout workAuthTable = new TableLayout(getActivity());
-		ArrayList<String> WorkAuthStrings = companyObj.getWorkAuth();
+		final TableLayout workAuthTable = new TableLayout(getActivity());
+		ll.addView(workAuthTable);
 		
-		// Loop through all the work authorizations
-		for (int i = 0; i < WorkAuthStrings.size(); i++) {
-			
-			// Pull the two String values
-			String workAuthStr = WorkAuthStrings.get(i);
-			
-			// Create a row from template
-			TableRow row = (TableRow) inflater.inflate(R.layout.row_single_entry, container, false);
-			
-			// Set the text for the Work Authorization
-			TextView workAuth = (TextView) row.findViewById(R.id.position);
-			workAuth.setText("\t" + workAuthStr);
-			
-		    	// Add the row to the table
-			workAuthTable.addView(row);
-			
+		if (companyObj.hasDetails()) {
+			// Already prefetched, no database read on the UI thread
+			fillDetails(inflater, container, companyObj.getDetails(),
+					majorTable, positionTable, workAuthTable);
+		} else {
+			// Show placeholder rows until the details are read in the background
+			addSingleRow(inflater, container, majorTable, LOADING);
+			addSingleRow(inflater, container, positionTable, LOADING);
+			addSingleRow(inflater, container, workAuthTable, LOADING);
+			final LayoutInflater rowInflater = inflater;
+			final ViewGroup rowContainer = container;
+			AsyncDbAccess.details(companyObj,
+					new AsyncDbAccess.Callback<CompanyDetails>() {
+						@Override
+						public void onResult(CompanyDetails details) {
+							// The user may have left the company already
+							if (!isAdded()) {
+								return;
+							}
+							majorTable.removeAllViews();
+							positionTable.removeAllViews();
+							workAuthTable.removeAllViews();
+							fillDetails(rowInflater, rowContainer, details,
+									majorTable, positionTable, workAuthTable);
+						}
+					});
 		}
 		
-		// Add the table to the view
-		ll.addView(workAuthTable);
-		
 		// Print a blank line
 		tv = new TextView(getActivity());
 		tv.setText("");
@@ -248,6 +208,85 @@ public class CompanyReaderFragment extends Fragment {
 
 	}
 	
+	/**
+	 * fillDetails
+	 * 
+	 * Adds a row for each major, position and work authorization of the company
+	 * 
+	 * @param inflater. Inflates the row templates
+	 * @param container. The parent view of the fragment, used for the row layout parameters
+	 * @param details. The majors, positions and work authorizations of the company
+	 * @param majorTable. The table the majors are added to
+	 * @param positionTable. The table the positions are added to
+	 * @param workAuthTable. The table the work authorizations are added to
+	 */
+	private void fillDetails(LayoutInflater inflater, ViewGroup container,
+			CompanyDetails details, TableLayout majorTable,
+			TableLayout positionTable, TableLayout workAuthTable) {
+		List<String> majorNames = details.getMajorNames();
+		List<String> majorAbbrevs = details.getMajorAbbrevs();
+		
+		// Quick check, this is for logging purposes
+		if (majorNames.size() != majorAbbrevs.size()) {
+			Log.w("myApp", "MajorNames was a different size then MajorAbbrevs in CompanyReaderFragment");
+		}
+		
+		// Loop through all the majors and add them
+		for (int i = 0; i < majorNames.size(); i++) {
+			
+			// Pull the two String values
+			String majorFullStr = majorNames.get(i);
+			String majorAbbrevStr = majorAbbrevs.get(i);
+			
+			// Create a row from template
+			TableRow row = (TableRow) inflater.inflate(R.layout.major_row, container, false);
+			
+			// Set the text for the two template values
+			TextView majorAbbrev = (TextView) row.findViewById(R.id.majorAbbrev);
+		    	majorAbbrev.setText("\t" + majorAbbrevStr);
+			
+			TextView majorFull = (TextView) row.findViewById(R.id.majorFull);
+			majorFull.setText("\t" + majorFullStr);
+			
+		    // Add the row to the table
+		    majorTable.addView(row);
+			
+		}
+		
+		// Go through all the positions
+		for (String positionStr : details.getPositions()) {
+			addSingleRow(inflater, container, positionTable, positionStr);
+		}
+		
+		// Loop through all the work authorizations
+		for (String workAuthStr : details.getWorkAuths()) {
+			addSingleRow(inflater, container, workAuthTable, workAuthStr);
+		}
+	}
+	
+	/**
+	 * addSingleRow
+	 * 
+	 * Adds a row with one value to a table
+	 * 
+	 * @param inflater. Inflates the row template
+	 * @param container. The parent view of the fragment, used for the row layout parameters
+	 * @param table. The table the row is added to
+	 * @param text. The value shown in the row
+	 */
+	private void addSingleRow(LayoutInflater inflater, ViewGroup container,
+			TableLayout table, String text) {
+		// Create a row from template
+		TableRow row = (TableRow) inflater.inflate(R.layout.row_single_entry, container, false);
+		
+		// Set the text for the template value
+		TextView value = (TextView) row.findViewById(R.id.position);
+		value.setText("\t" + text);
+		
+		// Add the row to the table
+		table.addView(row);
+	}
+	
 //	@Override
 //	public View onCreateView(LayoutInflater inflater, ViewGroup container,
 //			Bundle savedInstanceState) {
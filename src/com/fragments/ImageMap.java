@@ -51,8 +51,10 @@ import android.view.ViewConfiguration;
 import android.widget.ImageView;
 import android.widget.Scroller;
 
+import com.database.BoothIndex;
 import com.database.Company;
 import com.database.DbAccess;
+import com.database.FilterResult;
 import com.example.careerfair.R;
 import com.helpers.BitmapHelper;
 
@@ -68,10 +70,10 @@ public class ImageMap extends ImageView
 
 	// database
 	private SQLiteDatabase mDatabase;
-	private HashMap<String,Company> mBoothMap;
+	private BoothIndex.Room mBoothMap;
 	private ArrayList<Company> mCompanies;
 	private static final String DB_NAME = "careerFairDB.db";
-	private ArrayList<String> filteredCompanyNames;
+	private FilterResult mFilterResult;
 
 
 	// For certain images, it is best to always resize using the original
@@ -224,14 +226,14 @@ public class ImageMap extends ImageView
 		this.mapName = a.getString(R.styleable.ImageMap_map);
 		//setup db
 		mDatabase = MainActivity.appMainActivity.database;
-		filteredCompanyNames = MainActivity.appMainActivity.filteredCompanyNames;
+		mFilterResult = MainActivity.appMainActivity.filterResult;
 		if ( mapName.equals("varsitymap" ) )
 		{
-			mBoothMap = DbAccess.getTableCompanyMap(true, mDatabase);
+			mBoothMap = DbAccess.getBooths("Wood", mDatabase);
 		}
 		else
 		{
-			mBoothMap = DbAccess.getTableCompanyMap(false, mDatabase);
+			mBoothMap = DbAccess.getBooths("Multipurpose", mDatabase);
 		}
 
 		if (mapName != null)
@@ -283,8 +285,8 @@ public class ImageMap extends ImageView
 
 							String rid = id.replace("@+id/", "");
 							String bid = rid.replace("@+id/booth", "");
-							if ( mBoothMap.get(bid) != null)
-								name = mBoothMap.get(bid).getName() + ", " + bid;
+							if ( mBoothMap.getCompany(bid) != null)
+								name = mBoothMap.getCompany(bid).getName() + ", " + bid;
 							else
 								name = "Undefined";
 
@@ -298,7 +300,7 @@ public class ImageMap extends ImageView
 
 							if ((shape != null) && (coords != null)) {
 								boolean selected = false;
-								if ( filteredCompanyNames.contains( name ) )
+								if ( mFilterResult.containsName( name ) )
 									selected = true;
 								a = addShape(shape,name,coords,id, selected, bid);
 
@@ -353,8 +355,8 @@ public class ImageMap extends ImageView
 
 		try 
 		{
-			if (mBoothMap.get(bId).getName() != null )
-				name = mBoothMap.get(bId).getName() + ", " + bId;
+			if (mBoothMap.getCompany(bId).getName() != null )
+				name = mBoothMap.getCompany(bId).getName() + ", " + bId;
 			
 
 		}
@@ -860,16 +862,18 @@ public class ImageMap extends ImageView
 	@SuppressLint("WrongCall")
 	protected void drawLocations(Canvas canvas)
 	{
+		// Filters finish in the background, pick up the latest result
+		mFilterResult = MainActivity.appMainActivity.filterResult;
 		for (Area a : mAreaList)
 		{
 			String name = null;
-			if ( mBoothMap.get( a.getbId() ) != null ) 
+			if ( mBoothMap.getCompany( a.getbId() ) != null ) 
 			{
-				name = mBoothMap.get( a.getbId() ).getName();
+				name = mBoothMap.getCompany( a.getbId() ).getName();
 			}
 			if ( name != null )
 			{
-				if ( filteredCompanyNames.contains( name ) )
+				if ( mFilterResult.containsName( name ) )
 				{
 					a.toggleSelected();
 				}
@@ -1,9 +1,13 @@
 package com.fragments;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 
 import android.app.ActionBar;
 import android.app.Activity;
+import android.app.Fragment;
 import android.app.FragmentManager;
 import android.app.FragmentTransaction;
 import android.app.SearchManager;
@@ -18,10 +22,17 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.widget.SearchView;
+import android.widget.Toast;
 
+import com.database.AsyncDbAccess;
+import com.database.CatalogSnapshot;
 import com.database.Company;
+import com.database.CompanyPager;
 import com.database.DbAccess;
 import com.database.ExternalDbOpenHelper;
+import com.database.FilterResult;
+import com.database.IncrementalFilter;
+import com.database.SearchResult;
 import com.example.careerfair.R;
 import com.google.gson.Gson;
 
@@ -41,8 +52,9 @@ public class MainActivity extends Activity implements
 	protected SQLiteDatabase database;
 	private ExternalDbOpenHelper dbOpenHelper;
 	private ArrayList<String> companyNames;
-	protected ArrayList<Company> filteredCompanyList;
-	protected ArrayList<String> filteredCompanyNames;
+	protected FilterResult filterResult;
+	// Kept up to date as filter checkboxes are toggled, only used on the main thread once built
+	private IncrementalFilter mFilter;
 	public int mLastPosition = -1;
 	public int mLastOffset = 0;
 	private boolean databaseOpen = false;
@@ -50,8 +62,15 @@ public class MainActivity extends Activity implements
 	public SharedPreferences.Editor editor;
 	
 	private boolean mSearching = false;
-	protected ArrayList<Company> searchedCompanyList;
-	protected ArrayList<String> searchedCompanyNames;
+	protected SearchResult searchResult;
+
+	// Work waiting for the database to finish opening in the background
+	private boolean mDatabaseOpening = false;
+	private int mPendingPosition = -1;
+	private String mPendingQuery;
+	// Fragment transactions are only allowed while resumed
+	private boolean mResumed = false;
+	private boolean mSearchResultPending = false;
 
 	// Holds reference to MainActivity object being used by the app;
 	public static MainActivity appMainActivity;
@@ -63,6 +82,19 @@ public class MainActivity extends Activity implements
 	protected CharSequence mTitle;
 	boolean inCompanyView = false;
 
+	private static final String DB_NAME = "careerFairDB.db";
+	// Saved after the companies are first loaded, read on later launches
+	private static final String SNAPSHOT_NAME = "catalog.snapshot";
+
+	// Number of companies on each side of an opened one whose details are
+	// loaded in the background
+	private static final int PREFETCH_RADIUS = 5;
+	// Number of companies listed when sorting by relevance
+	private static final int RANKED_LIMIT = 100;
+	// The companies ranked by relevance to the filters, built on the filter channel
+	// with each filter result while sorting by relevance
+	private CompanyPager mRankedPager;
+
 	/**
 	 * onCreate
 	 * Called when the activity is starting. This is where most initialization should go (also refer to official Javadocs)
@@ -101,18 +133,50 @@ public class MainActivity extends Activity implements
         	String query = intent.getStringExtra(SearchManager.QUERY);
         	query = query + "";
         	mSearching = true;
-        	searchedCompanyList = DbAccess.searchAllCompanies(query, database);
-        	searchedCompanyNames = DbAccess.getSearchedCompanyNames();
-        	FragmentManager fragmentManager = super.getFragmentManager();
-    		FragmentTransaction ft = fragmentManager.beginTransaction();
-    		ft.replace(
-					R.id.container,
-					new CompanyListFragment().newInstance(1,
-							searchedCompanyNames, true));
-    		ft.addToBackStack(null);
-    		ft.commit();
+        	searchCompanies(query);
         }
     }
+
+	/**
+	 * searchCompanies
+	 * Searches the companies in the background, superseding any search still running
+	 * @param query - the text to search for
+	 */
+	private void searchCompanies(String query) {
+		if (database == null) {
+			// Searched once the database is open
+			mPendingQuery = query;
+			return;
+		}
+		AsyncDbAccess.search(query, database,
+				new AsyncDbAccess.Callback<SearchResult>() {
+					@Override
+					public void onResult(SearchResult result) {
+						searchResult = result;
+						showSearchResult();
+					}
+				});
+	}
+
+	/**
+	 * showSearchResult
+	 * Shows searchResult in a new company list
+	 */
+	private void showSearchResult() {
+		if (!mResumed) {
+			mSearchResultPending = true;
+			return;
+		}
+		FragmentManager fragmentManager = super.getFragmentManager();
+		FragmentTransaction ft = fragmentManager.beginTransaction();
+		ft.replace(
+				R.id.container,
+				new CompanyListFragment().newInstance(1,
+						searchResult.getNames(), true));
+		ft.addToBackStack(null);
+		ft.commit();
+	}
+
 	/**
 	 * onNavigationDrawerItemSelected
 	 * Changes the displayed fragment based on what the user selected in the Navigation Drawer
@@ -126,9 +190,15 @@ public class MainActivity extends Activity implements
 		appMainActivity = this;
 		inCompanyView = false;
 
-		//Check if the database is open, if not, call the method to open the database
-		if (!databaseOpen) {
+		//Check if the database is open, if not, open it in the background and
+		//come back to this item once the companies are loaded. The filter options
+		//also wait for the database when the companies came from the snapshot
+		if (!databaseOpen || (position == 4 && database == null)) {
 			databaseOpen();
+			if (position != 0) {
+				mPendingPosition = position;
+				return;
+			}
 		}
 
 		switch (position) {
@@ -142,7 +212,7 @@ public class MainActivity extends Activity implements
         ft.replace(
 					R.id.container,
 					new CompanyListFragment().newInstance(position,
-							filteredCompanyNames, false));
+							null, false));
         ft.addToBackStack(null);
         ft.commit();
 			break;
@@ -163,10 +233,11 @@ public class MainActivity extends Activity implements
 					.getAllMajorAbbrevs(database);
 			ArrayList<String> WorkAuths = DbAccess.getAllWorkAuths(database);
 			ArrayList<String> Positions = DbAccess.getAllPositions(database);
+			ArrayList<String> Industries = DbAccess.getAllIndustries(database);
 			ft.replace(
 					R.id.container,
 					PreferencesViewFragment.newInstance(position, MajorAbbrevs,
-							WorkAuths, Positions));
+							WorkAuths, Positions, Industries));
 			ft.addToBackStack(null);
 			ft.commit();
 			break;
@@ -187,9 +258,17 @@ public class MainActivity extends Activity implements
 		FragmentTransaction ft = fragmentManager.beginTransaction();
 		Company clickedCompany;
 		if (!searchOn) {
-			clickedCompany = filteredCompanyList.get(position);
+			CompanyPager pager = getCompanyPager();
+			clickedCompany = pager.getCompany(position);
+			AsyncDbAccess.prefetch(pager.getCompanies(position - PREFETCH_RADIUS,
+					position + PREFETCH_RADIUS + 1), database);
 		} else {
-			clickedCompany = searchedCompanyList.get(position);
+			List<Company> results = searchResult.getCompanies();
+			clickedCompany = results.get(position);
+			AsyncDbAccess.prefetch(results.subList(
+					Math.max(position - PREFETCH_RADIUS, 0),
+					Math.min(position + PREFETCH_RADIUS + 1, results.size())),
+					database);
 		}
 		
 		mTitle = clickedCompany.getName();
@@ -212,11 +291,10 @@ public class MainActivity extends Activity implements
 		FragmentManager fragmentManager = super.getFragmentManager();
 		FragmentTransaction ft = fragmentManager.beginTransaction();
 		Company clickedCompany;
-		if (absPosition - 1 > relPosition) {
-			clickedCompany = DbAccess.getFilteredSep(true).get(relPosition);
-		} else {
-			clickedCompany = DbAccess.getFilteredSep(false).get(relPosition);
-		}
+		CompanyPager pager = filterResult.getSeparatedPager(absPosition - 1 > relPosition);
+		clickedCompany = pager.getCompany(relPosition);
+		AsyncDbAccess.prefetch(pager.getCompanies(relPosition - PREFETCH_RADIUS,
+				relPosition + PREFETCH_RADIUS + 1), database);
 		mTitle = clickedCompany.getName();
 		ft.replace(R.id.container,
 				CompanyReaderFragment.newInstance(absPosition, clickedCompany));
@@ -321,16 +399,24 @@ public class MainActivity extends Activity implements
 		int id = item.getItemId();
 		int position = item.getOrder();
 		if (id == R.id.action_settings) {
+			//The filter options are read from the database, if it is not open yet,
+			//open it in the background and show them once it is
+			if (database == null) {
+				databaseOpen();
+				mPendingPosition = 4;
+				return true;
+			}
 			ArrayList<String> MajorAbbrevs = DbAccess
 					.getAllMajorAbbrevs(database);
 			ArrayList<String> WorkAuths = DbAccess.getAllWorkAuths(database);
 			ArrayList<String> Positions = DbAccess.getAllPositions(database);
+			ArrayList<String> Industries = DbAccess.getAllIndustries(database);
 			FragmentManager fragmentManager = super.getFragmentManager();
 			FragmentTransaction ft = fragmentManager.beginTransaction();
 			ft.replace(
 					R.id.container,
 					PreferencesViewFragment.newInstance(position, MajorAbbrevs,
-							WorkAuths, Positions));
+							WorkAuths, Positions, Industries));
 					ft.addToBackStack(null);
 					ft.commit();
 			// getMenuInflater().inflate(R.menu.setting,(Menu) item);
@@ -341,73 +427,304 @@ public class MainActivity extends Activity implements
 
 	
 	/**
-	 * databaseOpen
-	 * Opens database and fills initial company lists (with all of the companies) and filters based on shared preferences
+	 * onResume
+	 * Runs navigation that was waiting for the database while the activity was paused
 	 */
-	private void databaseOpen() {
+	@Override
+	protected void onResume() {
+		super.onResume();
+		mResumed = true;
+		if (databaseOpen) {
+			runPending();
+		}
+	}
 
-		long start = System.currentTimeMillis();
+	/**
+	 * onPause
+	 * Stops background results from changing fragments until resumed
+	 */
+	@Override
+	protected void onPause() {
+		mResumed = false;
+		super.onPause();
+	}
 
-		dbOpenHelper = new ExternalDbOpenHelper(this.getApplicationContext(),
-				"careerFairDB.db");
-		database = dbOpenHelper.openDataBase();
+	/**
+	 * databaseOpen
+	 * Opens the database and loads the companies in the background, then filters them based on shared preferences.
+	 * If the companies were saved by an earlier launch, they are listed from that snapshot first, while the
+	 * database is still being copied and opened.
+	 */
+	private void databaseOpen() {
+		if (mDatabaseOpening) {
+			return;
+		}
+		mDatabaseOpening = true;
+
+		final long start = System.currentTimeMillis();
+		final Context context = this.getApplicationContext();
+		final File snapshot = new File(context.getFilesDir(), SNAPSHOT_NAME);
+		final ArrayList<String> majors = getFilterPreference("majors");
+		final ArrayList<String> workAuth = getFilterPreference("workAuths");
+		final ArrayList<String> position = getFilterPreference("positions");
+		final ArrayList<String> industry = getFilterPreference("industries");
+
+		// Runs before the database is opened, on the same background thread
+		AsyncDbAccess.submit(AsyncDbAccess.SNAPSHOT,
+				new Callable<IncrementalFilter>() {
+					@Override
+					public IncrementalFilter call() {
+						if (!DbAccess.loadCatalogSnapshot(snapshot, snapshotStamp(context))) {
+							return null;
+						}
+						return DbAccess.getIncrementalFilter("", majors,
+								workAuth, position, industry, null);
+					}
+				}, new AsyncDbAccess.Callback<IncrementalFilter>() {
+					@Override
+					public void onResult(IncrementalFilter filter) {
+						if (filter != null && mFilter == null) {
+							Log.i(MainActivity.this.getClass().toString(),
+									"Companies loaded from snapshot in "
+											+ (System.currentTimeMillis() - start) + " ms");
+							mFilter = filter;
+							onCompaniesFiltered(filter.getResult(), null);
+						}
+					}
+				});
+
+		// Set in the background, read once the result is delivered
+		final boolean[] reloaded = { false };
+		AsyncDbAccess.submit(AsyncDbAccess.OPEN,
+				new Callable<ExternalDbOpenHelper>() {
+					@Override
+					public ExternalDbOpenHelper call() {
+						ExternalDbOpenHelper helper = new ExternalDbOpenHelper(
+								context, DB_NAME);
+						// Loads the companies into memory, saving a snapshot for the next launch
+						reloaded[0] = DbAccess.openCatalog(helper.openDataBase(),
+								snapshot, snapshotStamp(context));
+						return helper;
+					}
+				}, new AsyncDbAccess.Callback<ExternalDbOpenHelper>() {
+					@Override
+					public void onResult(ExternalDbOpenHelper helper) {
+						dbOpenHelper = helper;
+						database = helper.openDataBase();
+
+						// Database is open
+						companyNames = new ArrayList<String>();
+						DbAccess.fillCompanies(companyNames, database);
+
+						long diff2 = System.currentTimeMillis() - start;
+						Log.i(MainActivity.this.getClass().toString(),
+								"Database opened and companies loaded in "
+										+ diff2 + " ms");
+
+						if (reloaded[0]) {
+							// The snapshot was out of date, filter the reloaded companies instead
+							mFilter = null;
+						}
+						if (mFilter == null) {
+							//Calls the filterCompanies method to filter based on shared preferences
+							filterCompanies();
+						} else {
+							// Already listed from the snapshot, run the searches waiting for the database
+							runPending();
+						}
+					}
+				}, new AsyncDbAccess.ErrorCallback() {
+					@Override
+					public void onError(Throwable error) {
+						// Lets the next drawer click try to open it again
+						mDatabaseOpening = false;
+						mPendingPosition = -1;
+						mPendingQuery = null;
+						mSearchResultPending = false;
+						Toast.makeText(context, "Could not open the company database",
+								Toast.LENGTH_LONG).show();
+					}
+				});
+	}
 
-		// Database is open
-		companyNames = new ArrayList<String>();
-		DbAccess.fillCompanies(companyNames, database);
-		DbAccess.getAllCompanies(database);
+	/**
+	 * showCompanyListWhenFiltered
+	 * Shows the company list once the first filter has finished, for a filtered list built before it
+	 */
+	void showCompanyListWhenFiltered() {
+		databaseOpen();
+		mPendingPosition = 1;
+	}
 
-		//Calls the filterCompanies method to filter based on shared preferences
-		filterCompanies();
+	/**
+	 * snapshotStamp
+	 * Identifies the installed database and APK, without opening the database
+	 * @param context - the application context
+	 * @return the stamp a catalog snapshot has to match to be used
+	 */
+	private static long snapshotStamp(Context context) {
+		return CatalogSnapshot.stamp(context.getDatabasePath(DB_NAME),
+				new File(context.getApplicationInfo().sourceDir));
+	}
 
+	/**
+	 * onCompaniesFiltered
+	 * Stores a new filter result and updates the company list showing it
+	 * @param result - the result of filterCompanies
+	 * @param ranked - the companies ranked by relevance, null if the list is not sorted by relevance
+	 */
+	private void onCompaniesFiltered(FilterResult result, CompanyPager ranked) {
+		filterResult = result;
+		mRankedPager = ranked;
 		databaseOpen = true;
 
-		long end2 = System.currentTimeMillis();
-
-		long diff2 = end2 - start;
+		Fragment current = getFragmentManager().findFragmentById(R.id.container);
+		if (mResumed && current instanceof CompanyListFragment) {
+			((CompanyListFragment) current).refresh();
+		} else if (mResumed && current instanceof PreferencesViewFragment) {
+			((PreferencesViewFragment) current).refreshCounts();
+		}
+		runPending();
+	}
 
+	/**
+	 * runPending
+	 * Shows the drawer item or search that was requested while the database was opening
+	 */
+	private void runPending() {
+		if (!mResumed) {
+			return;
+		}
+		if (mPendingPosition >= 0) {
+			int position = mPendingPosition;
+			mPendingPosition = -1;
+			onNavigationDrawerItemSelected(position);
+		}
+		if (mSearchResultPending) {
+			mSearchResultPending = false;
+			showSearchResult();
+		}
+		if (mPendingQuery != null) {
+			String query = mPendingQuery;
+			mPendingQuery = null;
+			searchCompanies(query);
+		}
 	}
 
 	/**
 	 * filterCompanies
-	 * Pulls information from shared preferences and updates filtered company lists
+	 * Updates the filtered company lists. The first time, the filter is built from shared preferences
+	 * in the background, superseding any filter still running; afterwards it is kept up to date by
+	 * onFilterToggled and only its current result is shown. When sorting by relevance, the companies
+	 * are also ranked in the same background task.
 	 */
 	protected void filterCompanies() {
-		SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
+		final boolean ranked = isSortedByRelevance();
+		if (mFilter != null && !ranked) {
+			onCompaniesFiltered(mFilter.getResult(), null);
+			return;
+		}
 
-		ArrayList<String> majors;
-		ArrayList<String> workAuth;
-		ArrayList<String> position;
+		final ArrayList<String> majors = getFilterPreference("majors");
+		final ArrayList<String> workAuth = getFilterPreference("workAuths");
+		final ArrayList<String> position = getFilterPreference("positions");
+		final ArrayList<String> industry = getFilterPreference("industries");
+		// Read here, the filter is only toggled on the UI thread
+		final FilterResult current = (mFilter != null) ? mFilter.getResult() : null;
+
+		//Build the filter based on the shared preferences and rank the companies if needed
+		AsyncDbAccess.submit(AsyncDbAccess.FILTER,
+				new Callable<FilteredCompanies>() {
+					@Override
+					public FilteredCompanies call() {
+						FilteredCompanies filtered = new FilteredCompanies();
+						if (current == null) {
+							filtered.filter = DbAccess.getIncrementalFilter("", majors,
+									workAuth, position, industry, database);
+						}
+						if (ranked) {
+							filtered.ranked = DbAccess.rankCompanies("", majors, workAuth,
+									position, industry, RANKED_LIMIT, database).getPager();
+						}
+						return filtered;
+					}
+				}, new AsyncDbAccess.Callback<FilteredCompanies>() {
+					@Override
+					public void onResult(FilteredCompanies filtered) {
+						if (filtered.filter != null) {
+							mFilter = filtered.filter;
+						}
+						onCompaniesFiltered(mFilter.getResult(), filtered.ranked);
+					}
+				});
+	}
 
-		//Get preferences from SharedPreferences and "de-serialize" them
-		Gson gson = new Gson();
-		String jsonMajor = sharedPref.getString("majors", "");
-		String jsonWorkAuth = sharedPref.getString("workAuths", "");
-		String jsonPosition = sharedPref.getString("positions", "");
-		
-		//Check if there was any information stored in shared preferences
-		if (jsonMajor.equals("")) {
-			majors = new ArrayList<String>();
-		} else {
-			majors = gson.fromJson(jsonMajor, ArrayList.class);
-		}
+	/**
+	 * FilteredCompanies
+	 * What filterCompanies builds in the background: the filter, if there was none yet, and the
+	 * companies ranked by relevance, if the list is sorted that way
+	 */
+	private static class FilteredCompanies {
+		IncrementalFilter filter;
+		CompanyPager ranked;
+	}
 
-		if (jsonWorkAuth.equals("")) {
-			workAuth = new ArrayList<String>();
-		} else {
-			workAuth = gson.fromJson(jsonWorkAuth, ArrayList.class);
+	/**
+	 * onFilterToggled
+	 * Checks or unchecks one filter value, only re-filtering the companies with that value. The new
+	 * result is shown the next time filterCompanies is called.
+	 * @param category - "majors", "workAuths", "positions" or "industries"
+	 * @param value - the value that was toggled
+	 * @param checked - true if it was checked
+	 */
+	public void onFilterToggled(String category, String value, boolean checked) {
+		if (mFilter != null) {
+			mFilter.toggle(category, value, checked);
+		} else if (AsyncDbAccess.isPending(AsyncDbAccess.FILTER)) {
+			// Still being built from older preferences, start again from the current ones
+			filterCompanies();
 		}
+	}
 
-		if (jsonPosition.equals("")) {
-			position = new ArrayList<String>();
-		} else {
-			position = gson.fromJson(jsonPosition, ArrayList.class);
+	/**
+	 * isSortedByRelevance
+	 * @return true if the company list is ranked by relevance to the filters instead of split into
+	 * alphabetical matches and blanks
+	 */
+	protected boolean isSortedByRelevance() {
+		return getPreferences(Context.MODE_PRIVATE).getBoolean("sortByRelevance", false);
+	}
+
+	/**
+	 * getCompanyPager
+	 * Gets the unseparated company list: the best RANKED_LIMIT companies for the filters when sorting
+	 * by relevance, as ranked by filterCompanies, otherwise every company of the filter result in
+	 * alphabetical order
+	 * @return a pager over the listed companies
+	 */
+	protected CompanyPager getCompanyPager() {
+		if (!isSortedByRelevance() || mRankedPager == null) {
+			// Alphabetical until filterCompanies delivers the ranking
+			return filterResult.getPager();
 		}
+		return mRankedPager;
+	}
+
+	/**
+	 * getFilterPreference
+	 * Pulls one category of filter values from shared preferences and "de-serializes" it
+	 * @param category - "majors", "workAuths", "positions" or "industries"
+	 * @return the values checked in that category, empty if there are none
+	 */
+	protected ArrayList<String> getFilterPreference(String category) {
+		SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
+		String json = sharedPref.getString(category, "");
 
-		//Get the new filteredCompanyList based on the shared preferences 
-		filteredCompanyList = DbAccess.getCompaniesWith("", majors,
-				workAuth, position, database);
-		filteredCompanyNames = DbAccess.getFilteredNames(database);
+		//Check if there was any information stored in shared preferences
+		if (json.equals("")) {
+			return new ArrayList<String>();
+		}
+		return new Gson().fromJson(json, ArrayList.class);
 	}
 
 }
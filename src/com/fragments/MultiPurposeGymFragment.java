@@ -1,7 +1,5 @@
 package com.fragments;
 
-import java.util.ArrayList;
-
 import com.database.Company;
 import com.database.DbAccess;
 import com.example.careerfair.R;
@@ -39,7 +37,6 @@ public class MultiPurposeGymFragment extends Fragment {
 	private static final String ARG_SECTION_NUMBER = "MultiPurpose";
 	private ImageMap mMultiMap;
 	private SQLiteDatabase mDatabase;
-	private ArrayList<Company> mCompanies;
 	private Company mDefaultCompany;
 
 	/**
@@ -71,13 +68,11 @@ public class MultiPurposeGymFragment extends Fragment {
 	public MultiPurposeGymFragment() {
 		
 		mDatabase = MainActivity.appMainActivity.database;
-		mCompanies = DbAccess.getAllCompanies( mDatabase);
 	}
 	
 	public MultiPurposeGymFragment( Company c ) {
 		
 		mDatabase = MainActivity.appMainActivity.database;
-		mCompanies = DbAccess.getAllCompanies( mDatabase);
 		mDefaultCompany = c;
 	}
 
@@ -117,16 +112,7 @@ public class MultiPurposeGymFragment extends Fragment {
 						//int subI = name.indexOf(",");
 						name = name.replaceFirst(",\\s\\d+", "");
 						//String bId = mMultiMap.mIdToArea.get( id ).getbId();
-						//replace with hashmap
-						Company clickedCompany = null;
-						for ( Company c : mCompanies )
-						{
-							if ( c.getName().equals(name)) 
-							{
-								clickedCompany = c;
-								break;
-							}
-						}
+						Company clickedCompany = DbAccess.getCompanyNamed(name, mDatabase);
 						MainActivity.appMainActivity.setTitle( clickedCompany.getName() );
 						ft.replace(R.id.container,
 								CompanyReaderFragment.newInstance( clickedCompany ));
@@ -7,10 +7,15 @@
 package com.fragments;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
+import com.database.AsyncDbAccess;
+import com.database.FacetCounts;
 import com.example.careerfair.R;
 import com.helpers.CheckBoxListener;
 import com.helpers.ResetButtonListener;
+import com.helpers.SortOrderListener;
 import com.helpers.separateListListener;
 
 import android.app.ActionBar;
@@ -18,6 +23,7 @@ import android.app.Activity;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -37,6 +43,24 @@ public class PreferencesViewFragment extends Fragment {
 	static ArrayList<String> MajorAbbrevs;
 	static ArrayList<String> WorkAuths;
 	static ArrayList<String> Positions;
+	static ArrayList<String> Industries;
+
+	// value -> the view showing how many companies checking it would give
+	private HashMap<String, TextView> workAuthCounts = new HashMap<String, TextView>();
+	private HashMap<String, TextView> positionCounts = new HashMap<String, TextView>();
+	private HashMap<String, TextView> majorCounts = new HashMap<String, TextView>();
+	private HashMap<String, TextView> industryCounts = new HashMap<String, TextView>();
+
+	// Kept in a field, shared preferences only keep a weak reference to it
+	private OnSharedPreferenceChangeListener countListener = new OnSharedPreferenceChangeListener() {
+		@Override
+		public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+			if (key.equals("majors") || key.equals("workAuths")
+					|| key.equals("positions") || key.equals("industries")) {
+				refreshCounts();
+			}
+		}
+	};
 
 	/**
 	 * PreferencesViewFragment
@@ -54,15 +78,17 @@ public class PreferencesViewFragment extends Fragment {
 	 * @param Abbrevs. List of Abbreviations
 	 * @param Auths. List of Authorizations
 	 * @param Pos. List of of positions
+	 * @param Inds. List of industry tags, the section is hidden if empty
 	 * 
 	 * @return PreferencesViewFragment, the newely created fragment
 	 */
 	public static PreferencesViewFragment newInstance(int sectionNumber,
 			ArrayList<String> Abbrevs, ArrayList<String> Auths,
-			ArrayList<String> Pos) {
+			ArrayList<String> Pos, ArrayList<String> Inds) {
 		MajorAbbrevs = Abbrevs;
 		WorkAuths = Auths;
 		Positions = Pos;
+		Industries = Inds;
 		PreferencesViewFragment fragment = new PreferencesViewFragment();
 		Bundle args = new Bundle();
 		args.putInt(ARG_SECTION_NUMBER, sectionNumber);
@@ -79,7 +105,7 @@ public class PreferencesViewFragment extends Fragment {
 	 * onCreateView 
 	 * 
 	 * Create the view displayed for settings the filters. This is done dynamically.
-	 * 	this will display the filters for majors, positions, workauthorizations
+	 * 	this will display the filters for majors, positions, workauthorizations and industries
 	 * 
 	 * @param inflater. The LayoutInflater object that can be used to inflate any views in the fragment
 	 * @param container. If non-null, this is the parent view that the fragment's UI should be attached to. 
@@ -117,6 +143,11 @@ public class PreferencesViewFragment extends Fragment {
 		separateCompanyList.setOnCheckedChangeListener(new separateListListener(separateCompanyList, sharedPref, editor, getActivity()));
 		separateCompanyList.setText("Move companies missing information for filtered fields to the bottom of the list");
 		ll.addView(separateCompanyList);
+
+		Switch sortByRelevance = new Switch(getActivity());
+		sortByRelevance.setOnCheckedChangeListener(new SortOrderListener(sortByRelevance, sharedPref, editor));
+		sortByRelevance.setText("Rank companies by how many of your filters they match instead of alphabetically");
+		ll.addView(sortByRelevance);
 		
 		View ruler = new View(getActivity());
 		ruler.setBackgroundColor(0xFF33b5e5);
@@ -157,7 +188,7 @@ public class PreferencesViewFragment extends Fragment {
 					WorkAuths.get(i), sharedPref, editor, getActivity());
 			cb.setOnCheckedChangeListener(cbListen);
 
-			ll.addView(cb);
+			addCheckBox(ll, cb, WorkAuths.get(i), workAuthCounts);
 
 		}
 
@@ -189,7 +220,7 @@ public class PreferencesViewFragment extends Fragment {
 					Positions.get(i), sharedPref, editor, getActivity());
 			cb.setOnCheckedChangeListener(cbListen);
 
-			ll.addView(cb);
+			addCheckBox(ll, cb, Positions.get(i), positionCounts);
 
 		}
 
@@ -220,13 +251,117 @@ public class PreferencesViewFragment extends Fragment {
 					MajorAbbrevs.get(i), sharedPref, editor, getActivity());
 			cb.setOnCheckedChangeListener(cbListen);
 
-			ll.addView(cb);
+			addCheckBox(ll, cb, MajorAbbrevs.get(i), majorCounts);
+
+		}
+
+		// Only shown once companies have been tagged with industries
+		if (!Industries.isEmpty()) {
+			//Add a horizontal rule
+			View ruler5 = new View(getActivity());
+			ruler5.setBackgroundColor(0xFF33b5e5);
+			ll.addView(ruler5, new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, 2));
+
+			TextView industryText = new TextView(getActivity());
+			industryText.setText("Industries");
+			ll.addView(industryText);
+		}
+
+		for (int i = 0; i < Industries.size(); i++) {
+
+			CheckBox cb = new CheckBox(getActivity());
+			checkBoxArray.add(cb);
+
+			// If it was previously checked, set it to that state in the
+			// SharedPreferences
+			Boolean checked = sharedPref.contains(Industries.get(i));
+			if (checked) {
+				// Get the value
+				cb.setChecked(sharedPref.getBoolean(Industries.get(i), false));
+			}
+
+			cb.setText(Industries.get(i));
+			CheckBoxListener cbListen = new CheckBoxListener("industries",
+					Industries.get(i), sharedPref, editor, getActivity());
+			cb.setOnCheckedChangeListener(cbListen);
+
+			addCheckBox(ll, cb, Industries.get(i), industryCounts);
 
 		}
 
+		// Show the counts, and update them in the background as boxes are toggled
+		sharedPref.registerOnSharedPreferenceChangeListener(countListener);
+		refreshCounts();
+
 		return sv;
 	}
 
+	/**
+	 * addCheckBox
+	 * 
+	 * Adds a checkbox with the number of companies it would give next to it. The count is kept
+	 * out of the checkbox's text, which is the key of its preference.
+	 * 
+	 * @param ll. The layout to add the row to
+	 * @param cb. The checkbox
+	 * @param value. The filter value of the checkbox
+	 * @param counts. The count views of the checkbox's category
+	 */
+	private void addCheckBox(LinearLayout ll, CheckBox cb, String value,
+			Map<String, TextView> counts) {
+		LinearLayout row = new LinearLayout(getActivity());
+		row.setOrientation(LinearLayout.HORIZONTAL);
+		row.addView(cb, new LinearLayout.LayoutParams(0,
+				ViewGroup.LayoutParams.WRAP_CONTENT, 1));
+
+		TextView count = new TextView(getActivity());
+		count.setPadding(0, 0, 16, 0);
+		row.addView(count);
+		counts.put(value, count);
+
+		ll.addView(row);
+	}
+
+	/**
+	 * refreshCounts
+	 * 
+	 * Counts, in the background, how many companies each checkbox would give with the other
+	 * categories' current filters, superseding any count still running. Also called by MainActivity
+	 * once the companies are filtered, in case they were not loaded yet when last counted
+	 */
+	void refreshCounts() {
+		MainActivity main = (MainActivity) getActivity();
+		// The count runs after the companies are loaded, from the snapshot or the database
+		if (main == null) {
+			return;
+		}
+		AsyncDbAccess.facets("", main.getFilterPreference("majors"),
+				main.getFilterPreference("workAuths"),
+				main.getFilterPreference("positions"),
+				main.getFilterPreference("industries"), main.database,
+				new AsyncDbAccess.Callback<FacetCounts>() {
+					@Override
+					public void onResult(FacetCounts counts) {
+						for (Map.Entry<String, TextView> entry : workAuthCounts.entrySet()) {
+							entry.getValue().setText(String.valueOf(
+									counts.getWorkAuthCount(entry.getKey())));
+						}
+						for (Map.Entry<String, TextView> entry : positionCounts.entrySet()) {
+							entry.getValue().setText(String.valueOf(
+									counts.getPositionCount(entry.getKey())));
+						}
+						for (Map.Entry<String, TextView> entry : majorCounts.entrySet()) {
+							entry.getValue().setText(String.valueOf(
+									counts.getMajorCount(entry.getKey())));
+						}
+						for (Map.Entry<String, TextView> entry : industryCounts.entrySet()) {
+							entry.getValue().setText(String.valueOf(
+									counts.getIndustryCount(entry.getKey())));
+						}
+					}
+				});
+	}
+
 	/**
 	 * onAttach
 	 * 
@@ -245,13 +380,16 @@ public class PreferencesViewFragment extends Fragment {
 	/**
 	 * onDestroyView
 	 * 
-	 * Called when the view previously created by onCreateView(LayoutInflater, ViewGroup, Bundle) has been detached from the fragment
+	 * Called when the view previously created by onCreateView(LayoutInflater, ViewGroup, Bundle) has been detached from the fragment.
+	 * Starts re-filtering the companies in the background with the new preferences
 	 * 
 	 */
 	@Override
 	public void onDestroyView() {
 		SharedPreferences sharedPref = getActivity().getPreferences(
 				Context.MODE_PRIVATE);
+		sharedPref.unregisterOnSharedPreferenceChangeListener(countListener);
+		AsyncDbAccess.cancel(AsyncDbAccess.FACETS);
 
 		MainActivity main = (MainActivity) this.getActivity();
 
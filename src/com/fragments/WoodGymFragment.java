@@ -1,7 +1,5 @@
 package com.fragments;
 
-import java.util.ArrayList;
-
 import android.app.ActionBar;
 import android.app.Activity;
 import android.app.Fragment;
@@ -30,7 +28,6 @@ public class WoodGymFragment extends Fragment {
 	// Object for storing the click area data
 	private ImageMap mWoodMap;
 	private SQLiteDatabase mDatabase;
-	private ArrayList<Company> mCompanies;
 	private Company mDefaultCompany;
 
 	/**
@@ -60,13 +57,11 @@ public class WoodGymFragment extends Fragment {
 	public WoodGymFragment() {
 		
 		mDatabase = MainActivity.appMainActivity.database;
-		mCompanies = DbAccess.getAllCompanies( mDatabase);
 	}
 
 	public WoodGymFragment( Company c ) {
 		
 		mDatabase = MainActivity.appMainActivity.database;
-		mCompanies = DbAccess.getAllCompanies( mDatabase);
 		mDefaultCompany = c;
 	}
 	
@@ -124,16 +119,7 @@ public class WoodGymFragment extends Fragment {
 				//int subI = name.indexOf(",");
 				//name = name.substring(0, subI);
 				String bId = mWoodMap.mIdToArea.get( id ).getbId();
-				//replace with hashmap
-				Company clickedCompany = null;
-				for ( Company c : mCompanies )
-				{
-					if ( c.getName().equals(name)) 
-					{
-						clickedCompany = c;
-						break;
-					}
-				}
+				Company clickedCompany = DbAccess.getCompanyNamed(name, mDatabase);
 				MainActivity.appMainActivity.setTitle( clickedCompany.getName() );
 				ft.replace(R.id.container,
 						CompanyReaderFragment.newInstance( clickedCompany ));
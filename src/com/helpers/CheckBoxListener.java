@@ -18,6 +18,7 @@ import android.widget.CompoundButton;
 import android.widget.CompoundButton.OnCheckedChangeListener;
 import android.widget.Toast;
 
+import com.fragments.MainActivity;
 import com.google.gson.Gson;
 
 public class CheckBoxListener implements OnCheckedChangeListener {
@@ -97,6 +98,11 @@ public class CheckBoxListener implements OnCheckedChangeListener {
 		editor.putBoolean(prefKey, isChecked);
 		editor.commit();
 
+		// Re-filter only the companies with this value
+		if (context instanceof MainActivity) {
+			((MainActivity) context).onFilterToggled(category, prefKey, isChecked);
+		}
+
 		//Display toast message. Toast does not allow for custom durations.
 		//This 'hack' was found on stackoverflow, where it is possible to cancel the 
 		//toast after a certain duration
@@ -0,0 +1,57 @@
+/**
+ * List adapter showing company names from a CompanyPager, so the ListView
+ * only reads the pages it scrolls through instead of a list of every company.
+ */
+
+package com.helpers;
+
+import com.database.Company;
+import com.database.CompanyPager;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+public class PagedCompanyAdapter extends BaseAdapter {
+
+	private final LayoutInflater mInflater;
+	private final CompanyPager mPager;
+
+	public PagedCompanyAdapter(Context context, CompanyPager pager) {
+		mInflater = LayoutInflater.from(context);
+		mPager = pager;
+	}
+
+	public CompanyPager getPager() {
+		return mPager;
+	}
+
+	public Company getCompany(int position) {
+		return mPager.getCompany(position);
+	}
+
+	public int getCount() {
+		return mPager.size();
+	}
+
+	public Object getItem(int position) {
+		return mPager.getName(position);
+	}
+
+	public long getItemId(int position) {
+		return position;
+	}
+
+	public View getView(int position, View convertView, ViewGroup parent) {
+		TextView view = (TextView) convertView;
+		if (view == null) {
+			view = (TextView) mInflater.inflate(
+					android.R.layout.simple_list_item_activated_1, parent, false);
+		}
+		view.setText(mPager.getName(position));
+		return view;
+	}
+}
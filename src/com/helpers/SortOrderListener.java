@@ -0,0 +1,57 @@
+/**
+ * This class handles ActionEvents for the switch that controls whether the company list is ranked
+ * by relevance to the filters or listed alphabetically
+ */
+
+package com.helpers;
+
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.Editor;
+import android.widget.CompoundButton;
+import android.widget.Switch;
+import android.widget.CompoundButton.OnCheckedChangeListener;
+
+public class SortOrderListener implements OnCheckedChangeListener {
+
+	SharedPreferences sharedPref;
+	SharedPreferences.Editor editor;
+
+	/**
+	 * SortOrderListener
+	 * 
+	 * Constructor for setting up the switch from the stored preference.
+	 * 
+	 * @param optionsSwitch. The switch this listener is attached to
+	 * @param sharedPref. The global sharedPreferences object where data is stored
+	 * @param editor. The editor for the sharedPreferences.
+	 * 
+	 */
+	public SortOrderListener(Switch optionsSwitch, SharedPreferences sharedPref, Editor editor) {
+		this.sharedPref = sharedPref;
+		this.editor = editor;
+
+		boolean sortByRelevance = sharedPref.getBoolean("sortByRelevance", false);
+		optionsSwitch.setChecked(sortByRelevance);
+	}
+
+	/**
+	 * onCheckedChanged (non-Javadoc)
+	 * 
+	 * Called when the checked state of a compound button has changed.
+	 * 
+	 * @param buttonView. The compound button view whose state has changed.
+	 * @param isChecked. The new checked state of buttonView.
+	 * 
+	 * @see
+	 * android.widget.CompoundButton.OnCheckedChangeListener#onCheckedChanged
+	 * (android.widget.CompoundButton, boolean)
+	 */
+	@Override
+	public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+
+		editor.putBoolean("sortByRelevance", isChecked);
+		editor.commit();
+
+	}
+
+}